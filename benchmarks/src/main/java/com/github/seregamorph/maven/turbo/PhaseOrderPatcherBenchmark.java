@@ -0,0 +1,95 @@
+package com.github.seregamorph.maven.turbo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link PhaseOrderPatcher#reorderPhases} on the execution plans with several mojos per phase of the default
+ * lifecycle. The plan is copied on each invocation, the copy alone is measured by {@link #copy()}.
+ *
+ * @author Sergey Chernov
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PhaseOrderPatcherBenchmark {
+
+    private static final String[] DEFAULT_LIFECYCLE = {
+        "validate",
+        "initialize",
+        "generate-sources",
+        "process-sources",
+        "generate-resources",
+        "process-resources",
+        "compile",
+        "process-classes",
+        "generate-test-sources",
+        "process-test-sources",
+        "generate-test-resources",
+        "process-test-resources",
+        "test-compile",
+        "process-test-classes",
+        "test",
+        "prepare-package",
+        "package",
+        "pre-integration-test",
+        "integration-test",
+        "post-integration-test",
+        "verify",
+        "install",
+        "deploy"
+    };
+
+    /**
+     * Mojos per phase of the plan.
+     */
+    @Param({"1", "10", "100"})
+    int mojosPerPhase;
+
+    @Param({"false", "true"})
+    boolean turboTestCompile;
+
+    private final Function<String, String> phaseExtractor = Function.identity();
+    private List<String> plan;
+    private TurboBuilderConfig config;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        plan = new ArrayList<>();
+        for (String phase : DEFAULT_LIFECYCLE) {
+            for (int i = 0; i < mojosPerPhase; i++) {
+                plan.add(phase);
+            }
+        }
+        config = new TurboBuilderConfig(turboTestCompile);
+    }
+
+    @Benchmark
+    public List<String> copy() {
+        return new ArrayList<>(plan);
+    }
+
+    @Benchmark
+    public List<String> reorderPhases() {
+        List<String> phaseItems = new ArrayList<>(plan);
+        PhaseOrderPatcher.reorderPhases(config, phaseItems, phaseExtractor);
+        return phaseItems;
+    }
+}
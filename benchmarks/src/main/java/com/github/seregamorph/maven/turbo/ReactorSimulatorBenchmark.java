@@ -0,0 +1,66 @@
+package com.github.seregamorph.maven.turbo;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.maven.project.MavenProject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of {@link ReactorSimulator} on the synthetic reactors with random module durations.
+ *
+ * @author Sergey Chernov
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReactorSimulatorBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    int size;
+
+    /**
+     * {@link SyntheticReactor.Shape}
+     */
+    @Param({"LAYERED"})
+    String shape;
+
+    @Param({"16"})
+    int threads;
+
+    private ReactorSimulator simulator;
+    private int[] priorities;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SyntheticReactor reactor = new SyntheticReactor(SyntheticReactor.Shape.valueOf(shape), size);
+        ReactorGraph<MavenProject> graph = ReactorGraph.of(reactor.getAllProjects(), reactor);
+        Random random = new Random(size);
+        long[] preSignalMillis = new long[size];
+        long[] postSignalMillis = new long[size];
+        for (int id = 0; id < size; id++) {
+            preSignalMillis[id] = 1_000L + random.nextInt(30_000);
+            postSignalMillis[id] = random.nextInt(120_000);
+        }
+        simulator = new ReactorSimulator(graph, preSignalMillis, postSignalMillis);
+        priorities = SchedulingPriority.CRITICAL_PATH.priorities(graph, preSignalMillis, postSignalMillis);
+    }
+
+    @Benchmark
+    public ReactorSimulator.Result simulate() {
+        return simulator.simulate(SchedulingPriority.CRITICAL_PATH, priorities, threads);
+    }
+}
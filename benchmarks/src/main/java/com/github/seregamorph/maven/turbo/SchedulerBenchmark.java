@@ -0,0 +1,187 @@
+package com.github.seregamorph.maven.turbo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.apache.maven.lifecycle.internal.ProjectBuildList;
+import org.apache.maven.lifecycle.internal.ProjectSegment;
+import org.apache.maven.lifecycle.internal.builder.multithreaded.ConcurrencyDependencyGraph;
+import org.apache.maven.project.MavenProject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Scheduling overhead of the whole reactor with the stub module builds, which return immediately. The scheduler
+ * modes are "workStealing" ({@link GraphScheduler}) and "priority" (the coordinator loop of {@link TurboBuilder}).
+ *
+ * @author Sergey Chernov
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SchedulerBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    int size;
+
+    /**
+     * {@link SyntheticReactor.Shape}
+     */
+    @Param({"CHAIN", "WIDE", "LAYERED"})
+    String shape;
+
+    @Param({"4"})
+    int threads;
+
+    private SyntheticReactor reactor;
+    private ReactorGraph<MavenProject> graph;
+    private int[] priorities;
+    private ExecutorService workStealingExecutor;
+    private ExecutorService priorityExecutor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        reactor = new SyntheticReactor(SyntheticReactor.Shape.valueOf(shape), size);
+        graph = ReactorGraph.of(reactor.getAllProjects(), reactor);
+        priorities = SchedulingPriority.TRANSITIVE.priorities(graph, ModuleDurations.UNIFORM);
+        workStealingExecutor = new ForkJoinPool(threads, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+        priorityExecutor = new TurboThreadPoolExecutor(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        workStealingExecutor.shutdownNow();
+        priorityExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public List<Throwable> workStealing() throws InterruptedException {
+        ScheduleGraph scheduleGraph = new ScheduleGraph(graph, reactor.getProjectSegments(), priorities);
+        GraphScheduler scheduler = new GraphScheduler(
+                workStealingExecutor, scheduleGraph, SchedulerBenchmark::stubBuild, () -> false);
+        return scheduler.build();
+    }
+
+    /**
+     * Mirrors TurboBuilder.multiThreadedProjectTaskSegmentBuild without the build context.
+     */
+    @Benchmark
+    public List<Future<MavenProject>> priority() throws Exception {
+        ScheduleGraph scheduleGraph = new ScheduleGraph(graph, reactor.getProjectSegments(), priorities);
+        SignalingExecutorCompletionService service =
+                SignalingExecutorCompletionService.withMilestones(priorityExecutor);
+
+        List<Future<MavenProject>> tasks = new ArrayList<>();
+        int[] roots = scheduleGraph.roots();
+        for (int id : roots) {
+            tasks.add(submit(service, scheduleGraph, id));
+        }
+        int released = roots.length;
+        while (released < scheduleGraph.size()) {
+            SignalingExecutorCompletionService.ReachedMilestone reached = service.takeMilestone();
+            for (int id : scheduleGraph.releaseMilestone(graph.id(reached.project), reached.milestone)) {
+                released++;
+                tasks.add(submit(service, scheduleGraph, id));
+            }
+        }
+        for (Future<MavenProject> task : tasks) {
+            task.get();
+        }
+        return tasks;
+    }
+
+    /**
+     * The loop of the priority scheduler before {@link ScheduleGraph} was used, for comparison. The signaled projects
+     * are collected by the {@link SignaledQueue}, which the completion service no longer provides.
+     */
+    @Benchmark
+    public List<Future<MavenProject>> priorityConcurrencyDependencyGraph() throws Exception {
+        Map<MavenProject, ProjectSegment> projectSegments = reactor.getProjectSegments();
+        List<ProjectSegment> segments = new ArrayList<>();
+        for (MavenProject project : reactor.getSortedProjects()) {
+            segments.add(projectSegments.get(project));
+        }
+        ConcurrencyDependencyGraph analyzer = new ConcurrencyDependencyGraph(new ProjectBuildList(segments), reactor);
+        SignaledQueue signaledQueue = new SignaledQueue();
+
+        List<Future<MavenProject>> tasks = new ArrayList<>();
+        for (MavenProject project : analyzer.getRootSchedulableBuilds()) {
+            tasks.add(signaledQueue.submit(project, projectSegments.get(project)));
+        }
+        for (int i = 0; i < analyzer.getNumberOfBuilds(); i++) {
+            MavenProject signaled = signaledQueue.take();
+            if (analyzer.getNumberOfBuilds() > 1) {
+                for (MavenProject project : analyzer.markAsFinished(signaled)) {
+                    tasks.add(signaledQueue.submit(project, projectSegments.get(project)));
+                }
+            }
+        }
+        for (Future<MavenProject> task : tasks) {
+            task.get();
+        }
+        return tasks;
+    }
+
+    private static Future<MavenProject> submit(
+            SignalingExecutorCompletionService service, ScheduleGraph scheduleGraph, int id) {
+        ProjectSegment projectSegment = scheduleGraph.projectSegment(id);
+        return service.submit(-scheduleGraph.priority(id), projectSegment.getProject(), stubBuild(projectSegment));
+    }
+
+    private static Callable<MavenProject> stubBuild(ProjectSegment projectSegment) {
+        return projectSegment::getProject;
+    }
+
+    /**
+     * Collects the signaled projects (or the failures) of the submitted builds, as the completion service did before
+     * the milestones were tracked.
+     */
+    private final class SignaledQueue implements SignalingExecutorCompletionService.SignalListener {
+
+        private final BlockingQueue<CompletableFuture<MavenProject>> queue = new LinkedBlockingQueue<>();
+
+        Future<MavenProject> submit(MavenProject project, ProjectSegment projectSegment) {
+            return SignalingExecutorCompletionService.submit(
+                    priorityExecutor, -priorities[graph.id(project)], project, stubBuild(projectSegment), this);
+        }
+
+        MavenProject take() throws InterruptedException, ExecutionException {
+            return queue.take().get();
+        }
+
+        @Override
+        public void signaled(MavenProject project) {
+            queue.add(CompletableFuture.completedFuture(project));
+        }
+
+        @Override
+        public void finished(MavenProject project, /*@Nullable*/ Throwable failure) {
+            if (failure != null) {
+                queue.add(CompletableFuture.failedFuture(failure));
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.github.seregamorph.maven.turbo;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.apache.maven.project.MavenProject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of {@link SignalingExecutorCompletionService}: submitted builds reach the package milestone explicitly and
+ * the coordinator thread takes the reached milestones, as the priority scheduler of {@link TurboBuilder} does.
+ *
+ * @author Sergey Chernov
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SignalingExecutorCompletionServiceBenchmark {
+
+    private static final int BUILDS = 1000;
+
+    @Param({"1", "4", "16"})
+    int threads;
+
+    private MavenProject[] projects;
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        projects = new MavenProject[BUILDS];
+        for (int i = 0; i < BUILDS; i++) {
+            projects[i] = new MavenProject();
+            projects[i].setArtifactId("module-" + i);
+        }
+        executor = new TurboThreadPoolExecutor(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BUILDS)
+    public int submitAndTakeMilestones() throws Exception {
+        SignalingExecutorCompletionService service = SignalingExecutorCompletionService.withMilestones(executor);
+        for (int i = 0; i < BUILDS; i++) {
+            MavenProject project = projects[i];
+            service.submit(i, project, () -> {
+                SignalingExecutorCompletionService.milestone(Milestone.CLASSES);
+                SignalingExecutorCompletionService.milestone(Milestone.PACKAGE);
+                return project;
+            });
+        }
+        // the milestones which are not reached explicitly are reported when the build is completed
+        int taken = 0;
+        for (int i = 0; i < BUILDS * Milestone.values().length; i++) {
+            if (service.takeMilestone() != null) {
+                taken++;
+            }
+        }
+        return taken;
+    }
+}
@@ -0,0 +1,142 @@
+package com.github.seregamorph.maven.turbo;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Function;
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.execution.ProjectDependencyGraph;
+import org.apache.maven.lifecycle.internal.ProjectSegment;
+import org.apache.maven.lifecycle.internal.TaskSegment;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Synthetic reactor of the given shape and size with the dependency graph backed by hash maps, so the graph queries
+ * don't dominate the measured scheduler overhead.
+ *
+ * @author Sergey Chernov
+ */
+final class SyntheticReactor implements ProjectDependencyGraph {
+
+    /**
+     * Shapes of the synthetic dependency graphs.
+     */
+    enum Shape {
+        /**
+         * Each module depends on the previous one, no parallelism.
+         */
+        CHAIN,
+        /**
+         * All modules depend on a single root module.
+         */
+        WIDE,
+        /**
+         * Layers of sqrt(size) modules, each module depends on up to 3 random modules of the previous layer.
+         */
+        LAYERED
+    }
+
+    private final List<MavenProject> projects = new ArrayList<>();
+    private final Map<MavenProject, List<MavenProject>> upstreams = new HashMap<>();
+    private final Map<MavenProject, List<MavenProject>> downstreams = new HashMap<>();
+    private final MavenSession session;
+    private final TaskSegment taskSegment = new TaskSegment(false, "verify");
+    private final Map<MavenProject, ProjectSegment> projectSegments = new HashMap<>();
+
+    // the session without the container and the repository session, all the public constructors are deprecated
+    @SuppressWarnings("deprecation")
+    SyntheticReactor(Shape shape, int size) {
+        Random random = new Random(size);
+        int layerWidth = Math.max(1, (int) Math.sqrt(size));
+        for (int i = 0; i < size; i++) {
+            MavenProject project = new MavenProject();
+            project.setGroupId("com.example");
+            project.setArtifactId("module-" + i);
+            project.setVersion("1.0");
+            List<MavenProject> projectUpstreams = new ArrayList<>();
+            if (i > 0) {
+                switch (shape) {
+                    case CHAIN:
+                        projectUpstreams.add(projects.get(i - 1));
+                        break;
+                    case WIDE:
+                        projectUpstreams.add(projects.get(0));
+                        break;
+                    case LAYERED:
+                        int layerStart = (i / layerWidth - 1) * layerWidth;
+                        if (layerStart >= 0) {
+                            for (int k = 0; k < 3; k++) {
+                                MavenProject upstream = projects.get(layerStart + random.nextInt(layerWidth));
+                                if (!projectUpstreams.contains(upstream)) {
+                                    projectUpstreams.add(upstream);
+                                }
+                            }
+                        }
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown shape " + shape);
+                }
+            }
+            projects.add(project);
+            upstreams.put(project, projectUpstreams);
+            downstreams.put(project, new ArrayList<>());
+            for (MavenProject upstream : projectUpstreams) {
+                downstreams.get(upstream).add(project);
+            }
+        }
+        session = new MavenSession(null, null, new DefaultMavenExecutionRequest(), null);
+        session.setProjects(projects);
+        session.setProjectDependencyGraph(this);
+        for (MavenProject project : projects) {
+            projectSegments.put(project, new ProjectSegment(project, taskSegment, session));
+        }
+    }
+
+    TaskSegment getTaskSegment() {
+        return taskSegment;
+    }
+
+    Map<MavenProject, ProjectSegment> getProjectSegments() {
+        return projectSegments;
+    }
+
+    @Override
+    public List<MavenProject> getAllProjects() {
+        return projects;
+    }
+
+    @Override
+    public List<MavenProject> getSortedProjects() {
+        // projects are added in topological order
+        return projects;
+    }
+
+    @Override
+    public List<MavenProject> getDownstreamProjects(MavenProject project, boolean transitive) {
+        return transitive ? closure(project, downstreams::get) : downstreams.get(project);
+    }
+
+    @Override
+    public List<MavenProject> getUpstreamProjects(MavenProject project, boolean transitive) {
+        return transitive ? closure(project, upstreams::get) : upstreams.get(project);
+    }
+
+    private static List<MavenProject> closure(
+            MavenProject project, Function<MavenProject, List<MavenProject>> adjacent) {
+        Set<MavenProject> result = new LinkedHashSet<>();
+        ArrayDeque<MavenProject> queue = new ArrayDeque<>(adjacent.apply(project));
+        while (!queue.isEmpty()) {
+            MavenProject next = queue.poll();
+            if (result.add(next)) {
+                queue.addAll(adjacent.apply(next));
+            }
+        }
+        return new ArrayList<>(result);
+    }
+}
@@ -0,0 +1,156 @@
+package com.github.seregamorph.maven.turbo;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Adjusts the {@link ConcurrencyLimiter} between min and max bounds according to the system load. The load is
+ * sampled periodically: system load average (it includes forked processes like surefire test JVMs), process CPU
+ * load and heap usage after the last garbage collection. The limit is decreased by one when the system is overloaded and increased by one when there
+ * are spare resources. Enabled via "-DturboAdaptive" parameter.
+ *
+ * @author Sergey Chernov
+ */
+final class AdaptiveConcurrency implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveConcurrency.class);
+
+    static final long SAMPLE_INTERVAL_MILLIS = 2000L;
+
+    // system load average per available processor
+    private static final double OVERLOADED_LOAD = 1.5;
+    private static final double UNDERLOADED_LOAD = 0.8;
+    // process CPU load, 0.0-1.0
+    private static final double UNDERLOADED_PROCESS_CPU = 0.8;
+    // used heap to max heap
+    private static final double HEAP_PRESSURE = 0.9;
+    private static final double HEAP_SPARE = 0.7;
+
+    private final ConcurrencyLimiter limiter;
+    private final int min;
+    private final int max;
+    private final ScheduledExecutorService sampler;
+
+    /**
+     * Starts sampling the system load, the limiter starts with the max bound.
+     */
+    AdaptiveConcurrency(int min, int max) {
+        if (min < 1 || min > max) {
+            throw new IllegalArgumentException("Invalid adaptive concurrency bounds: min=" + min + ", max=" + max);
+        }
+        this.limiter = new ConcurrencyLimiter(max);
+        this.min = min;
+        this.max = max;
+        this.sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mvn-turbo-adaptive-concurrency");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sampler.scheduleWithFixedDelay(
+                this::adjust, SAMPLE_INTERVAL_MILLIS, SAMPLE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    ConcurrencyLimiter getLimiter() {
+        return limiter;
+    }
+
+    private void adjust() {
+        try {
+            Sample sample = Sample.current();
+            int limit = limiter.getLimit();
+            int newLimit = nextLimit(limit, min, max, sample);
+            if (newLimit != limit) {
+                logger.debug("Adaptive concurrency {} -> {} ({})", limit, newLimit, sample);
+                limiter.setLimit(newLimit);
+            }
+        } catch (RuntimeException e) {
+            // should not stop the sampling
+            logger.warn("Failed to adjust adaptive concurrency", e);
+        }
+    }
+
+    static int nextLimit(int limit, int min, int max, Sample sample) {
+        if (sample.loadPerProcessor > OVERLOADED_LOAD || sample.heapUsage > HEAP_PRESSURE) {
+            return Math.max(min, limit - 1);
+        }
+        // negative values mean the metric is not available
+        if (sample.loadPerProcessor < UNDERLOADED_LOAD
+                && sample.processCpuLoad < UNDERLOADED_PROCESS_CPU
+                && sample.heapUsage < HEAP_SPARE) {
+            return Math.min(max, limit + 1);
+        }
+        return limit;
+    }
+
+    @Override
+    public void close() {
+        sampler.shutdownNow();
+    }
+
+    static final class Sample {
+
+        /**
+         * System load average divided by the number of available processors, negative if not available.
+         */
+        final double loadPerProcessor;
+        /**
+         * Recent CPU usage of the Maven process (0.0-1.0), negative if not available.
+         */
+        final double processCpuLoad;
+        /**
+         * Used heap divided by max heap (0.0-1.0), negative if not available.
+         */
+        final double heapUsage;
+
+        Sample(double loadPerProcessor, double processCpuLoad, double heapUsage) {
+            this.loadPerProcessor = loadPerProcessor;
+            this.processCpuLoad = processCpuLoad;
+            this.heapUsage = heapUsage;
+        }
+
+        static Sample current() {
+            OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+            double loadAverage = os.getSystemLoadAverage();
+            double loadPerProcessor = loadAverage < 0.0 ? -1.0 : loadAverage / os.getAvailableProcessors();
+            double processCpuLoad = os instanceof com.sun.management.OperatingSystemMXBean
+                    ? ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuLoad()
+                    : -1.0;
+            MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+            double heapUsage = heap.getMax() > 0L ? (double) heapUsedAfterGc(heap) / heap.getMax() : -1.0;
+            return new Sample(loadPerProcessor, processCpuLoad, heapUsage);
+        }
+
+        /**
+         * Used heap after the last garbage collection, as the current usage includes the garbage.
+         */
+        private static long heapUsedAfterGc(MemoryUsage heap) {
+            long used = 0L;
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) {
+                    MemoryUsage collectionUsage = pool.getCollectionUsage();
+                    if (collectionUsage == null) {
+                        // collection usage is not supported
+                        return heap.getUsed();
+                    }
+                    used += collectionUsage.getUsed();
+                }
+            }
+            return used;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "load per processor %.2f, process CPU %.2f, heap usage %.2f",
+                    loadPerProcessor, processCpuLoad, heapUsage);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.github.seregamorph.maven.turbo;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.apache.maven.execution.ProjectDependencyGraph;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Calculates the modules affected by the changes since the base git ref: the modules containing changed files and
+ * their direct and transitive downstream dependencies. Other modules are not built by the {@link TurboBuilder}, their
+ * artifacts are resolved from the local repository (the output directories of the previous build are not used), so
+ * the modules should be installed by an earlier "mvn install" of the same versions. Configured via
+ * "-DturboAffectedSince=..." parameter, e.g. "-DturboAffectedSince=origin/main".
+ * <p>
+ * The changed files are committed since the merge base with the base ref, uncommitted and untracked (not ignored)
+ * ones. A file belongs to the module with the deepest base directory containing it, only the pom.xml is taken into
+ * account for the modules with "pom" packaging (so documentation and CI files don't affect the parent modules).
+ *
+ * @author Sergey Chernov
+ */
+final class AffectedModules {
+
+    private static final long GIT_TIMEOUT_SECONDS = 60L;
+
+    /**
+     * @param directory directory of the git working tree
+     * @param baseRef   base git ref, e.g. "origin/main"
+     * @return absolute paths of changed files
+     */
+    static Set<Path> changedFiles(Path directory, String baseRef) throws IOException {
+        Path topLevel = Paths.get(git(directory, "rev-parse", "--show-toplevel").get(0));
+        Set<Path> changedFiles = new LinkedHashSet<>();
+        List<List<String>> commands = Arrays.asList(
+                // committed since the merge base
+                Arrays.asList("diff", "--name-only", baseRef + "...HEAD"),
+                // staged and not staged
+                Arrays.asList("diff", "--name-only", "HEAD"),
+                Arrays.asList("ls-files", "--others", "--exclude-standard"));
+        for (List<String> command : commands) {
+            for (String file : git(topLevel, command.toArray(new String[0]))) {
+                changedFiles.add(topLevel.resolve(file).normalize());
+            }
+        }
+        return changedFiles;
+    }
+
+    /**
+     * @return the projects containing the changed files
+     */
+    static Set<MavenProject> changedProjects(Collection<MavenProject> projects, Collection<Path> changedFiles) {
+        // the deepest base directories go first
+        List<MavenProject> sortedProjects = new ArrayList<>(projects);
+        sortedProjects.sort(Comparator.comparingInt(
+                        (MavenProject project) -> basedir(project).getNameCount())
+                .reversed());
+        Set<MavenProject> changedProjects = new HashSet<>();
+        for (Path changedFile : changedFiles) {
+            for (MavenProject project : sortedProjects) {
+                if (changedFile.startsWith(basedir(project))) {
+                    if (!"pom".equals(project.getPackaging())
+                            || changedFile.equals(
+                                    project.getFile().toPath().toAbsolutePath().normalize())) {
+                        changedProjects.add(project);
+                    }
+                    break;
+                }
+            }
+        }
+        return changedProjects;
+    }
+
+    /**
+     * @return the changed projects and their direct and transitive downstream dependencies
+     */
+    static Set<MavenProject> affectedProjects(Set<MavenProject> changedProjects, ProjectDependencyGraph graph) {
+        Set<MavenProject> affectedProjects = new HashSet<>(changedProjects);
+        for (MavenProject project : changedProjects) {
+            affectedProjects.addAll(graph.getDownstreamProjects(project, true));
+        }
+        return affectedProjects;
+    }
+
+    private static Path basedir(MavenProject project) {
+        return project.getBasedir().toPath().toAbsolutePath().normalize();
+    }
+
+    private static List<String> git(Path directory, String... args) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add("git");
+        command.addAll(Arrays.asList(args));
+        Process process = new ProcessBuilder(command)
+                .directory(directory.toFile())
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader =
+                new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    lines.add(line);
+                }
+            }
+        }
+        try {
+            if (!process.waitFor(GIT_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                throw new IOException("Timeout of " + command);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted " + command, e);
+        }
+        if (process.exitValue() != 0) {
+            throw new IOException(command + " failed with exit code " + process.exitValue());
+        }
+        return lines;
+    }
+
+    private AffectedModules() {}
+}
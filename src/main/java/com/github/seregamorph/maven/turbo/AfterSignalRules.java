@@ -0,0 +1,62 @@
+package com.github.seregamorph.maven.turbo;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import org.apache.maven.plugin.MojoExecution;
+
+/**
+ * Rules to move the non-essential mojos (checks, reports, etc.) bound before the signal of the module to right after
+ * it, so the downstream modules are scheduled earlier. Configured via "-DturboAfterSignalMojos=..." parameter with the
+ * comma-separated "pluginGroupId:pluginArtifactId:goal", "pluginArtifactId:goal", "pluginArtifactId" or phase list (or
+ * "true" for the {@link #DEFAULT_RULES}).
+ * <p>
+ * The rules are applied to the execution plan of each module both for Maven 3 and Maven 4, as they match the mojos
+ * rather than the phases of the lifecycle. Only the mojos which outputs are not consumed by the later mojos of the
+ * module and by the downstream modules should be listed.
+ *
+ * @author Sergey Chernov
+ */
+final class AfterSignalRules {
+
+    static final Set<String> DEFAULT_RULES = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(
+            "maven-enforcer-plugin:enforce",
+            "spotless-maven-plugin:check",
+            "license-maven-plugin:check",
+            "animal-sniffer-maven-plugin:check",
+            "apache-rat-plugin:check")));
+
+    static Set<String> parseRules(/*@Nullable*/ String value) {
+        if (value == null || value.trim().isEmpty() || "false".equals(value)) {
+            return Collections.emptySet();
+        }
+        if ("true".equals(value)) {
+            return DEFAULT_RULES;
+        }
+        Set<String> rules = new LinkedHashSet<>();
+        for (String rule : value.split(",")) {
+            if (!rule.trim().isEmpty()) {
+                rules.add(rule.trim());
+            }
+        }
+        return Collections.unmodifiableSet(rules);
+    }
+
+    /**
+     * @return true if the mojo is listed by "pluginGroupId:pluginArtifactId:goal", "pluginArtifactId:goal",
+     * "pluginArtifactId" or by its phase
+     */
+    static boolean matches(Set<String> rules, MojoExecution mojoExecution) {
+        if (rules.isEmpty()) {
+            return false;
+        }
+        String mojo = mojoExecution.getArtifactId() + ":" + mojoExecution.getGoal();
+        return rules.contains(mojo)
+                || rules.contains(mojoExecution.getArtifactId())
+                || rules.contains(mojoExecution.getGroupId() + ":" + mojo)
+                || rules.contains(MojoUtils.getMojoPhase(mojoExecution));
+    }
+
+    private AfterSignalRules() {}
+}
@@ -0,0 +1,298 @@
+package com.github.seregamorph.maven.turbo;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.MavenProjectHelper;
+
+/**
+ * Local on-disk cache of the module build outputs keyed by the {@link ModuleFingerprints module fingerprint}: the
+ * output directory (target/classes) and the main and attached artifacts packaged into the build directory. Each entry
+ * is a directory named by the fingerprint with a manifest, the least recently used entries are evicted when the cache
+ * exceeds the max size. Configured via "-DturboBuildCache=..." parameter with the cache directory (or "true" for
+ * ~/.m2/turbo-cache) and "-DturboBuildCacheMaxSize=..." in megabytes.
+ * <p>
+ * The files are copied via zero-copy transfer rather than hard-linked: the plugins may rewrite the build outputs in
+ * place on the next build, which would corrupt the cache entries sharing the same inode.
+ *
+ * @author Sergey Chernov
+ */
+final class BuildCache {
+
+    private static final String MANIFEST = "manifest.tsv";
+    private static final String CLASSES = "classes";
+    private static final String ARTIFACTS = "artifacts";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final char SEPARATOR = '\t';
+
+    private final Path directory;
+    private final long maxSizeBytes;
+    private final MavenProjectHelper projectHelper;
+
+    /**
+     * @param directory     cache directory
+     * @param maxSizeBytes  max size of the cache, the least recently used entries are evicted above it
+     * @param projectHelper attaches the restored artifacts to the project
+     */
+    BuildCache(Path directory, long maxSizeBytes, MavenProjectHelper projectHelper) {
+        this.directory = directory;
+        this.maxSizeBytes = maxSizeBytes;
+        this.projectHelper = projectHelper;
+    }
+
+    /**
+     * Restores the build outputs of the module from the cache entry and sets the artifact files of the project, so
+     * they are resolved by the downstream modules of the reactor.
+     *
+     * @return true if the cache entry was found and restored
+     */
+    boolean restore(MavenProject project, String fingerprint) throws IOException {
+        Path entry = directory.resolve(fingerprint);
+        Path manifest = entry.resolve(MANIFEST);
+        if (!Files.isRegularFile(manifest)) {
+            return false;
+        }
+        List<String[]> artifacts = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(manifest, StandardCharsets.UTF_8)) {
+            // total size
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                artifacts.add(line.split(String.valueOf(SEPARATOR), -1));
+            }
+        }
+        // mark the entry as recently used
+        Files.setLastModifiedTime(manifest, FileTime.fromMillis(System.currentTimeMillis()));
+
+        Path outputDirectory = Paths.get(project.getBuild().getOutputDirectory());
+        Path buildDirectory = Paths.get(project.getBuild().getDirectory());
+        if (Files.isDirectory(entry.resolve(CLASSES))) {
+            deleteRecursively(outputDirectory);
+            copyRecursively(entry.resolve(CLASSES), outputDirectory);
+        }
+        for (String[] fields : artifacts) {
+            // main or attached, type, classifier, extension, file name
+            if (fields.length != 5) {
+                throw new IOException("Corrupted build cache manifest " + manifest);
+            }
+            Path file = buildDirectory.resolve(fields[4]);
+            copyFile(entry.resolve(ARTIFACTS).resolve(fields[4]), file);
+            setArtifactFile(projectHelper, project, fields, file);
+        }
+        return true;
+    }
+
+    /**
+     * Sets the file of the main or attached artifact of the project described by the {@link #manifestLine manifest
+     * line}, so it's resolved by the downstream modules of the reactor. The attached artifact gets the artifact handler
+     * of its type (e.g. the "jar" extension of "test-jar"), like the one attached by the plugin.
+     */
+    static void setArtifactFile(MavenProjectHelper projectHelper, MavenProject project, String[] fields, Path file) {
+        if ("main".equals(fields[0])) {
+            project.getArtifact().setFile(file.toFile());
+        } else {
+            projectHelper.attachArtifact(project, fields[1], fields[2].isEmpty() ? null : fields[2], file.toFile());
+        }
+    }
+
+    /**
+     * Stores the build outputs of the successfully built module, if not stored yet, and evicts the least recently
+     * used entries above the max size.
+     */
+    void store(MavenProject project, String fingerprint) throws IOException {
+        Path entry = directory.resolve(fingerprint);
+        if (Files.exists(entry)) {
+            return;
+        }
+        Path buildDirectory =
+                Paths.get(project.getBuild().getDirectory()).toAbsolutePath().normalize();
+        Path outputDirectory = Paths.get(project.getBuild().getOutputDirectory());
+        StringBuilder artifacts = new StringBuilder();
+        List<Path> artifactFiles = new ArrayList<>();
+        if (isBuildOutput(buildDirectory, project.getArtifact())) {
+            artifacts.append(manifestLine("main", project.getArtifact()));
+            artifactFiles.add(project.getArtifact().getFile().toPath());
+        }
+        for (Artifact attachedArtifact : project.getAttachedArtifacts()) {
+            if (isBuildOutput(buildDirectory, attachedArtifact)) {
+                artifacts.append(manifestLine("attached", attachedArtifact));
+                artifactFiles.add(attachedArtifact.getFile().toPath());
+            }
+        }
+        if (artifactFiles.isEmpty() && !Files.isDirectory(outputDirectory)) {
+            // nothing to restore, e.g. pom packaging
+            return;
+        }
+
+        // the concurrent builds write own temp directories, the first moved one wins
+        Path tempEntry = directory.resolve(fingerprint + "-" + UUID.randomUUID() + TEMP_SUFFIX);
+        try {
+            long size = 0L;
+            if (Files.isDirectory(outputDirectory)) {
+                size += copyRecursively(outputDirectory, tempEntry.resolve(CLASSES));
+            }
+            for (Path artifactFile : artifactFiles) {
+                size += copyFile(artifactFile, tempEntry.resolve(ARTIFACTS).resolve(artifactFile.getFileName()));
+            }
+            Files.createDirectories(tempEntry);
+            Files.write(tempEntry.resolve(MANIFEST), (size + "\n" + artifacts).getBytes(StandardCharsets.UTF_8));
+            try {
+                Files.move(tempEntry, entry, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException | DirectoryNotEmptyException e) {
+                // stored concurrently
+            }
+        } finally {
+            deleteRecursively(tempEntry);
+        }
+        evict();
+    }
+
+    /**
+     * Deletes the least recently used entries until the cache fits the max size.
+     */
+    synchronized void evict() throws IOException {
+        List<Path> manifests = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            for (Path entry : entries) {
+                Path manifest = entry.resolve(MANIFEST);
+                if (!entry.getFileName().toString().endsWith(TEMP_SUFFIX) && Files.isRegularFile(manifest)) {
+                    manifests.add(manifest);
+                }
+            }
+        }
+        List<CacheEntry> cacheEntries = new ArrayList<>();
+        long totalSize = 0L;
+        for (Path manifest : manifests) {
+            try (BufferedReader reader = Files.newBufferedReader(manifest, StandardCharsets.UTF_8)) {
+                long size = Long.parseLong(reader.readLine());
+                cacheEntries.add(new CacheEntry(
+                        manifest.getParent(),
+                        Files.getLastModifiedTime(manifest).toMillis(),
+                        size));
+                totalSize += size;
+            } catch (IOException | RuntimeException e) {
+                // deleted concurrently or corrupted, the latter is evicted
+                cacheEntries.add(new CacheEntry(manifest.getParent(), Long.MIN_VALUE, 0L));
+            }
+        }
+        cacheEntries.sort(Comparator.comparingLong(cacheEntry -> cacheEntry.lastUsedMillis));
+        for (CacheEntry cacheEntry : cacheEntries) {
+            if (totalSize <= maxSizeBytes && cacheEntry.lastUsedMillis != Long.MIN_VALUE) {
+                break;
+            }
+            deleteRecursively(cacheEntry.entry);
+            totalSize -= cacheEntry.size;
+        }
+    }
+
+    static boolean isBuildOutput(Path buildDirectory, Artifact artifact) {
+        return artifact.getFile() != null
+                && artifact.getFile().isFile()
+                && artifact.getFile().toPath().toAbsolutePath().normalize().startsWith(buildDirectory);
+    }
+
+    /**
+     * @return tab-separated line: main or attached, type, classifier, extension, file name
+     */
+    static String manifestLine(String kind, Artifact artifact) {
+        String classifier = artifact.getClassifier() == null ? "" : artifact.getClassifier();
+        return kind + SEPARATOR
+                + artifact.getType() + SEPARATOR
+                + classifier + SEPARATOR
+                + artifact.getArtifactHandler().getExtension() + SEPARATOR
+                + artifact.getFile().getName() + "\n";
+    }
+
+    /**
+     * @return the number of copied bytes
+     */
+    private static long copyRecursively(Path source, Path target) throws IOException {
+        long[] size = new long[1];
+        Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                Files.createDirectories(target.resolve(source.relativize(dir).toString()));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                size[0] += copyFile(file, target.resolve(source.relativize(file).toString()));
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return size[0];
+    }
+
+    /**
+     * Copies the file via {@link FileChannel#transferTo}, which is a zero-copy transfer on most platforms.
+     *
+     * @return the number of copied bytes
+     */
+    static long copyFile(Path source, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        try (FileChannel sourceChannel = FileChannel.open(source, StandardOpenOption.READ);
+                FileChannel targetChannel = FileChannel.open(
+                        target,
+                        StandardOpenOption.WRITE,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = sourceChannel.size();
+            long position = 0L;
+            while (position < size) {
+                position += sourceChannel.transferTo(position, size - position, targetChannel);
+            }
+            return size;
+        }
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        Files.walkFileTree(path, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.deleteIfExists(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.deleteIfExists(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static final class CacheEntry {
+        final Path entry;
+        final long lastUsedMillis;
+        final long size;
+
+        CacheEntry(Path entry, long lastUsedMillis, long size) {
+            this.entry = entry;
+            this.lastUsedMillis = lastUsedMillis;
+            this.size = size;
+        }
+    }
+}
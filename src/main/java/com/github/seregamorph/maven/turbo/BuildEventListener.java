@@ -0,0 +1,88 @@
+package com.github.seregamorph.maven.turbo;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Receives the events of the module builds, e.g. to record the build trace. The methods are called from the worker
+ * thread building the module, so the implementations should be cheap and should not block.
+ *
+ * @author Sergey Chernov
+ */
+interface BuildEventListener {
+
+    BuildEventListener NOOP = new BuildEventListener() {};
+
+    /**
+     * @param queuedNanos {@link System#nanoTime()} when the module was submitted to the executor
+     */
+    default void moduleStarted(MavenProject project, long queuedNanos) {}
+
+    /**
+     * The execution plan of the module is calculated, the first mojo is going to be executed.
+     */
+    default void moduleLifecycleStarted(MavenProject project) {}
+
+    default void moduleSignaled(MavenProject project) {}
+
+    default void moduleFinished(MavenProject project, boolean success) {}
+
+    default void mojoStarted(MojoExecution mojoExecution) {}
+
+    default void mojoFinished(MojoExecution mojoExecution, boolean success) {}
+
+    static BuildEventListener composite(List<BuildEventListener> listeners) {
+        if (listeners.isEmpty()) {
+            return NOOP;
+        }
+        if (listeners.size() == 1) {
+            return listeners.get(0);
+        }
+        BuildEventListener[] array = new ArrayList<>(listeners).toArray(new BuildEventListener[0]);
+        return new BuildEventListener() {
+            @Override
+            public void moduleStarted(MavenProject project, long queuedNanos) {
+                for (BuildEventListener listener : array) {
+                    listener.moduleStarted(project, queuedNanos);
+                }
+            }
+
+            @Override
+            public void moduleLifecycleStarted(MavenProject project) {
+                for (BuildEventListener listener : array) {
+                    listener.moduleLifecycleStarted(project);
+                }
+            }
+
+            @Override
+            public void moduleSignaled(MavenProject project) {
+                for (BuildEventListener listener : array) {
+                    listener.moduleSignaled(project);
+                }
+            }
+
+            @Override
+            public void moduleFinished(MavenProject project, boolean success) {
+                for (BuildEventListener listener : array) {
+                    listener.moduleFinished(project, success);
+                }
+            }
+
+            @Override
+            public void mojoStarted(MojoExecution mojoExecution) {
+                for (BuildEventListener listener : array) {
+                    listener.mojoStarted(mojoExecution);
+                }
+            }
+
+            @Override
+            public void mojoFinished(MojoExecution mojoExecution, boolean success) {
+                for (BuildEventListener listener : array) {
+                    listener.mojoFinished(mojoExecution, success);
+                }
+            }
+        };
+    }
+}
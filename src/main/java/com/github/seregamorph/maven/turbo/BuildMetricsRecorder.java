@@ -0,0 +1,293 @@
+package com.github.seregamorph.maven.turbo;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+import org.apache.maven.execution.ProjectDependencyGraph;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Collects the scheduling metrics of the build: per module time in the queue (from the submission to the start),
+ * time to the signal and total build time, idle time of the worker threads, average parallelism and the critical
+ * path observed. Tells whether the build is bound by the dependency graph or by the number of threads. Enabled via
+ * "-DturboMetrics" parameter, the summary is logged and written to a JSON file at the end of the build.
+ *
+ * @author Sergey Chernov
+ */
+final class BuildMetricsRecorder implements BuildEventListener {
+
+    private final int threads;
+    private final long startNanos;
+    private volatile long finishNanos = -1L;
+    private final Queue<ModuleRun> runs = new ConcurrentLinkedQueue<>();
+    // the events of the module are sent from the thread building it
+    private final ThreadLocal<ModuleRun> currentRun = new ThreadLocal<>();
+
+    BuildMetricsRecorder(int threads) {
+        this(threads, System.nanoTime());
+    }
+
+    BuildMetricsRecorder(int threads, long startNanos) {
+        this.threads = threads;
+        this.startNanos = startNanos;
+    }
+
+    @Override
+    public void moduleStarted(MavenProject project, long queuedNanos) {
+        ModuleRun run = new ModuleRun(project, queuedNanos, System.nanoTime());
+        currentRun.set(run);
+        runs.add(run);
+    }
+
+    @Override
+    public void moduleSignaled(MavenProject project) {
+        ModuleRun run = currentRun.get();
+        if (run != null) {
+            run.signalNanos = System.nanoTime();
+        }
+    }
+
+    @Override
+    public void moduleFinished(MavenProject project, boolean success) {
+        ModuleRun run = currentRun.get();
+        if (run != null) {
+            run.finished(System.nanoTime());
+            currentRun.remove();
+        }
+    }
+
+    void addRun(ModuleRun run) {
+        runs.add(run);
+    }
+
+    void buildFinished() {
+        buildFinished(System.nanoTime());
+    }
+
+    void buildFinished(long nanos) {
+        finishNanos = nanos;
+    }
+
+    /**
+     * Should be called after the build is completed.
+     */
+    BuildMetrics getMetrics(ProjectDependencyGraph dependencyGraph) {
+        return getMetrics(project -> dependencyGraph.getUpstreamProjects(project, false));
+    }
+
+    BuildMetrics getMetrics(Function<MavenProject, List<MavenProject>> upstreamProjects) {
+        List<ModuleRun> completedRuns = new ArrayList<>();
+        for (ModuleRun run : runs) {
+            if (run.finishNanos >= 0L) {
+                completedRuns.add(run);
+            }
+        }
+        completedRuns.sort(Comparator.comparingLong(run -> run.startNanos));
+        long end = finishNanos;
+        if (end < 0L) {
+            end = startNanos;
+            for (ModuleRun run : completedRuns) {
+                end = Math.max(end, run.finishNanos);
+            }
+        }
+        long busyNanos = 0L;
+        for (ModuleRun run : completedRuns) {
+            busyNanos += run.finishNanos - run.startNanos;
+        }
+        return new BuildMetrics(
+                threads, end - startNanos, busyNanos, completedRuns, criticalPath(completedRuns, upstreamProjects));
+    }
+
+    /**
+     * Walks back from the module finished last: the predecessor of a module is the upstream dependency which was
+     * signaled last before the module was submitted or the previous task segment build of the same module.
+     */
+    private static List<ModuleRun> criticalPath(
+            List<ModuleRun> runs, Function<MavenProject, List<MavenProject>> upstreamProjects) {
+        if (runs.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<MavenProject, List<ModuleRun>> runsByProject = new HashMap<>();
+        ModuleRun last = runs.get(0);
+        for (ModuleRun run : runs) {
+            runsByProject.computeIfAbsent(run.project, p -> new ArrayList<>()).add(run);
+            if (run.finishNanos > last.finishNanos) {
+                last = run;
+            }
+        }
+        List<ModuleRun> path = new ArrayList<>();
+        ModuleRun current = last;
+        while (current != null) {
+            path.add(current);
+            ModuleRun predecessor = null;
+            long predecessorRelease = Long.MIN_VALUE;
+            for (ModuleRun run : runsByProject.getOrDefault(current.project, Collections.emptyList())) {
+                if (run != current && run.finishNanos <= current.queuedNanos && run.finishNanos > predecessorRelease) {
+                    predecessor = run;
+                    predecessorRelease = run.finishNanos;
+                }
+            }
+            for (MavenProject upstream : upstreamProjects.apply(current.project)) {
+                for (ModuleRun run : runsByProject.getOrDefault(upstream, Collections.emptyList())) {
+                    if (run.signalNanos <= current.queuedNanos && run.signalNanos > predecessorRelease) {
+                        predecessor = run;
+                        predecessorRelease = run.signalNanos;
+                    }
+                }
+            }
+            current = predecessor;
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Single build of a module within a task segment.
+     */
+    static final class ModuleRun {
+        final MavenProject project;
+        final long queuedNanos;
+        final long startNanos;
+        long signalNanos = -1L;
+        long finishNanos = -1L;
+
+        ModuleRun(MavenProject project, long queuedNanos, long startNanos) {
+            this.project = project;
+            this.queuedNanos = queuedNanos;
+            this.startNanos = startNanos;
+        }
+
+        void finished(long nanos) {
+            finishNanos = nanos;
+            if (signalNanos < 0L) {
+                // not signaled explicitly, downstream dependencies are scheduled after the build
+                signalNanos = nanos;
+            }
+        }
+    }
+
+    static final class BuildMetrics {
+        final int threads;
+        final long wallNanos;
+        final long busyNanos;
+        final List<ModuleRun> runs;
+        final List<ModuleRun> criticalPath;
+
+        private BuildMetrics(
+                int threads, long wallNanos, long busyNanos, List<ModuleRun> runs, List<ModuleRun> criticalPath) {
+            this.threads = threads;
+            this.wallNanos = wallNanos;
+            this.busyNanos = busyNanos;
+            this.runs = runs;
+            this.criticalPath = criticalPath;
+        }
+
+        double averageParallelism() {
+            return wallNanos == 0L ? 0.0 : (double) busyNanos / wallNanos;
+        }
+
+        long idleNanos() {
+            return Math.max(0L, threads * wallNanos - busyNanos);
+        }
+
+        /**
+         * Sum of the durations of the critical path modules from the start to the signal (to the finish for the
+         * last one), the build can't be faster with the current dependency graph.
+         */
+        long criticalPathNanos() {
+            long nanos = 0L;
+            for (int i = 0; i < criticalPath.size(); i++) {
+                ModuleRun run = criticalPath.get(i);
+                nanos += (i == criticalPath.size() - 1 ? run.finishNanos : run.signalNanos) - run.startNanos;
+            }
+            return nanos;
+        }
+
+        List<String> toTable() {
+            List<String> lines = new ArrayList<>();
+            lines.add(String.format(
+                    Locale.ROOT,
+                    "Build time %s, %d threads, average parallelism %.2f (%.0f%%), idle worker time %s",
+                    seconds(wallNanos),
+                    threads,
+                    averageParallelism(),
+                    threads == 0 ? 0.0 : 100.0 * averageParallelism() / threads,
+                    seconds(idleNanos())));
+            int nameWidth = "Module".length();
+            for (ModuleRun run : runs) {
+                nameWidth = Math.max(nameWidth, run.project.getArtifactId().length());
+            }
+            String format = "%-" + nameWidth + "s %10s %10s %10s";
+            lines.add(String.format(Locale.ROOT, format, "Module", "Queue", "To signal", "Total"));
+            for (ModuleRun run : runs) {
+                lines.add(String.format(
+                        Locale.ROOT,
+                        format,
+                        run.project.getArtifactId(),
+                        seconds(run.startNanos - run.queuedNanos),
+                        seconds(run.signalNanos - run.startNanos),
+                        seconds(run.finishNanos - run.startNanos)));
+            }
+            StringBuilder path = new StringBuilder("Critical path ").append(seconds(criticalPathNanos()));
+            for (int i = 0; i < criticalPath.size(); i++) {
+                path.append(i == 0 ? ": " : " -> ")
+                        .append(criticalPath.get(i).project.getArtifactId());
+            }
+            lines.add(path.toString());
+            return lines;
+        }
+
+        void write(Path file) throws IOException {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            try (Writer writer = new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+                writer.write("{\n");
+                writer.write("  \"threads\": " + threads + ",\n");
+                writer.write("  \"wallMillis\": " + millis(wallNanos) + ",\n");
+                writer.write("  \"busyMillis\": " + millis(busyNanos) + ",\n");
+                writer.write("  \"idleMillis\": " + millis(idleNanos()) + ",\n");
+                writer.write(String.format(Locale.ROOT, "  \"averageParallelism\": %.3f,%n", averageParallelism()));
+                writer.write("  \"criticalPathMillis\": " + millis(criticalPathNanos()) + ",\n");
+                writer.write("  \"criticalPath\": [");
+                for (int i = 0; i < criticalPath.size(); i++) {
+                    writer.write((i == 0 ? "\"" : ", \"") + JsonUtils.escape(projectKey(criticalPath.get(i))) + "\"");
+                }
+                writer.write("],\n");
+                writer.write("  \"modules\": [");
+                for (int i = 0; i < runs.size(); i++) {
+                    ModuleRun run = runs.get(i);
+                    writer.write(i == 0 ? "\n" : ",\n");
+                    writer.write("    {\"module\": \"" + JsonUtils.escape(projectKey(run))
+                            + "\", \"queueMillis\": " + millis(run.startNanos - run.queuedNanos)
+                            + ", \"toSignalMillis\": " + millis(run.signalNanos - run.startNanos)
+                            + ", \"totalMillis\": " + millis(run.finishNanos - run.startNanos) + "}");
+                }
+                writer.write("\n  ]\n}\n");
+            }
+        }
+
+        private static String projectKey(ModuleRun run) {
+            return BuildTimingRecorder.projectKey(run.project);
+        }
+
+        private static long millis(long nanos) {
+            return nanos / 1_000_000L;
+        }
+
+        private static String seconds(long nanos) {
+            return String.format(Locale.ROOT, "%.2fs", nanos / 1e9);
+        }
+    }
+}
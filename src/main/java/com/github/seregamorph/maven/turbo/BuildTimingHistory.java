@@ -0,0 +1,68 @@
+package com.github.seregamorph.maven.turbo;
+
+import java.util.Collections;
+import java.util.Map;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Module build durations loaded from the {@link BuildTimingStore}. Modules which were never built before (e.g. just
+ * added to the reactor) are estimated with the average duration of known modules.
+ *
+ * @author Sergey Chernov
+ */
+final class BuildTimingHistory implements ModuleDurations {
+
+    static final BuildTimingHistory EMPTY = new BuildTimingHistory(Collections.emptyMap(), 0);
+
+    private final Map<String, long[]> durations;
+    private final int runs;
+    private final long defaultPreSignalMillis;
+    private final long defaultPostSignalMillis;
+
+    /**
+     * @param durations module key to pair of pre-signal and post-signal durations
+     * @param runs      number of builds the durations are calculated from
+     */
+    BuildTimingHistory(Map<String, long[]> durations, int runs) {
+        this.durations = durations;
+        this.runs = runs;
+        if (durations.isEmpty()) {
+            // same as ModuleDurations.UNIFORM
+            this.defaultPreSignalMillis = 1L;
+            this.defaultPostSignalMillis = 0L;
+        } else {
+            long preSignalSum = 0L;
+            long postSignalSum = 0L;
+            for (long[] moduleDurations : durations.values()) {
+                preSignalSum += moduleDurations[0];
+                postSignalSum += moduleDurations[1];
+            }
+            this.defaultPreSignalMillis = preSignalSum / durations.size();
+            this.defaultPostSignalMillis = postSignalSum / durations.size();
+        }
+    }
+
+    int getRuns() {
+        return runs;
+    }
+
+    int getModules() {
+        return durations.size();
+    }
+
+    boolean isEmpty() {
+        return durations.isEmpty();
+    }
+
+    @Override
+    public long preSignalMillis(MavenProject project) {
+        long[] moduleDurations = durations.get(BuildTimingRecorder.projectKey(project));
+        return moduleDurations == null ? defaultPreSignalMillis : moduleDurations[0];
+    }
+
+    @Override
+    public long postSignalMillis(MavenProject project) {
+        long[] moduleDurations = durations.get(BuildTimingRecorder.projectKey(project));
+        return moduleDurations == null ? defaultPostSignalMillis : moduleDurations[1];
+    }
+}
@@ -0,0 +1,80 @@
+package com.github.seregamorph.maven.turbo;
+
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Collects timings of module builds of the current session: when the module was started, signaled and finished and
+ * which thread built it. The result is persisted by {@link BuildTimingStore}.
+ *
+ * @author Sergey Chernov
+ */
+final class BuildTimingRecorder {
+
+    private final long startMillis = System.currentTimeMillis();
+    private final long startNanos = System.nanoTime();
+    private final Queue<ModuleTiming> modules = new ConcurrentLinkedQueue<>();
+
+    long getStartMillis() {
+        return startMillis;
+    }
+
+    ModuleTiming moduleStarted(MavenProject project, String threadName) {
+        ModuleTiming timing = new ModuleTiming(projectKey(project), threadName, elapsedMillis());
+        modules.add(timing);
+        return timing;
+    }
+
+    Collection<ModuleTiming> getModules() {
+        return modules;
+    }
+
+    private long elapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000L;
+    }
+
+    static String projectKey(MavenProject project) {
+        return project.getGroupId() + ":" + project.getArtifactId();
+    }
+
+    /**
+     * Timing of a single module build. Updated only by the thread building the module, read after the build.
+     */
+    final class ModuleTiming {
+
+        final String projectKey;
+        final String threadName;
+        long startMillis;
+        long signalMillis = -1L;
+        long finishMillis = -1L;
+        boolean success;
+
+        private ModuleTiming(String projectKey, String threadName, long startMillis) {
+            this.projectKey = projectKey;
+            this.threadName = threadName;
+            this.startMillis = startMillis;
+        }
+
+        /**
+         * The parked time of the early started module is not a part of its build.
+         */
+        void parked(long parkedMillis) {
+            startMillis += parkedMillis;
+        }
+
+        void signaled() {
+            signalMillis = elapsedMillis();
+        }
+
+        void finished(boolean success) {
+            this.finishMillis = elapsedMillis();
+            this.success = success;
+            if (signalMillis < 0L) {
+                // not signaled explicitly, downstream dependencies are scheduled after the build
+                signalMillis = finishMillis;
+            }
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.github.seregamorph.maven.turbo;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import org.apache.maven.execution.MavenSession;
+
+/**
+ * Local store of module build timings, used to estimate the durations of the next builds. It's a tab-separated text
+ * file which is only appended at the end of each build:
+ * <pre>
+ * R  runId  startEpochMillis
+ * M  runId  groupId:artifactId  thread  startMillis  signalMillis  finishMillis
+ * </pre>
+ * Module times are relative to the start of the build, other line types (e.g. per-mojo durations of older versions)
+ * are ignored. Every line refers to its run, so the file stays
+ * consistent even if it's written by concurrent builds of the same checkout (the access is also guarded by a lock
+ * file). Only the last N runs are used, the older runs have exponentially smaller weight, and the file is compacted
+ * when it exceeds twice the window. The directory of the store gets a ".gitignore" file excluding it from git.
+ *
+ * @author Sergey Chernov
+ */
+final class BuildTimingStore {
+
+    static final int DEFAULT_RUNS = 10;
+
+    /**
+     * Weight multiplier of each previous run relatively to the next one.
+     */
+    private static final double DECAY = 0.7;
+
+    private static final char SEPARATOR = '\t';
+
+    private final Path file;
+    private final Path lockFile;
+    private final int runs;
+
+    BuildTimingStore(Path file, int runs) {
+        this.file = file;
+        this.lockFile = file.resolveSibling(file.getFileName() + ".lock");
+        this.runs = runs;
+    }
+
+    static BuildTimingStore fromSession(MavenSession session, TurboBuilderConfig config) {
+        File rootDirectory = session.getRequest().getMultiModuleProjectDirectory();
+        Path root = rootDirectory == null ? Paths.get(session.getExecutionRootDirectory()) : rootDirectory.toPath();
+        return new BuildTimingStore(
+                root.resolve(".mvn").resolve("turbo").resolve("timings.tsv"), config.getTimingStoreRuns());
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    BuildTimingHistory load() throws IOException {
+        if (!Files.exists(file)) {
+            return BuildTimingHistory.EMPTY;
+        }
+        List<String> lines = withLock(this::readLines);
+        // runId -> index of the run in the file
+        Map<String, Integer> runIndexes = new HashMap<>();
+        for (String line : lines) {
+            if (line.startsWith("R\t")) {
+                String[] fields = split(line, 3);
+                if (fields != null) {
+                    runIndexes.put(fields[1], runIndexes.size());
+                }
+            }
+        }
+        int firstRunIndex = Math.max(0, runIndexes.size() - runs);
+        // module key -> {weighted pre-signal sum, weighted post-signal sum}, weight sum
+        Map<String, double[]> sums = new HashMap<>();
+        Set<Integer> usedRuns = new HashSet<>();
+        for (String line : lines) {
+            if (!line.startsWith("M\t")) {
+                continue;
+            }
+            String[] fields = split(line, 7);
+            if (fields == null) {
+                continue;
+            }
+            Integer runIndex = runIndexes.get(fields[1]);
+            if (runIndex == null || runIndex < firstRunIndex) {
+                continue;
+            }
+            long startMillis;
+            long signalMillis;
+            long finishMillis;
+            try {
+                startMillis = Long.parseLong(fields[4]);
+                signalMillis = Long.parseLong(fields[5]);
+                finishMillis = Long.parseLong(fields[6]);
+            } catch (NumberFormatException e) {
+                // corrupted line, e.g. written partially
+                continue;
+            }
+            usedRuns.add(runIndex);
+            double weight = Math.pow(DECAY, runIndexes.size() - 1 - runIndex);
+            double[] moduleSums = sums.computeIfAbsent(fields[2], k -> new double[3]);
+            moduleSums[0] += weight * (signalMillis - startMillis);
+            moduleSums[1] += weight * (finishMillis - signalMillis);
+            moduleSums[2] += weight;
+        }
+        Map<String, long[]> durations = new HashMap<>(sums.size() * 2);
+        sums.forEach((moduleKey, moduleSums) -> durations.put(
+                moduleKey,
+                new long[] {Math.round(moduleSums[0] / moduleSums[2]), Math.round(moduleSums[1] / moduleSums[2])}));
+        return new BuildTimingHistory(durations, usedRuns.size());
+    }
+
+    void append(BuildTimingRecorder recorder) throws IOException {
+        String runId = Long.toString(recorder.getStartMillis(), 36) + "-"
+                + Integer.toString(ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE), 36);
+        StringBuilder sb = new StringBuilder();
+        line(sb, "R", runId, recorder.getStartMillis());
+        int modules = 0;
+        for (BuildTimingRecorder.ModuleTiming module : recorder.getModules()) {
+            if (!module.success) {
+                // durations of failed modules are not representative
+                continue;
+            }
+            modules++;
+            line(
+                    sb,
+                    "M",
+                    runId,
+                    module.projectKey,
+                    sanitize(module.threadName),
+                    module.startMillis,
+                    module.signalMillis,
+                    module.finishMillis);
+        }
+        if (modules == 0) {
+            return;
+        }
+        byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+        withLock(() -> {
+            try (FileChannel channel = FileChannel.open(
+                    file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            compactIfNeeded();
+            return null;
+        });
+    }
+
+    /**
+     * Rewrites the file keeping only the last runs. Should be called under the lock.
+     */
+    private void compactIfNeeded() throws IOException {
+        List<String> lines = readLines();
+        List<String> runIds = new ArrayList<>();
+        for (String line : lines) {
+            if (line.startsWith("R\t")) {
+                String[] fields = split(line, 3);
+                if (fields != null) {
+                    runIds.add(fields[1]);
+                }
+            }
+        }
+        if (runIds.size() <= 2 * runs) {
+            return;
+        }
+        Set<String> retainedRunIds = new HashSet<>(runIds.subList(runIds.size() - runs, runIds.size()));
+        StringBuilder sb = new StringBuilder();
+        for (String line : lines) {
+            int start = line.indexOf(SEPARATOR);
+            int end = start < 0 ? -1 : line.indexOf(SEPARATOR, start + 1);
+            if (end > 0 && retainedRunIds.contains(line.substring(start + 1, end))) {
+                sb.append(line).append('\n');
+            }
+        }
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(tempFile, sb.toString().getBytes(StandardCharsets.UTF_8));
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private List<String> readLines() throws IOException {
+        List<String> lines = new ArrayList<>();
+        if (Files.exists(file)) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lines.add(line);
+                }
+            }
+        }
+        return lines;
+    }
+
+    private <T> T withLock(IOCallable<T> action) throws IOException {
+        Files.createDirectories(file.getParent());
+        // FileLock is held on behalf of the whole JVM, so concurrent builds in the same JVM (e.g. Maven Daemon)
+        // are synchronized separately
+        synchronized (BuildTimingStore.class) {
+            try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                    FileLock ignored = channel.lock()) {
+                ignoreInVcs();
+                return action.call();
+            }
+        }
+    }
+
+    /**
+     * The store is located in the source tree by default, so its directory is excluded from git to avoid accidental
+     * commits.
+     */
+    private void ignoreInVcs() throws IOException {
+        Path gitignore = file.resolveSibling(".gitignore");
+        if (!Files.exists(gitignore)) {
+            Files.write(gitignore, "*\n".getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void line(StringBuilder sb, String type, Object... fields) {
+        sb.append(type);
+        for (Object field : fields) {
+            sb.append(SEPARATOR).append(field);
+        }
+        sb.append('\n');
+    }
+
+    private static String sanitize(String value) {
+        return value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    /**
+     * @return fields of the line or null if the number of fields does not match
+     */
+    /*@Nullable*/
+    private static String[] split(String line, int expectedFields) {
+        String[] fields = new String[expectedFields];
+        int start = 0;
+        for (int i = 0; i < expectedFields; i++) {
+            int end = line.indexOf(SEPARATOR, start);
+            if (end < 0) {
+                if (i != expectedFields - 1) {
+                    return null;
+                }
+                end = line.length();
+            }
+            fields[i] = line.substring(start, end);
+            start = end + 1;
+        }
+        return fields;
+    }
+
+    @FunctionalInterface
+    private interface IOCallable<T> {
+        T call() throws IOException;
+    }
+}
@@ -0,0 +1,107 @@
+package com.github.seregamorph.maven.turbo;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Limits the number of concurrently building modules. Unlike {@link java.util.concurrent.Semaphore}, the limit can
+ * be decreased while the permits are acquired: the running modules are not interrupted, but no more modules are
+ * started until the number of running ones is below the new limit.
+ *
+ * @author Sergey Chernov
+ */
+final class ConcurrencyLimiter {
+
+    private final Object lock = new Object();
+    // guarded by lock
+    private int limit;
+    // guarded by lock
+    private int running;
+
+    ConcurrencyLimiter(int limit) {
+        this.limit = checkLimit(limit);
+    }
+
+    /**
+     * Blocks until the number of running modules is below the limit. The worker thread is compensated while it's
+     * blocked, so the pool keeps taking other tasks (e.g. the resume tasks of the yielded builds, see
+     * {@link PostSignalYield}).
+     */
+    void acquire() throws InterruptedException {
+        if (tryAcquire()) {
+            return;
+        }
+        TurboThreadPoolExecutor.managedBlock(new ForkJoinPool.ManagedBlocker() {
+            private boolean acquired;
+
+            @Override
+            public boolean block() throws InterruptedException {
+                if (!acquired) {
+                    synchronized (lock) {
+                        while (running >= limit) {
+                            lock.wait();
+                        }
+                        running++;
+                    }
+                    acquired = true;
+                }
+                return true;
+            }
+
+            @Override
+            public boolean isReleasable() {
+                if (!acquired) {
+                    acquired = tryAcquire();
+                }
+                return acquired;
+            }
+        });
+    }
+
+    /**
+     * Takes the permit back regardless of the limit, e.g. when the yielded build fails before it's resumed, so the
+     * release by the caller holding the permit stays balanced.
+     */
+    void acquireOverLimit() {
+        synchronized (lock) {
+            running++;
+        }
+    }
+
+    private boolean tryAcquire() {
+        synchronized (lock) {
+            if (running < limit) {
+                running++;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    void release() {
+        synchronized (lock) {
+            running--;
+            lock.notifyAll();
+        }
+    }
+
+    int getLimit() {
+        synchronized (lock) {
+            return limit;
+        }
+    }
+
+    void setLimit(int limit) {
+        checkLimit(limit);
+        synchronized (lock) {
+            this.limit = limit;
+            lock.notifyAll();
+        }
+    }
+
+    private static int checkLimit(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit should be positive: " + limit);
+        }
+        return limit;
+    }
+}
@@ -2,9 +2,18 @@ package com.github.seregamorph.maven.turbo;
 
 import static com.github.seregamorph.maven.turbo.MavenPropertyUtils.getProperty;
 import static com.github.seregamorph.maven.turbo.MavenPropertyUtils.isTrue;
+import static com.github.seregamorph.maven.turbo.PhaseOrderPatcher.isAnyTest;
+import static com.github.seregamorph.maven.turbo.PhaseOrderPatcher.isMainClasses;
+import static com.github.seregamorph.maven.turbo.PhaseOrderPatcher.isPackage;
+import static com.github.seregamorph.maven.turbo.PhaseOrderPatcher.isTestClasses;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.function.Consumer;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.MojoExecution;
@@ -17,28 +26,342 @@ final class CurrentProjectExecution {
 
     private static final ThreadLocal<CurrentProjectExecution> currentProjectExecution = new ThreadLocal<>();
 
-    final List<MojoExecution> executedPackageMojos = new ArrayList<>();
-
     boolean signaled;
 
-    List<MojoExecution> packageMojos;
+    // the milestone after which the module is signaled: PACKAGE or, if turboSignalAfterClasses, CLASSES, or
+    // TEST_JAR for the modules producing a test-jar (the downstream dependencies are released per milestone, the
+    // signal starts the post-signal part of the module build)
+    Milestone signalMilestone;
+
+    // the remaining mojos of the milestones, initialized in TurboProjectExecutionListener
+    /*@Nullable*/
+    Map<Milestone, List<MojoExecution>> milestoneMojos;
+
+    // the execution plan of the module (not the forked executions), initialized in TurboProjectExecutionListener
+    /*@Nullable*/
+    List<MojoExecution> executionPlan;
+
+    private final Set<Milestone> reachedMilestones = EnumSet.noneOf(Milestone.class);
+    // the test-jar mojos are executed before the package phase (e.g. with turboTestCompile), see reachMilestone
+    private boolean testJarPending;
+    final boolean skipSignal;
+
+    /*@Nullable*/
+    final BuildTimingRecorder.ModuleTiming timing;
+
+    final BuildEventListener events;
+
+    /*@Nullable*/
+    private final ResourcePermits resourcePermits;
+    /*@Nullable*/
+    private final String moduleResourceClass;
+    private boolean moduleResourceAcquired;
+    /*@Nullable*/
+    private String mojoResourceClass;
+
+    // the module has been signaled, the thread can be yielded before the next mojo
+    boolean yieldPending;
+    private final boolean yieldAfterSignal;
+    private final List<PostSignalYield> postSignalYields = new ArrayList<>();
+    // the permit of the module build is given back while it's yielded, see PostSignalYield
+    /*@Nullable*/
+    private final ConcurrencyLimiter limiter;
+
+    // the mojos deferred after the main chain of the post-signal module mojos, see DeferredMojos
+    final Set<String> deferMojos;
+    // the mojos moved after the signal, see AfterSignalRules
+    private final Set<String> afterSignalRules;
 
-    private CurrentProjectExecution(MavenSession session, MavenProject project) {
+    // parks the early started module before the mojos depending on the upstream modules, see EarlyStart
+    /*@Nullable*/
+    private EarlyStart.Gate earlyStartGate = EarlyStart.currentGate();
+
+    /*@Nullable*/
+    private final FailurePropagation failurePropagation;
+    /*@Nullable*/
+    private FailurePropagation.RunningModule runningModule;
+    private boolean deprioritizedYield;
+
+    private CurrentProjectExecution(
+            MavenSession session,
+            MavenProject project,
+            /*@Nullable*/ BuildTimingRecorder.ModuleTiming timing,
+            BuildEventListener events) {
+        this.timing = timing;
+        this.events = events;
         // There can be scenarios when we use TurboBuilder as default, but disable per project, property or via profile,
         // when it's known that the downstream dependencies should be only scheduled when all phases are completed.
-        signaled = isTrue(getProperty(session, project, "skipTurboSignal"));
+        skipSignal = isTrue(getProperty(session, project, "skipTurboSignal"));
+        signaled = skipSignal;
+        // the downstream dependencies are resolved to target/classes by the reactor, opt-in as they can't use the jar
+        signalMilestone = isTrue(getProperty(session, project, "turboSignalAfterClasses"))
+                ? Milestone.CLASSES
+                : Milestone.PACKAGE;
+        this.resourcePermits = SessionDataUtils.get(session, ResourcePermits.class);
+        this.moduleResourceClass = resourcePermits == null ? null : getProperty(session, project, "turboResourceClass");
+        this.yieldAfterSignal = isTrue(getProperty(session, project, "turboYieldAfterSignal"));
+        this.limiter = SessionDataUtils.get(session, ConcurrencyLimiter.class);
+        this.failurePropagation = SessionDataUtils.get(session, FailurePropagation.class);
+        TurboBuilderConfig config = TurboBuilderConfig.get(session);
+        this.deferMojos = config.getDeferMojos();
+        this.afterSignalRules = config.getAfterSignalRules();
+    }
+
+    /**
+     * Collects the mojos of the execution plan, after which the milestones are reached.
+     */
+    void initMilestones(List<MojoExecution> executionPlan) {
+        Map<Milestone, List<MojoExecution>> mojos = new EnumMap<>(Milestone.class);
+        mojos.put(Milestone.CLASSES, new ArrayList<>());
+        mojos.put(Milestone.PACKAGE, new ArrayList<>());
+        mojos.put(Milestone.TEST_JAR, new ArrayList<>());
+        for (MojoExecution mojoExecution : executionPlan) {
+            String phase = mojoExecution.getLifecyclePhase();
+            // the downstream dependencies don't wait for the artifacts of the deferred mojos (e.g. javadoc jar)
+            if (phase == null || DeferredMojos.matches(deferMojos, mojoExecution)) {
+                continue;
+            }
+            if (isMainClasses(phase)) {
+                mojos.get(Milestone.CLASSES).add(mojoExecution);
+            }
+            boolean testJar = MojoUtils.isTestJar(mojoExecution);
+            if (isPackage(phase) && !testJar) {
+                mojos.get(Milestone.PACKAGE).add(mojoExecution);
+            }
+            if (isTestClasses(phase) || testJar) {
+                mojos.get(Milestone.TEST_JAR).add(mojoExecution);
+            }
+            if (testJar) {
+                // the post-signal part (e.g. yield, deferred mojos) should not delay the test-jar consumers
+                signalMilestone = Milestone.TEST_JAR;
+            }
+        }
+        milestoneMojos = mojos;
+        this.executionPlan = executionPlan;
+    }
+
+    /**
+     * Moves the mojos matching the {@link AfterSignalRules} from before the signal to right after it, the milestones
+     * are not awaiting them anymore. Should be called after the phases of the execution plan are reordered.
+     *
+     * @return the moved mojos
+     */
+    List<MojoExecution> moveAfterSignal(List<MojoExecution> executionPlan) {
+        if (afterSignalRules.isEmpty() || skipSignal) {
+            return Collections.emptyList();
+        }
+        List<MojoExecution> signalMojos = milestoneMojos.get(signalMilestone);
+        int signalIndex = -1;
+        for (int i = 0; i < executionPlan.size(); i++) {
+            MojoExecution mojoExecution = executionPlan.get(i);
+            if (signalMojos.contains(mojoExecution) && !AfterSignalRules.matches(afterSignalRules, mojoExecution)) {
+                signalIndex = i;
+            }
+        }
+        // without the mojos of the signal milestone the module is signaled before the tests or at the end
+        List<MojoExecution> movedMojos = PhaseOrderPatcher.moveAfter(
+                executionPlan, signalIndex, mojoExecution -> AfterSignalRules.matches(afterSignalRules, mojoExecution));
+        for (List<MojoExecution> mojos : milestoneMojos.values()) {
+            mojos.removeAll(movedMojos);
+        }
+        return movedMojos;
+    }
+
+    /**
+     * @return true if the mojo is not executed yet and a milestone is reached after it
+     */
+    boolean isMilestoneMojo(MojoExecution mojoExecution) {
+        for (List<MojoExecution> mojos : milestoneMojos.values()) {
+            if (mojos.contains(mojoExecution)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reaches the milestones without mojos in the execution plan before the mojos of the later phases.
+     */
+    void beforeMojo(MavenProject project, MojoExecution mojoExecution) {
+        String phase = MojoUtils.getMojoPhase(mojoExecution);
+        if (isWithoutMojos(Milestone.CLASSES) && (isPackage(phase) || isAnyTest(phase))) {
+            reachMilestone(project, Milestone.CLASSES);
+        }
+        if (isWithoutMojos(Milestone.PACKAGE) && isAnyTest(phase)) {
+            // signal before tests
+            reachMilestone(project, Milestone.PACKAGE);
+        }
+    }
+
+    /**
+     * Reaches the milestones which mojos are all executed.
+     */
+    void afterMojo(MavenProject project, MojoExecution mojoExecution) {
+        for (Map.Entry<Milestone, List<MojoExecution>> entry : milestoneMojos.entrySet()) {
+            List<MojoExecution> mojos = entry.getValue();
+            if (mojos.remove(mojoExecution) && mojos.isEmpty()) {
+                reachMilestone(project, entry.getKey());
+            }
+        }
+    }
+
+    private boolean isWithoutMojos(Milestone milestone) {
+        return !reachedMilestones.contains(milestone)
+                && milestoneMojos.get(milestone).isEmpty();
+    }
+
+    private void reachMilestone(MavenProject project, Milestone milestone) {
+        if (skipSignal || reachedMilestones.contains(milestone)) {
+            return;
+        }
+        if (milestone == Milestone.TEST_JAR && !reachedMilestones.contains(Milestone.PACKAGE)) {
+            // the milestones are reached in the declaration order, see Milestone.required
+            testJarPending = true;
+            return;
+        }
+        reachedMilestones.add(milestone);
+        if (milestone == Milestone.PACKAGE) {
+            // the package phase goes after the main classes
+            reachMilestone(project, Milestone.CLASSES);
+        }
+        SignalingExecutorCompletionService.milestone(milestone);
+        if (milestone == signalMilestone) {
+            signaled = true;
+            SignalingExecutorCompletionService.signal(project);
+            yieldPending = true;
+        }
+        if (milestone == Milestone.PACKAGE && testJarPending) {
+            reachMilestone(project, Milestone.TEST_JAR);
+        }
+    }
+
+    /**
+     * Yields the worker thread after the signal if enabled, see {@link PostSignalYield}.
+     */
+    void yieldAfterSignal() throws InterruptedException {
+        if (yieldPending) {
+            yieldPending = false;
+            if (yieldAfterSignal) {
+                addYield(PostSignalYield.yieldCurrentThread(limiter));
+            }
+        }
+    }
+
+    /**
+     * Stops the cancelled build or yields the deprioritized one before the tests, see {@link FailurePropagation}.
+     */
+    void checkUpstreamFailure(MojoExecution mojoExecution) throws InterruptedException {
+        if (runningModule == null) {
+            return;
+        }
+        MavenProject failedProject = runningModule.cancelledBy;
+        if (failedProject != null) {
+            throw new IllegalStateException("Build is cancelled after the failure of " + failedProject);
+        }
+        if (runningModule.deprioritized && !deprioritizedYield && isAnyTest(MojoUtils.getMojoPhase(mojoExecution))) {
+            deprioritizedYield = true;
+            addYield(PostSignalYield.yieldCurrentThread(limiter));
+        }
+    }
+
+    private void addYield(/*@Nullable*/ PostSignalYield postSignalYield) {
+        if (postSignalYield != null) {
+            postSignalYields.add(postSignalYield);
+        }
+    }
+
+    boolean isEarlyStarted() {
+        return earlyStartGate != null;
+    }
+
+    /**
+     * Parks the early started module after the dependency-independent prefix of the execution plan until the upstream
+     * modules are signaled, see {@link EarlyStart}.
+     */
+    void awaitUpstreams() throws InterruptedException {
+        if (earlyStartGate != null) {
+            long parkedMillis = earlyStartGate.await();
+            earlyStartGate = null;
+            if (timing != null) {
+                timing.parked(parkedMillis);
+            }
+        }
+    }
+
+    /**
+     * Acquires the resource permits before the mojo execution, see {@link ResourcePermits}.
+     */
+    void acquireResources(MojoExecution mojoExecution) throws InterruptedException {
+        if (resourcePermits == null) {
+            return;
+        }
+        if (moduleResourceClass != null && !moduleResourceAcquired && signaled) {
+            String phase = MojoUtils.getMojoPhase(mojoExecution);
+            if (PhaseOrderPatcher.isAnyTest(phase)) {
+                moduleResourceAcquired = resourcePermits.acquire(moduleResourceClass);
+            }
+        }
+        String mojoClass = resourcePermits.getMojoClass(mojoExecution);
+        // the module may already hold the permit of the same class
+        if (mojoClass != null && !(moduleResourceAcquired && mojoClass.equals(moduleResourceClass))) {
+            if (resourcePermits.acquire(mojoClass)) {
+                mojoResourceClass = mojoClass;
+            }
+        }
+    }
+
+    /**
+     * Releases the mojo resource permit after the mojo execution.
+     */
+    void releaseMojoResources() {
+        if (resourcePermits != null && mojoResourceClass != null) {
+            resourcePermits.release(mojoResourceClass);
+            mojoResourceClass = null;
+        }
+    }
+
+    private void releaseResources() {
+        releaseMojoResources();
+        if (resourcePermits != null && moduleResourceAcquired) {
+            resourcePermits.release(moduleResourceClass);
+            moduleResourceAcquired = false;
+        }
     }
 
     static void doWithCurrentProject(MavenSession session, MavenProject project, Runnable task) {
-        CurrentProjectExecution execution = new CurrentProjectExecution(session, project);
+        doWithCurrentProject(session, project, null, BuildEventListener.NOOP, task);
+    }
+
+    static void doWithCurrentProject(
+            MavenSession session,
+            MavenProject project,
+            /*@Nullable*/ BuildTimingRecorder.ModuleTiming timing,
+            BuildEventListener events,
+            Runnable task) {
+        CurrentProjectExecution execution = new CurrentProjectExecution(session, project, timing, events);
         currentProjectExecution.set(execution);
+        if (execution.failurePropagation != null) {
+            execution.runningModule = execution.failurePropagation.started(project);
+        }
         try {
             task.run();
         } finally {
+            execution.releaseResources();
+            for (PostSignalYield postSignalYield : execution.postSignalYields) {
+                postSignalYield.complete();
+            }
+            if (execution.runningModule != null) {
+                execution.failurePropagation.finished(project, execution.runningModule);
+            }
             currentProjectExecution.remove();
         }
     }
 
+    /*@Nullable*/
+    static CurrentProjectExecution get() {
+        return currentProjectExecution.get();
+    }
+
     static void ifPresent(Consumer<CurrentProjectExecution> action) {
         CurrentProjectExecution execution = currentProjectExecution.get();
         if (execution != null) {
@@ -0,0 +1,267 @@
+package com.github.seregamorph.maven.turbo;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.apache.maven.RepositoryUtils;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.PluginParameterExpressionEvaluator;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.component.configurator.expression.ExpressionEvaluationException;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Batched install/deploy stage: the "maven-install-plugin:install" mojos (with "-DturboDeferInstall" parameter) and
+ * the "maven-deploy-plugin:deploy" mojos (with "-DturboDeployRepository=..." parameter) are not executed by the module
+ * builds, instead the artifacts of the modules are installed after the whole reactor is built successfully, so the
+ * worker threads are not blocked by the I/O and the local repository is not partially updated on failure.
+ * <p>
+ * The artifact files are copied to the local repository in parallel via zero-copy transfer with the modification time
+ * of the source, then the artifacts are registered via the repository system, which skips the unchanged files and
+ * updates the local metadata. The deploy repository is a file-based stand-in of the remote one: the artifacts are
+ * copied with the non-unique snapshot versions and without the metadata and checksums.
+ *
+ * @author Sergey Chernov
+ */
+final class DeferredInstall {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeferredInstall.class);
+
+    static final String INSTALL_MOJO = "maven-install-plugin:install";
+    static final String DEPLOY_MOJO = "maven-deploy-plugin:deploy";
+
+    private final boolean install;
+    /*@Nullable*/
+    private final Path deployRepository;
+    // insertion order is not needed, the modules are installed in parallel
+    private final Set<MavenProject> installProjects = ConcurrentHashMap.newKeySet();
+    private final Set<MavenProject> deployProjects = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param install          true if the install mojos should be deferred
+     * @param deployRepository directory of the file-based deploy repository or null if the deploy mojos should be
+     *                         executed by the module builds
+     */
+    DeferredInstall(boolean install, /*@Nullable*/ Path deployRepository) {
+        this.install = install;
+        this.deployRepository = deployRepository;
+    }
+
+    /**
+     * @return true if the mojo is deferred to the batched stage and should not be executed by the module build
+     */
+    boolean defer(MavenSession session, MavenProject project, MojoExecution mojoExecution) {
+        String mojo = mojoExecution.getArtifactId() + ":" + mojoExecution.getGoal();
+        if (install && INSTALL_MOJO.equals(mojo) && !isSkipped(session, project, mojoExecution, "maven.install.skip")) {
+            installProjects.add(project);
+            return true;
+        }
+        if (deployRepository != null
+                && DEPLOY_MOJO.equals(mojo)
+                && !isSkipped(session, project, mojoExecution, "maven.deploy.skip")) {
+            deployProjects.add(project);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * The skipped mojos are executed as usual, so they report the skip themselves. The skip parameter is evaluated
+     * like the plugin does, e.g. "${skipInstall}" refers to a property of the project.
+     */
+    private static boolean isSkipped(
+            MavenSession session, MavenProject project, MojoExecution mojoExecution, String skipProperty) {
+        if (MavenPropertyUtils.isTrue(MavenPropertyUtils.getProperty(session, project, skipProperty))) {
+            return true;
+        }
+        Xpp3Dom configuration = mojoExecution.getConfiguration();
+        Xpp3Dom skip = configuration == null ? null : configuration.getChild("skip");
+        if (skip == null) {
+            return false;
+        }
+        String value = skip.getValue() == null ? skip.getAttribute("default-value") : skip.getValue();
+        if (value == null) {
+            return false;
+        }
+        try {
+            Object skipValue = new PluginParameterExpressionEvaluator(session, mojoExecution).evaluate(value);
+            return skipValue != null && MavenPropertyUtils.isTrue(skipValue.toString());
+        } catch (ExpressionEvaluationException e) {
+            // not deferred, so the mojo reports the invalid configuration
+            logger.debug("Failed to evaluate the skip parameter of {}", mojoExecution, e);
+            return true;
+        }
+    }
+
+    boolean isEmpty() {
+        return installProjects.isEmpty() && deployProjects.isEmpty();
+    }
+
+    int getModules() {
+        Set<MavenProject> projects = new HashSet<>(installProjects);
+        projects.addAll(deployProjects);
+        return projects.size();
+    }
+
+    /**
+     * Copies the artifacts of the deferred modules in parallel, then registers the installed ones.
+     *
+     * @param nThreads        number of threads to copy the files
+     * @param localRepository base directory of the local repository
+     * @param localPath       path of the artifact relative to the local repository
+     * @param installer       registers the artifacts of a module in the local repository
+     * @return number of copied artifact files
+     */
+    int execute(int nThreads, Path localRepository, Function<Artifact, String> localPath, Installer installer)
+            throws Exception {
+        Map<MavenProject, List<Artifact>> projectArtifacts = new ConcurrentHashMap<>();
+        for (MavenProject project : installProjects) {
+            projectArtifacts.put(project, artifacts(project));
+        }
+        for (MavenProject project : deployProjects) {
+            projectArtifacts.computeIfAbsent(project, DeferredInstall::artifacts);
+        }
+
+        List<Callable<Void>> copyTasks = new ArrayList<>();
+        projectArtifacts.forEach((project, artifacts) -> {
+            for (Artifact artifact : artifacts) {
+                // the pom is always copied by the repository system
+                if (installProjects.contains(project) && !"pom".equals(artifact.getExtension())) {
+                    copyTasks.add(() -> {
+                        copyFile(artifact.getFile().toPath(), localRepository.resolve(localPath.apply(artifact)));
+                        return null;
+                    });
+                }
+                if (deployProjects.contains(project)) {
+                    copyTasks.add(() -> {
+                        copyFile(artifact.getFile().toPath(), deployRepository.resolve(remotePath(artifact)));
+                        return null;
+                    });
+                }
+            }
+        });
+        List<Callable<Void>> installTasks = new ArrayList<>();
+        for (MavenProject project : installProjects) {
+            installTasks.add(() -> {
+                installer.install(projectArtifacts.get(project));
+                return null;
+            });
+        }
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(nThreads, runnable -> {
+            Thread thread = new Thread(runnable, "TurboInstall " + threadCounter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            invokeAll(executor, copyTasks);
+            invokeAll(executor, installTasks);
+        } finally {
+            executor.shutdownNow();
+        }
+        return copyTasks.size();
+    }
+
+    private static void invokeAll(ExecutorService executor, List<Callable<Void>> tasks) throws Exception {
+        /*@Nullable*/ Exception failure = null;
+        for (Future<Void> future : executor.invokeAll(tasks)) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                Exception cause = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                if (failure == null) {
+                    failure = cause;
+                } else {
+                    failure.addSuppressed(cause);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Mirrors the artifacts installed by the maven-install-plugin: the pom, the main artifact and the attached ones.
+     */
+    static List<Artifact> artifacts(MavenProject project) {
+        List<Artifact> artifacts = new ArrayList<>();
+        artifacts.add(
+                new DefaultArtifact(project.getGroupId(), project.getArtifactId(), "", "pom", project.getVersion())
+                        .setFile(project.getFile()));
+        if (!"pom".equals(project.getPackaging())) {
+            org.apache.maven.artifact.Artifact mainArtifact = project.getArtifact();
+            if (mainArtifact.getFile() == null || !mainArtifact.getFile().isFile()) {
+                throw new IllegalStateException(
+                        "The packaging for " + project + " did not assign a file to the build artifact");
+            }
+            artifacts.add(RepositoryUtils.toArtifact(mainArtifact));
+        }
+        for (org.apache.maven.artifact.Artifact attachedArtifact : project.getAttachedArtifacts()) {
+            artifacts.add(RepositoryUtils.toArtifact(attachedArtifact));
+        }
+        return artifacts;
+    }
+
+    /**
+     * @return path of the artifact in the default repository layout with the non-unique snapshot version
+     */
+    static String remotePath(Artifact artifact) {
+        StringBuilder path = new StringBuilder()
+                .append(artifact.getGroupId().replace('.', '/'))
+                .append('/')
+                .append(artifact.getArtifactId())
+                .append('/')
+                .append(artifact.getBaseVersion())
+                .append('/')
+                .append(artifact.getArtifactId())
+                .append('-')
+                .append(artifact.getBaseVersion());
+        if (!artifact.getClassifier().isEmpty()) {
+            path.append('-').append(artifact.getClassifier());
+        }
+        return path.append('.').append(artifact.getExtension()).toString();
+    }
+
+    /**
+     * Copies the file via a temporary one, so the concurrent builds don't read the partially written artifact. The
+     * modification time is preserved, so the repository system does not copy the file again.
+     */
+    private static void copyFile(Path source, Path target) throws IOException {
+        Path tempFile = target.resolveSibling(
+                target.getFileName() + "." + Thread.currentThread().getId() + ".tmp");
+        try {
+            BuildCache.copyFile(source, tempFile);
+            Files.setLastModifiedTime(tempFile, Files.getLastModifiedTime(source));
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+        logger.debug("Copied {} to {}", source, target);
+    }
+
+    @FunctionalInterface
+    interface Installer {
+        void install(List<Artifact> artifacts) throws Exception;
+    }
+}
@@ -0,0 +1,98 @@
+package com.github.seregamorph.maven.turbo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import org.apache.maven.plugin.MojoExecution;
+
+/**
+ * Reorder of the post-signal mojos of a module: the known-independent mojos (e.g. source and javadoc jars, also the ones
+ * deferred from the package phase before the signal) are moved after the main chain (tests, etc.), but still before
+ * the first mojo of the verify, install or deploy phases, as those may consume their attached artifacts. The deferred
+ * mojos are executed sequentially by the module thread, the same as the rest of the execution plan. Configured via
+ * "-DturboDeferMojos=..." parameter with the comma-separated "pluginArtifactId:goal" or "pluginArtifactId" list (or
+ * "true" for the {@link #DEFAULT_MOJOS}).
+ *
+ * @author Sergey Chernov
+ */
+final class DeferredMojos {
+
+    static final Set<String> DEFAULT_MOJOS = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(
+            "maven-source-plugin:jar-no-fork",
+            "maven-source-plugin:test-jar-no-fork",
+            "maven-javadoc-plugin:jar",
+            "maven-javadoc-plugin:test-jar")));
+
+    private static final Set<String> DEADLINE_PHASES = new HashSet<>(Arrays.asList("verify", "install", "deploy"));
+
+    final List<MojoExecution> mainMojos;
+    final List<MojoExecution> deferredMojos;
+    // index of the main mojo before which the deferred mojos are executed, the size of main mojos to execute at the end
+    final int deadlineIndex;
+
+    private DeferredMojos(List<MojoExecution> mainMojos, List<MojoExecution> deferredMojos, int deadlineIndex) {
+        this.mainMojos = mainMojos;
+        this.deferredMojos = deferredMojos;
+        this.deadlineIndex = deadlineIndex;
+    }
+
+    /**
+     * @param preSignalMojos the mojos deferred before the signal
+     * @param mojos          remaining mojos of the execution plan
+     * @param deferrable     mojos which can be deferred
+     */
+    static DeferredMojos split(
+            List<MojoExecution> preSignalMojos, List<MojoExecution> mojos, Predicate<MojoExecution> deferrable) {
+        List<MojoExecution> mainMojos = new ArrayList<>();
+        List<MojoExecution> deferredMojos = new ArrayList<>(preSignalMojos);
+        int deadlineIndex = -1;
+        for (MojoExecution mojoExecution : mojos) {
+            if (deadlineIndex < 0 && isDeadline(mojoExecution)) {
+                deadlineIndex = mainMojos.size();
+            }
+            if (deadlineIndex < 0 && deferrable.test(mojoExecution)) {
+                deferredMojos.add(mojoExecution);
+            } else {
+                mainMojos.add(mojoExecution);
+            }
+        }
+        return new DeferredMojos(mainMojos, deferredMojos, deadlineIndex < 0 ? mainMojos.size() : deadlineIndex);
+    }
+
+    /**
+     * @return true if the deferred mojos should be executed before the mojo
+     */
+    static boolean isDeadline(MojoExecution mojoExecution) {
+        return DEADLINE_PHASES.contains(PhaseOrderPatcher.basePhase(MojoUtils.getMojoPhase(mojoExecution)));
+    }
+
+    static Set<String> parseMojos(/*@Nullable*/ String value) {
+        if (value == null || value.trim().isEmpty() || "false".equals(value)) {
+            return Collections.emptySet();
+        }
+        if ("true".equals(value)) {
+            return DEFAULT_MOJOS;
+        }
+        Set<String> mojos = new LinkedHashSet<>();
+        for (String mojo : value.split(",")) {
+            if (!mojo.trim().isEmpty()) {
+                mojos.add(mojo.trim());
+            }
+        }
+        return Collections.unmodifiableSet(mojos);
+    }
+
+    /**
+     * @return true if the mojo is listed by "pluginArtifactId:goal" or "pluginArtifactId"
+     */
+    static boolean matches(Set<String> mojos, MojoExecution mojoExecution) {
+        return !mojos.isEmpty()
+                && (mojos.contains(mojoExecution.getArtifactId() + ":" + mojoExecution.getGoal())
+                        || mojos.contains(mojoExecution.getArtifactId()));
+    }
+}
@@ -0,0 +1,305 @@
+package com.github.seregamorph.maven.turbo;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.descriptor.MojoDescriptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Speculative early start of the downstream modules, enabled via "-DturboEarlyStart" parameter for the priority
+ * scheduler. A module which upstream dependencies are all scheduled, but not signaled yet, is submitted after all other
+ * pending tasks, so it's taken only by an idle worker thread. The module executes the dependency-independent prefix of
+ * its execution plan (the clean lifecycle and the phases before compile, which don't require the dependency
+ * resolution), then it's parked until the upstream dependencies are signaled. Maven resolves the dependencies of the
+ * whole execution plan before its first mojo, so the prefix is executed separately and the dependencies are resolved
+ * only after the module is released, see {@link TurboMojosExecutionStrategy}.
+ * <p>
+ * While the module is parked, the pool is compensated with an extra thread. When the module is released, a resume task
+ * is submitted with the priority of the module and the worker thread taking it gives its slot to the resumed build
+ * until it's completed, similar to {@link PostSignalYield}. If the early task is not taken by a worker thread until
+ * the release, it's cancelled and the module is submitted as usual. The number of early started modules, which are
+ * not released yet, is limited by the number of threads.
+ *
+ * @author Sergey Chernov
+ */
+final class EarlyStart {
+
+    private static final Logger logger = LoggerFactory.getLogger(EarlyStart.class);
+
+    // the clean lifecycle affects only the output directory of the module
+    private static final Set<String> EARLY_PHASES = new HashSet<>(Arrays.asList(
+            "pre-clean",
+            "clean",
+            "post-clean",
+            "validate",
+            "initialize",
+            "generate-sources",
+            "process-sources",
+            "generate-resources",
+            "process-resources",
+            // since Maven 4
+            "sources",
+            "resources"));
+
+    private static final ThreadLocal<Gate> currentGate = new ThreadLocal<>();
+
+    private final TurboThreadPoolExecutor executor;
+    // the state is accessed only by the coordinator thread of the scheduler
+    private final ReactorGraph<?> graph;
+    private final int[] priorities;
+    private final int maxStarted;
+    private final int[] unscheduledUpstreams;
+    private final boolean[] scheduled;
+    private final Gate[] gates;
+    private final Future<?>[] earlyTasks;
+    private final PriorityQueue<Integer> eligible;
+    private int started;
+
+    /**
+     * @param executor   executor of the module builds
+     * @param graph      dependency graph of the task segment
+     * @param priorities priorities indexed by module id, see {@link SchedulingPriority}
+     * @param maxStarted max number of the early started modules, which are not released yet
+     */
+    EarlyStart(ExecutorService executor, ReactorGraph<?> graph, int[] priorities, int maxStarted) {
+        // early start is supported only by the priority scheduler
+        this.executor = (TurboThreadPoolExecutor) executor;
+        this.graph = graph;
+        this.priorities = priorities;
+        this.maxStarted = maxStarted;
+        this.unscheduledUpstreams = new int[graph.size()];
+        for (int id = 0; id < graph.size(); id++) {
+            for (int i = 0; i < graph.downstreamCount(id); i++) {
+                unscheduledUpstreams[graph.downstream(id, i)]++;
+            }
+        }
+        this.scheduled = new boolean[graph.size()];
+        this.gates = new Gate[graph.size()];
+        this.earlyTasks = new Future<?>[graph.size()];
+        this.eligible = new PriorityQueue<>((id1, id2) -> Integer.compare(priorities[id2], priorities[id1]));
+    }
+
+    /**
+     * The module is submitted as usual or its early started build is released, so its downstream dependencies
+     * become eligible for the early start.
+     */
+    void scheduled(int id) {
+        scheduled[id] = true;
+        for (int i = 0; i < graph.downstreamCount(id); i++) {
+            int downstreamId = graph.downstream(id, i);
+            if (--unscheduledUpstreams[downstreamId] == 0) {
+                eligible.add(downstreamId);
+            }
+        }
+    }
+
+    /**
+     * Starts the eligible modules in the order of priority while the limit allows.
+     *
+     * @param submitter submits the early task of the module with the gate
+     */
+    void startEligible(Submitter submitter) {
+        while (started < maxStarted && !eligible.isEmpty()) {
+            int id = eligible.poll();
+            if (scheduled[id]) {
+                // released before it was started early
+                continue;
+            }
+            Gate gate = new Gate(-priorities[id]);
+            gates[id] = gate;
+            earlyTasks[id] = submitter.submit(id, gate);
+            started++;
+            logger.debug("Early start: {}", graph.node(id));
+        }
+    }
+
+    /**
+     * Releases the module, which upstream dependencies are all signaled.
+     *
+     * @return true if the early started build of the module continues, false if the module should be submitted as
+     * usual (it was not started early or the early task was not taken by a worker thread yet)
+     */
+    boolean release(int id) {
+        Gate gate = gates[id];
+        if (gate == null) {
+            return false;
+        }
+        gates[id] = null;
+        started--;
+        if (gate.withdraw()) {
+            earlyTasks[id].cancel(false);
+            logger.debug("Early start is cancelled: {}", graph.node(id));
+            return false;
+        }
+        gate.open(executor);
+        scheduled(id);
+        return true;
+    }
+
+    /**
+     * Unblocks the parked modules when the build is stopped, e.g. after the failure of an upstream dependency.
+     */
+    void cancel(String reason) {
+        for (int id = 0; id < gates.length; id++) {
+            Gate gate = gates[id];
+            if (gate != null) {
+                if (gate.withdraw()) {
+                    earlyTasks[id].cancel(false);
+                } else {
+                    gate.cancel(reason);
+                }
+            }
+        }
+    }
+
+    /**
+     * Wraps the build of the early started module, so its {@link CurrentProjectExecution} waits at the gate. Should be
+     * called only if the gate is {@link Gate#take() taken}.
+     */
+    static <T> T callWithGate(Gate gate, Callable<T> callable) throws Exception {
+        currentGate.set(gate);
+        try {
+            return callable.call();
+        } finally {
+            currentGate.remove();
+            gate.complete();
+        }
+    }
+
+    /*@Nullable*/
+    static Gate currentGate() {
+        return currentGate.get();
+    }
+
+    /**
+     * @return true if the mojo can be executed before the upstream dependencies are signaled, the early started module
+     * executes the leading independent mojos of its execution plan
+     */
+    static boolean isIndependent(MojoExecution mojoExecution) {
+        MojoDescriptor mojoDescriptor = mojoExecution.getMojoDescriptor();
+        return mojoDescriptor != null
+                && mojoDescriptor.getDependencyResolutionRequired() == null
+                && mojoDescriptor.getDependencyCollectionRequired() == null
+                && !mojoDescriptor.isAggregator()
+                && mojoExecution.getForkedExecutions().isEmpty()
+                && EARLY_PHASES.contains(PhaseOrderPatcher.basePhase(MojoUtils.getMojoPhase(mojoExecution)));
+    }
+
+    @FunctionalInterface
+    interface Submitter {
+        Future<?> submit(int id, Gate gate);
+    }
+
+    /**
+     * Parks the early started module until its upstream dependencies are signaled.
+     */
+    static final class Gate {
+
+        private final int order;
+        private final CountDownLatch resumed = new CountDownLatch(1);
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private boolean taken;
+        private boolean withdrawn;
+        private boolean open;
+        private boolean parked;
+        /*@Nullable*/
+        private String cancelReason;
+        /*@Nullable*/
+        private TurboThreadPoolExecutor compensatedExecutor;
+
+        Gate(int order) {
+            this.order = order;
+        }
+
+        /**
+         * Called by the worker thread taking the early task, the task is skipped if false.
+         */
+        synchronized boolean take() {
+            if (withdrawn) {
+                return false;
+            }
+            taken = true;
+            return true;
+        }
+
+        /**
+         * Called on the release or cancellation of the module, it's submitted as usual if the early task is withdrawn.
+         * Note: the cancellation of the {@link Future} is not enough, as it also succeeds for the running task.
+         *
+         * @return true if the early task is not taken by a worker thread yet
+         */
+        synchronized boolean withdraw() {
+            if (taken) {
+                return false;
+            }
+            withdrawn = true;
+            return true;
+        }
+
+        /**
+         * Parks the current thread until the gate is open, the pool is compensated meanwhile.
+         *
+         * @return parked time in milliseconds
+         */
+        long await() throws InterruptedException {
+            synchronized (this) {
+                if (!open) {
+                    parked = true;
+                    compensatedExecutor = TurboThreadPoolExecutor.current();
+                    if (compensatedExecutor != null) {
+                        compensatedExecutor.compensate(1);
+                    }
+                }
+            }
+            long startNanos = System.nanoTime();
+            if (parked) {
+                resumed.await();
+            }
+            synchronized (this) {
+                if (cancelReason != null) {
+                    throw new IllegalStateException(cancelReason);
+                }
+            }
+            return (System.nanoTime() - startNanos) / 1_000_000L;
+        }
+
+        synchronized void open(TurboThreadPoolExecutor executor) {
+            open = true;
+            if (parked && compensatedExecutor != null) {
+                // the worker thread taking the task gives its slot to the resumed build
+                executor.submit(new OrderedCallable<>(order, () -> {
+                    resumed.countDown();
+                    completed.await();
+                    return null;
+                }));
+            } else {
+                resumed.countDown();
+            }
+        }
+
+        synchronized void cancel(String reason) {
+            open = true;
+            cancelReason = reason;
+            resumed.countDown();
+        }
+
+        /**
+         * Releases the thread which has taken the resume task and removes the compensation.
+         */
+        synchronized void complete() {
+            completed.countDown();
+            if (compensatedExecutor != null) {
+                compensatedExecutor.compensate(-1);
+                compensatedExecutor = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.seregamorph.maven.turbo;
+
+/**
+ * Defines how the failure of a module affects the running builds of other modules, see {@link FailurePropagation}.
+ * Configured via "-DturboFailurePolicy=..." parameter.
+ *
+ * @author Sergey Chernov
+ */
+public enum FailurePolicy {
+
+    /**
+     * The running builds are not affected (default).
+     */
+    NONE("none"),
+
+    /**
+     * The running builds of the downstream dependencies are cancelled, with "--fail-fast" all running builds are
+     * cancelled.
+     */
+    CANCEL("cancel"),
+
+    /**
+     * The running builds of the downstream dependencies are continued, but their tests are executed after the pending
+     * builds of other modules.
+     */
+    DEPRIORITIZE("deprioritize");
+
+    private final String propertyValue;
+
+    FailurePolicy(String propertyValue) {
+        this.propertyValue = propertyValue;
+    }
+
+    static FailurePolicy fromProperty(/*@Nullable*/ String value) {
+        if (value == null || value.isEmpty()) {
+            return NONE;
+        }
+        for (FailurePolicy policy : values()) {
+            if (policy.propertyValue.equals(value)) {
+                return policy;
+            }
+        }
+        throw new IllegalArgumentException("Unknown turboFailurePolicy value '" + value + "', supported values are: "
+                + NONE.propertyValue + ", " + CANCEL.propertyValue + ", " + DEPRIORITIZE.propertyValue);
+    }
+
+    @Override
+    public String toString() {
+        return propertyValue;
+    }
+}
@@ -0,0 +1,111 @@
+package com.github.seregamorph.maven.turbo;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+import org.apache.maven.project.MavenProject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Propagates the failure of a module to the running builds of other modules according to the {@link FailurePolicy}.
+ * Maven skips the downstream dependencies which are not started yet (fail-at-end) or stops scheduling (fail-fast), but
+ * the downstream dependencies started after the signal of the failed module keep running.
+ * <p>
+ * The cancelled build is interrupted and fails before its next mojo, the deprioritized build yields its worker thread
+ * before the tests, see {@link PostSignalYield}.
+ *
+ * @author Sergey Chernov
+ */
+final class FailurePropagation {
+
+    private static final Logger logger = LoggerFactory.getLogger(FailurePropagation.class);
+
+    private final FailurePolicy policy;
+    private final boolean failFast;
+    private final Function<MavenProject, ? extends Collection<MavenProject>> downstreams;
+
+    // guarded by this
+    private final Map<MavenProject, RunningModule> runningModules = new HashMap<>();
+
+    /**
+     * @param policy      policy other than {@link FailurePolicy#NONE}
+     * @param failFast    the reactor is halted after the first failure
+     * @param downstreams direct and transitive downstream dependencies of the module
+     */
+    FailurePropagation(
+            FailurePolicy policy,
+            boolean failFast,
+            Function<MavenProject, ? extends Collection<MavenProject>> downstreams) {
+        this.policy = policy;
+        this.failFast = failFast;
+        this.downstreams = downstreams;
+    }
+
+    /**
+     * Registers the build of the module running in the current thread.
+     */
+    synchronized RunningModule started(MavenProject project) {
+        RunningModule runningModule = new RunningModule(Thread.currentThread());
+        runningModules.put(project, runningModule);
+        return runningModule;
+    }
+
+    /**
+     * Unregisters the build of the module, should be called from the same thread as {@link #started(MavenProject)}.
+     */
+    void finished(MavenProject project, RunningModule runningModule) {
+        synchronized (this) {
+            runningModules.remove(project, runningModule);
+        }
+        if (runningModule.cancelledBy != null) {
+            // not interrupted anymore after unregistering, so the worker thread can be reused
+            Thread.interrupted();
+        }
+    }
+
+    /**
+     * Applies the policy to the running builds after the failure of the module.
+     */
+    synchronized void failed(MavenProject project) {
+        Collection<MavenProject> affectedProjects = policy == FailurePolicy.CANCEL && failFast
+                ? new ArrayList<>(runningModules.keySet())
+                : downstreams.apply(project);
+        for (MavenProject affectedProject : affectedProjects) {
+            RunningModule runningModule = runningModules.get(affectedProject);
+            if (runningModule == null) {
+                continue;
+            }
+            if (policy == FailurePolicy.CANCEL && runningModule.cancelledBy == null) {
+                logger.warn(
+                        "Cancelling the build of {} after the failure of {}",
+                        affectedProject.getArtifactId(),
+                        project.getArtifactId());
+                runningModule.cancelledBy = project;
+                runningModule.thread.interrupt();
+            } else if (policy == FailurePolicy.DEPRIORITIZE && !runningModule.deprioritized) {
+                logger.info(
+                        "Deprioritizing the tests of {} after the failure of {}",
+                        affectedProject.getArtifactId(),
+                        project.getArtifactId());
+                runningModule.deprioritized = true;
+            }
+        }
+    }
+
+    /**
+     * State of the running module build updated by the failures of other modules.
+     */
+    static final class RunningModule {
+        private final Thread thread;
+        /*@Nullable*/
+        volatile MavenProject cancelledBy;
+        volatile boolean deprioritized;
+
+        private RunningModule(Thread thread) {
+            this.thread = thread;
+        }
+    }
+}
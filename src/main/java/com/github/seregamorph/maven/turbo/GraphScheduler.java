@@ -0,0 +1,130 @@
+package com.github.seregamorph.maven.turbo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import org.apache.maven.lifecycle.internal.ProjectSegment;
+import org.apache.maven.project.MavenProject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Builds the nodes of a {@link ScheduleGraph} without a coordinator thread: the worker thread which reaches a
+ * milestone or finishes a node releases its downstream nodes and submits the ready ones to the executor itself. Combined with a
+ * work-stealing executor, the ready nodes are pushed to the deque of the releasing worker and stolen by idle ones.
+ *
+ * @author Sergey Chernov
+ */
+final class GraphScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(GraphScheduler.class);
+
+    private final ExecutorService executor;
+    private final ScheduleGraph graph;
+    private final Function<ProjectSegment, Callable<MavenProject>> buildCallables;
+    private final BooleanSupplier halted;
+
+    private final Object lock = new Object();
+    private final List<Throwable> failures = new ArrayList<>();
+    // guarded by lock
+    private int running;
+    // guarded by lock
+    private int remaining;
+
+    /**
+     * @param executor       executor running the module builds
+     * @param graph          modules to build
+     * @param buildCallables creates the build callable of the module
+     * @param halted         returns true when no more modules should be scheduled (e.g. fail-fast after failure)
+     */
+    GraphScheduler(
+            ExecutorService executor,
+            ScheduleGraph graph,
+            Function<ProjectSegment, Callable<MavenProject>> buildCallables,
+            BooleanSupplier halted) {
+        this.executor = executor;
+        this.graph = graph;
+        this.buildCallables = buildCallables;
+        this.halted = halted;
+        this.remaining = graph.size();
+    }
+
+    /**
+     * Builds the nodes and waits until all of them are finished or, if the build is halted, the running ones are
+     * finished.
+     *
+     * @return failures of the build callables
+     */
+    List<Throwable> build() throws InterruptedException {
+        submit(graph.roots());
+        synchronized (lock) {
+            while (remaining > 0 && !(running == 0 && isStopped())) {
+                lock.wait();
+            }
+            return new ArrayList<>(failures);
+        }
+    }
+
+    private void milestoneReached(int id, Milestone milestone) {
+        submit(graph.releaseMilestone(id, milestone));
+    }
+
+    private void finished(int id, /*@Nullable*/ Throwable failure) {
+        if (failure == null) {
+            // submit before decrementing the counters, so the build does not complete in between
+            submit(graph.releaseFinished(id));
+        }
+        synchronized (lock) {
+            if (failure != null) {
+                failures.add(failure);
+            }
+            running--;
+            remaining--;
+            lock.notifyAll();
+        }
+    }
+
+    private void submit(int[] ids) {
+        if (ids.length == 0 || isStopped()) {
+            return;
+        }
+        synchronized (lock) {
+            running += ids.length;
+        }
+        for (int id : ids) {
+            ProjectSegment projectSegment = graph.projectSegment(id);
+            logger.debug("Scheduling: {}", projectSegment);
+            // negate priority for descending order
+            SignalingExecutorCompletionService.submit(
+                    executor,
+                    -graph.priority(id),
+                    projectSegment.getProject(),
+                    buildCallables.apply(projectSegment),
+                    new SignalingExecutorCompletionService.SignalListener() {
+                        @Override
+                        public void signaled(MavenProject project) {
+                            // the downstream nodes are released by the milestones
+                        }
+
+                        @Override
+                        public void milestoneReached(MavenProject project, Milestone milestone) {
+                            GraphScheduler.this.milestoneReached(id, milestone);
+                        }
+
+                        @Override
+                        public void finished(MavenProject project, /*@Nullable*/ Throwable failure) {
+                            GraphScheduler.this.finished(id, failure);
+                        }
+                    });
+        }
+    }
+
+    private boolean isStopped() {
+        synchronized (lock) {
+            return !failures.isEmpty() || halted.getAsBoolean();
+        }
+    }
+}
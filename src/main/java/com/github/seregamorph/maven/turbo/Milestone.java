@@ -0,0 +1,79 @@
+package com.github.seregamorph.maven.turbo;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Readiness milestones of a module build. Each dependency edge of the reactor is released at the earliest milestone
+ * of the upstream module, which provides the artifact required by the downstream module.
+ * <p>
+ * The milestones are declared in the order they are reached: each milestone implies the previous ones. E.g. with
+ * {@code -DturboTestCompile} the test-jar may be packaged before the main jar, then {@link #TEST_JAR} is reached right
+ * after {@link #PACKAGE} (see {@code CurrentProjectExecution.reachMilestone}). So the milestone required by several
+ * dependencies on the same module is the latest one.
+ *
+ * @author Sergey Chernov
+ */
+enum Milestone {
+
+    /**
+     * The main classes are compiled, the reactor resolves the dependency to target/classes.
+     */
+    CLASSES,
+
+    /**
+     * The package phase is executed, the main artifact (e.g. jar) is built. Implies {@link #CLASSES}.
+     */
+    PACKAGE,
+
+    /**
+     * The test classes are compiled and the test-jar is built. Implies {@link #PACKAGE}.
+     */
+    TEST_JAR,
+
+    /**
+     * The module build is completed. Implies all other milestones.
+     */
+    DONE;
+
+    /**
+     * Calculates the milestone of the upstream module, after which the downstream module can be built.
+     *
+     * @param upstream          upstream module
+     * @param downstream        downstream module
+     * @param classesSufficient the upstream module is configured to signal after the main classes are compiled
+     */
+    static Milestone required(MavenProject upstream, MavenProject downstream, boolean classesSufficient) {
+        /*@Nullable*/ Milestone required = null;
+        for (Dependency dependency : downstream.getDependencies()) {
+            if (upstream.getGroupId().equals(dependency.getGroupId())
+                    && upstream.getArtifactId().equals(dependency.getArtifactId())) {
+                Milestone milestone = required(dependency, classesSufficient);
+                // the later milestone implies the earlier ones
+                if (required == null || milestone.compareTo(required) > 0) {
+                    required = milestone;
+                }
+            }
+        }
+        // not a dependency (e.g. parent or build plugin), the packaged module is required as before
+        return required == null ? PACKAGE : required;
+    }
+
+    /**
+     * @return true if the dependency refers to the test classes of the module
+     */
+    static boolean isTestJar(Dependency dependency) {
+        return "test-jar".equals(dependency.getType()) || "tests".equals(dependency.getClassifier());
+    }
+
+    private static Milestone required(Dependency dependency, boolean classesSufficient) {
+        if (isTestJar(dependency)) {
+            return TEST_JAR;
+        }
+        boolean mainJar = "jar".equals(dependency.getType())
+                && (dependency.getClassifier() == null
+                        || dependency.getClassifier().isEmpty());
+        // other types and classifiers (e.g. war overlays, shaded jars) are only available after the package phase
+        return mainJar && classesSufficient ? CLASSES : PACKAGE;
+    }
+}
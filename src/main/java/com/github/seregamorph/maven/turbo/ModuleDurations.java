@@ -0,0 +1,31 @@
+package com.github.seregamorph.maven.turbo;
+
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Estimated build durations of reactor modules split by the signal point: the part until the module is signaled
+ * (compile, package) and the remaining part (tests, install, etc.).
+ *
+ * @author Sergey Chernov
+ */
+interface ModuleDurations {
+
+    /**
+     * Every module is estimated as a unit of pre-signal work, so the critical path is the longest chain of modules.
+     */
+    ModuleDurations UNIFORM = new ModuleDurations() {
+        @Override
+        public long preSignalMillis(MavenProject project) {
+            return 1L;
+        }
+
+        @Override
+        public long postSignalMillis(MavenProject project) {
+            return 0L;
+        }
+    };
+
+    long preSignalMillis(MavenProject project);
+
+    long postSignalMillis(MavenProject project);
+}
@@ -0,0 +1,344 @@
+package com.github.seregamorph.maven.turbo;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.Function;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.MavenProjectHelper;
+
+/**
+ * Content-hash fingerprints of the module inputs: the files of the module base directory (sources, resources,
+ * pom.xml, etc. except the build directory, nested modules and hidden directories), the build parameters and the
+ * fingerprints of the upstream modules. The fingerprint of the last successful build is stored in the build
+ * directory of the module together with the hashes of the input files, so the unchanged files (same size and
+ * modification time) are not read again. Large files are hashed via memory-mapped reads.
+ * <p>
+ * The main and attached artifacts packaged into the build directory are stored in the same file, so the artifact
+ * files of an up-to-date module are set to the project again and resolved by the downstream modules of the reactor.
+ *
+ * @author Sergey Chernov
+ */
+final class ModuleFingerprints {
+
+    static final String FILE_NAME = "turbo-fingerprint.tsv";
+
+    private static final long MAPPED_READ_THRESHOLD = 1024L * 1024L;
+    private static final char SEPARATOR = '\t';
+
+    private final String buildParameters;
+    private final Function<MavenProject, ? extends Collection<MavenProject>> upstreams;
+    private final Set<Path> projectBasedirs = new HashSet<>();
+    private final ConcurrentMap<MavenProject, FutureTask<Fingerprint>> fingerprints = new ConcurrentHashMap<>();
+
+    /**
+     * @param projects        projects of the reactor
+     * @param buildParameters parameters affecting the build outputs, e.g. goals and user properties
+     * @param upstreams       direct upstream dependencies of the module
+     */
+    ModuleFingerprints(
+            Collection<MavenProject> projects,
+            String buildParameters,
+            Function<MavenProject, ? extends Collection<MavenProject>> upstreams) {
+        this.buildParameters = buildParameters;
+        this.upstreams = upstreams;
+        for (MavenProject project : projects) {
+            projectBasedirs.add(basedir(project));
+        }
+    }
+
+    /**
+     * @return the fingerprint of the current module inputs, calculated once per build
+     */
+    String fingerprint(MavenProject project) throws IOException {
+        return get(project).value;
+    }
+
+    /**
+     * @return true if the fingerprint matches the last successful build and its output directory (if any) and the
+     * packaged artifacts exist
+     */
+    boolean isUpToDate(MavenProject project) throws IOException {
+        Fingerprint fingerprint = get(project);
+        if (!fingerprint.value.equals(fingerprint.previousValue)
+                || !("pom".equals(project.getPackaging())
+                        || Files.isDirectory(Paths.get(project.getBuild().getOutputDirectory())))) {
+            return false;
+        }
+        Path buildDirectory = Paths.get(project.getBuild().getDirectory());
+        for (String[] fields : fingerprint.previousArtifacts) {
+            if (!Files.isRegularFile(buildDirectory.resolve(fields[4]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sets the artifact files of the last successful build to the up-to-date module, like {@link BuildCache#restore}.
+     * If the main artifact was not packaged (e.g. "compile" goal), the output directory is resolved instead.
+     */
+    void restoreArtifacts(MavenProject project, MavenProjectHelper projectHelper) throws IOException {
+        Path buildDirectory = Paths.get(project.getBuild().getDirectory());
+        boolean mainArtifact = false;
+        for (String[] fields : get(project).previousArtifacts) {
+            BuildCache.setArtifactFile(projectHelper, project, fields, buildDirectory.resolve(fields[4]));
+            mainArtifact |= "main".equals(fields[0]);
+        }
+        if (!mainArtifact && !"pom".equals(project.getPackaging())) {
+            // the ReactorReader resolves the output directory of the compiled modules
+            project.addLifecyclePhase("compile");
+        }
+    }
+
+    /**
+     * Stores the fingerprint after the successful build of the module.
+     */
+    void saveSuccess(MavenProject project) throws IOException {
+        Fingerprint fingerprint = get(project);
+        StringBuilder sb = new StringBuilder();
+        sb.append(fingerprint.value).append('\n');
+        fingerprint.fileHashes.forEach((relativePath, fileHash) -> sb.append(relativePath)
+                .append(SEPARATOR)
+                .append(fileHash.size)
+                .append(SEPARATOR)
+                .append(fileHash.lastModified)
+                .append(SEPARATOR)
+                .append(fileHash.hash)
+                .append('\n'));
+        Path buildDirectory =
+                Paths.get(project.getBuild().getDirectory()).toAbsolutePath().normalize();
+        if (project.getArtifact() != null && BuildCache.isBuildOutput(buildDirectory, project.getArtifact())) {
+            sb.append(BuildCache.manifestLine("main", project.getArtifact()));
+        }
+        for (Artifact attachedArtifact : project.getAttachedArtifacts()) {
+            if (BuildCache.isBuildOutput(buildDirectory, attachedArtifact)) {
+                sb.append(BuildCache.manifestLine("attached", attachedArtifact));
+            }
+        }
+        Path file = fingerprintFile(project);
+        Files.createDirectories(file.getParent());
+        Path tempFile = file.resolveSibling(FILE_NAME + ".tmp");
+        Files.write(tempFile, sb.toString().getBytes(StandardCharsets.UTF_8));
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Fingerprint get(MavenProject project) throws IOException {
+        FutureTask<Fingerprint> task = new FutureTask<>(() -> calculate(project));
+        FutureTask<Fingerprint> existingTask = fingerprints.putIfAbsent(project, task);
+        if (existingTask == null) {
+            task.run();
+        } else {
+            task = existingTask;
+        }
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while calculating fingerprint of " + project, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Failed to calculate fingerprint of " + project, e.getCause());
+        }
+    }
+
+    private Fingerprint calculate(MavenProject project) throws IOException {
+        Path fingerprintFile = fingerprintFile(project);
+        /*@Nullable*/ String previousValue = null;
+        Map<String, FileHash> previousFileHashes = new HashMap<>();
+        List<String[]> previousArtifacts = new ArrayList<>();
+        if (Files.exists(fingerprintFile)) {
+            try (BufferedReader reader = Files.newBufferedReader(fingerprintFile, StandardCharsets.UTF_8)) {
+                previousValue = reader.readLine();
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] fields = line.split(String.valueOf(SEPARATOR), -1);
+                    if (fields.length == 5) {
+                        // packaged artifact, see BuildCache.manifestLine
+                        previousArtifacts.add(fields);
+                    } else if (fields.length == 4) {
+                        try {
+                            previousFileHashes.put(
+                                    fields[0],
+                                    new FileHash(Long.parseLong(fields[1]), Long.parseLong(fields[2]), fields[3]));
+                        } catch (NumberFormatException e) {
+                            // corrupted line, the file is hashed again
+                        }
+                    }
+                }
+            }
+        }
+
+        Path basedir = basedir(project);
+        // sorted for a stable fingerprint
+        Map<String, FileHash> fileHashes = new TreeMap<>();
+        for (Path file : inputFiles(project)) {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            String relativePath = basedir.relativize(file).toString().replace('\\', '/');
+            long size = attributes.size();
+            long lastModified = attributes.lastModifiedTime().toMillis();
+            FileHash previousFileHash = previousFileHashes.get(relativePath);
+            if (previousFileHash != null
+                    && previousFileHash.size == size
+                    && previousFileHash.lastModified == lastModified) {
+                fileHashes.put(relativePath, previousFileHash);
+            } else {
+                fileHashes.put(relativePath, new FileHash(size, lastModified, hash(file, size)));
+            }
+        }
+
+        MessageDigest digest = newDigest();
+        update(digest, buildParameters);
+        fileHashes.forEach((relativePath, fileHash) -> {
+            update(digest, relativePath);
+            update(digest, fileHash.hash);
+        });
+        Map<String, String> upstreamFingerprints = new TreeMap<>();
+        for (MavenProject upstream : upstreams.apply(project)) {
+            upstreamFingerprints.put(upstream.getGroupId() + ":" + upstream.getArtifactId(), fingerprint(upstream));
+        }
+        upstreamFingerprints.forEach((upstreamKey, upstreamFingerprint) -> {
+            update(digest, upstreamKey);
+            update(digest, upstreamFingerprint);
+        });
+        return new Fingerprint(toHex(digest.digest()), previousValue, fileHashes, previousArtifacts);
+    }
+
+    private List<Path> inputFiles(MavenProject project) throws IOException {
+        Path basedir = basedir(project);
+        Path buildDirectory =
+                Paths.get(project.getBuild().getDirectory()).toAbsolutePath().normalize();
+        List<Path> files = new ArrayList<>();
+        Files.walkFileTree(basedir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (!dir.equals(basedir)
+                        && (dir.equals(buildDirectory)
+                                || projectBasedirs.contains(dir)
+                                || dir.getFileName().toString().startsWith("."))) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile()) {
+                    files.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return files;
+    }
+
+    private static String hash(Path file, long size) throws IOException {
+        MessageDigest digest = newDigest();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (size >= MAPPED_READ_THRESHOLD) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0L, channel.size());
+                digest.update(buffer);
+            } else {
+                ByteBuffer buffer = ByteBuffer.allocate((int) Math.max(size, 1L));
+                while (channel.read(buffer) > 0) {
+                    if (!buffer.hasRemaining()) {
+                        buffer.flip();
+                        digest.update(buffer);
+                        buffer.clear();
+                    }
+                }
+                buffer.flip();
+                digest.update(buffer);
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    private static Path fingerprintFile(MavenProject project) {
+        return Paths.get(project.getBuild().getDirectory()).resolve(FILE_NAME);
+    }
+
+    private static Path basedir(MavenProject project) {
+        return project.getBasedir().toPath().toAbsolutePath().normalize();
+    }
+
+    private static final class Fingerprint {
+        final String value;
+        /*@Nullable*/
+        final String previousValue;
+        final Map<String, FileHash> fileHashes;
+        final List<String[]> previousArtifacts;
+
+        Fingerprint(
+                String value,
+                /*@Nullable*/ String previousValue,
+                Map<String, FileHash> fileHashes,
+                List<String[]> previousArtifacts) {
+            this.value = value;
+            this.previousValue = previousValue;
+            this.fileHashes = fileHashes;
+            this.previousArtifacts = previousArtifacts;
+        }
+    }
+
+    private static final class FileHash {
+        final long size;
+        final long lastModified;
+        final String hash;
+
+        FileHash(long size, long lastModified, String hash) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.github.seregamorph.maven.turbo;
 import java.util.Objects;
 import org.apache.maven.plugin.MojoExecution;
 import org.apache.maven.plugin.descriptor.MojoDescriptor;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
 
 final class MojoUtils {
 
@@ -17,5 +18,28 @@ final class MojoUtils {
         return Objects.toString(phase, "none");
     }
 
+    /*@Nullable*/
+    static String getMojoGoal(MojoExecution mojoExecution) {
+        MojoDescriptor mojoDescriptor = mojoExecution.getMojoDescriptor();
+        return mojoDescriptor == null ? null : mojoDescriptor.getGoal();
+    }
+
+    /**
+     * @return true if the mojo packages the test classes via maven-jar-plugin:test-jar (the test-jar goals of other
+     * plugins, e.g. maven-source-plugin or maven-javadoc-plugin, package other content)
+     */
+    static boolean isTestJar(MojoExecution mojoExecution) {
+        MojoDescriptor mojoDescriptor = mojoExecution.getMojoDescriptor();
+        if (mojoDescriptor == null || !"test-jar".equals(mojoDescriptor.getGoal())) {
+            return false;
+        }
+        PluginDescriptor pluginDescriptor = mojoDescriptor.getPluginDescriptor();
+        return pluginDescriptor != null && isJarPlugin(pluginDescriptor.getGroupId(), pluginDescriptor.getArtifactId());
+    }
+
+    static boolean isJarPlugin(String groupId, String artifactId) {
+        return "org.apache.maven.plugins".equals(groupId) && "maven-jar-plugin".equals(artifactId);
+    }
+
     private MojoUtils() {}
 }
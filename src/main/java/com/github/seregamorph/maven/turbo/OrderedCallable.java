@@ -7,17 +7,28 @@ import java.util.concurrent.Callable;
  */
 public class OrderedCallable<T> implements Callable<T>, Comparable<OrderedCallable<T>> {
 
+    private final boolean yielded;
     private final int order;
     private final Callable<T> callable;
 
     public OrderedCallable(int order, Callable<T> callable) {
+        this(false, order, callable);
+    }
+
+    /**
+     * @param yielded true for the tasks resuming the yielded post-signal builds, they are ordered after all other
+     *                tasks, see {@link PostSignalYield}
+     */
+    public OrderedCallable(boolean yielded, int order, Callable<T> callable) {
+        this.yielded = yielded;
         this.order = order;
         this.callable = callable;
     }
 
     @Override
     public int compareTo(OrderedCallable that) {
-        return Integer.compare(order, that.order);
+        int compare = Boolean.compare(yielded, that.yielded);
+        return compare == 0 ? Integer.compare(order, that.order) : compare;
     }
 
     @Override
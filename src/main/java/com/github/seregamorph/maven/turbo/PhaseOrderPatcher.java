@@ -2,14 +2,53 @@ package com.github.seregamorph.maven.turbo;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import org.apache.maven.Maven;
 
 /**
  * @author Sergey Chernov
  */
 class PhaseOrderPatcher {
+
+    private static final int PACKAGE = 1;
+    private static final int MAIN_CLASSES = 1 << 1;
+    private static final int TEST_CLASSES = 1 << 2;
+    private static final int ANY_TEST = 1 << 3;
+    private static final int TEST = 1 << 4;
+
+    private static final Set<String> MAIN_CLASSES_PHASES = new HashSet<>(Arrays.asList(
+            "validate",
+            "initialize",
+            "generate-sources",
+            "process-sources",
+            "generate-resources",
+            "process-resources",
+            "sources",
+            "resources",
+            "compile",
+            "process-classes"));
+    private static final Set<String> TEST_CLASSES_PHASES = new HashSet<>(Arrays.asList(
+            "generate-test-sources",
+            "process-test-sources",
+            "generate-test-resources",
+            "process-test-resources",
+            "test-sources",
+            "test-resources",
+            "test-compile",
+            "process-test-classes"));
+
+    private static final int[] IDENTITY = new int[0];
+    // the number of distinct plan shapes is small, the limit is a safeguard against unbounded growth
+    private static final int MAX_CACHED_PLANS = 1024;
+
+    private static final ConcurrentMap<String, Integer> phaseFlags = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<PlanKey, int[]> permutations = new ConcurrentHashMap<>();
     /*
         If test-jar is not supported:
         original phases of the default lifecycle [
@@ -86,34 +125,118 @@ class PhaseOrderPatcher {
 
     /**
      * Reorders Maven DefaultLifecycles (List of String phases) - for Maven 3, or List of MojoExecution - for Maven 4
+     * or per module. Most modules of a reactor share a few execution plan shapes, so the reordering is calculated once
+     * per sequence of phases and then applied to the items as a cached permutation.
      *
      * @return list of phases before the reordering
      */
     static <T> List<String> reorderPhases(
             TurboBuilderConfig config, List<T> phaseItems, Function<T, String> phaseExtractor) {
+        List<String> originalPhases = new ArrayList<>(phaseItems.size());
+        for (T phaseItem : phaseItems) {
+            originalPhases.add(phaseExtractor.apply(phaseItem));
+        }
+        PlanKey planKey = new PlanKey(config.isTurboTestCompile(), originalPhases.toArray(new String[0]));
+        int[] permutation = permutations.get(planKey);
+        if (permutation == null) {
+            permutation = permutation(planKey);
+            if (permutations.size() < MAX_CACHED_PLANS) {
+                permutations.putIfAbsent(planKey, permutation);
+            }
+        }
+        if (permutation != IDENTITY) {
+            Object[] items = phaseItems.toArray();
+            for (int i = 0; i < permutation.length; i++) {
+                @SuppressWarnings("unchecked")
+                T item = (T) items[permutation[i]];
+                phaseItems.set(i, item);
+            }
+        }
+        return originalPhases;
+    }
+
+    /**
+     * @return the permutation moving the package phases before the first test phase: the new position {@code i} takes
+     * the item of the position {@code permutation[i]}, or {@link #IDENTITY} if the items are not reordered
+     */
+    private static int[] permutation(PlanKey planKey) {
+        String[] phases = planKey.phases;
         int lastPackageItem = -1;
-        List<T> packageItems = new ArrayList<>();
-        List<String> originalPhases = new ArrayList<>();
         int firstTestItemIndex = -1;
-        for (int i = 0; i < phaseItems.size(); i++) {
-            T lifecycleItem = phaseItems.get(i);
-            String lifecyclePhase = phaseExtractor.apply(lifecycleItem);
-            originalPhases.add(lifecyclePhase);
-            if (firstTestItemIndex < 0
-                    && (config.isTurboTestCompile() ? isTest(lifecyclePhase) : isAnyTest(lifecyclePhase))) {
+        for (int i = 0; i < phases.length; i++) {
+            int flags = flags(phases[i]);
+            if (firstTestItemIndex < 0 && (flags & (planKey.turboTestCompile ? TEST : ANY_TEST)) != 0) {
                 firstTestItemIndex = i;
             }
-            if (isPackage(lifecyclePhase)) {
-                packageItems.add(lifecycleItem);
+            if ((flags & PACKAGE) != 0) {
                 lastPackageItem = i;
             }
         }
         // the list of MojoExecution may miss package items
-        if (firstTestItemIndex > -1 && firstTestItemIndex < lastPackageItem) {
-            phaseItems.removeAll(packageItems);
-            phaseItems.addAll(firstTestItemIndex, packageItems);
+        if (firstTestItemIndex < 0 || firstTestItemIndex >= lastPackageItem) {
+            return IDENTITY;
         }
-        return originalPhases;
+        List<Integer> packageItems = new ArrayList<>();
+        List<Integer> otherItems = new ArrayList<>();
+        for (int i = 0; i < phases.length; i++) {
+            ((flags(phases[i]) & PACKAGE) != 0 ? packageItems : otherItems).add(i);
+        }
+        otherItems.addAll(firstTestItemIndex, packageItems);
+        int[] permutation = new int[phases.length];
+        for (int i = 0; i < permutation.length; i++) {
+            permutation[i] = otherItems.get(i);
+        }
+        return permutation;
+    }
+
+    /**
+     * Moves the test-jar packaging items after the last item of the test classes phases, so the test-jar of the module
+     * is packaged after the test classes are compiled, while the main artifact is still packaged before the tests.
+     * Unlike {@code -DturboTestCompile}, it only affects the modules producing a test-jar.
+     *
+     * @return true if the items were reordered
+     */
+    static <T> boolean moveTestJarAfterTestClasses(
+            List<T> phaseItems, Function<T, String> phaseExtractor, Predicate<T> testJarItem) {
+        int lastTestClassesItem = -1;
+        for (int i = 0; i < phaseItems.size(); i++) {
+            if (isTestClasses(phaseExtractor.apply(phaseItems.get(i)))) {
+                lastTestClassesItem = i;
+            }
+        }
+        List<T> testJarItems = new ArrayList<>();
+        for (int i = 0; i < lastTestClassesItem; i++) {
+            T phaseItem = phaseItems.get(i);
+            if (testJarItem.test(phaseItem)) {
+                testJarItems.add(phaseItem);
+            }
+        }
+        if (testJarItems.isEmpty()) {
+            return false;
+        }
+        phaseItems.removeAll(testJarItems);
+        phaseItems.addAll(lastTestClassesItem - testJarItems.size() + 1, testJarItems);
+        return true;
+    }
+
+    /**
+     * Moves the matching items before the anchor item right after it, the relative order of the moved items is kept.
+     *
+     * @return the moved items
+     */
+    static <T> List<T> moveAfter(List<T> phaseItems, int anchorIndex, Predicate<T> movedItem) {
+        List<T> movedItems = new ArrayList<>();
+        for (int i = 0; i < anchorIndex; i++) {
+            T phaseItem = phaseItems.get(i);
+            if (movedItem.test(phaseItem)) {
+                movedItems.add(phaseItem);
+            }
+        }
+        if (!movedItems.isEmpty()) {
+            phaseItems.removeAll(movedItems);
+            phaseItems.addAll(anchorIndex - movedItems.size() + 1, movedItems);
+        }
+        return movedItems;
     }
 
     static void restorePhases(List<String> originalPhases, List<String> targetPhases) {
@@ -127,26 +250,106 @@ class PhaseOrderPatcher {
     }
 
     static boolean isPackage(String phase) {
-        return Arrays.asList("prepare-package", "package").contains(phase);
+        return (flags(phase) & PACKAGE) != 0;
+    }
+
+    /**
+     * @return true for the phases up to process-classes, after which the compiled main classes are available in the
+     * output directory
+     */
+    static boolean isMainClasses(String phase) {
+        return (flags(phase) & MAIN_CLASSES) != 0;
     }
 
-    private static boolean isTest(String phase) {
-        // "test"
-        return "test".equals(phase);
+    /**
+     * @return true for the phases from generate-test-sources to process-test-classes, after which the compiled test
+     * classes are available in the output directory
+     */
+    static boolean isTestClasses(String phase) {
+        return (flags(phase) & TEST_CLASSES) != 0;
     }
 
     static boolean isAnyTest(String phase) {
+        return (flags(phase) & ANY_TEST) != 0;
+    }
+
+    /**
+     * @return classification flags of the phase, calculated once per phase name
+     */
+    private static int flags(String phase) {
+        Integer flags = phaseFlags.get(phase);
+        if (flags == null) {
+            flags = classify(phase);
+            phaseFlags.putIfAbsent(phase, flags);
+        }
+        return flags;
+    }
+
+    private static int classify(String phase) {
+        int flags = 0;
+        if (phase.equals("prepare-package") || phase.equals("package")) {
+            flags |= PACKAGE;
+        }
+        String basePhase = basePhase(phase);
+        if (MAIN_CLASSES_PHASES.contains(basePhase)) {
+            flags |= MAIN_CLASSES;
+        }
+        if (TEST_CLASSES_PHASES.contains(basePhase)) {
+            flags |= TEST_CLASSES;
+        }
         // Before Maven 4
         // "generate-test-sources", "process-test-sources", "generate-test-resources", "process-test-resources",
         // "test-compile", "process-test-classes", "test", "pre-integration-test", "integration-test",
         // "post-integration-test"
         // Since Maven 4 also:
         // "after:resources", "after:test-resources"
-        return "test".equals(phase)
+        if ("test".equals(phase)
                 || phase.contains(":test") // since maven 4
                 || phase.contains("-test-")
                 || phase.startsWith("test-")
-                || phase.endsWith("-test");
+                || phase.endsWith("-test")) {
+            flags |= ANY_TEST;
+        }
+        if ("test".equals(phase)) {
+            flags |= TEST;
+        }
+        return flags;
+    }
+
+    static String basePhase(String phase) {
+        // since Maven 4 also "before:compile", "after:compile", etc.
+        return phase.startsWith("before:") || phase.startsWith("after:")
+                ? phase.substring(phase.indexOf(':') + 1)
+                : phase;
+    }
+
+    /**
+     * Phase names of the execution plan with the reordering options, the key of the cached permutations.
+     */
+    private static final class PlanKey {
+        private final boolean turboTestCompile;
+        private final String[] phases;
+        private final int hashCode;
+
+        PlanKey(boolean turboTestCompile, String[] phases) {
+            this.turboTestCompile = turboTestCompile;
+            this.phases = phases;
+            this.hashCode = 31 * Arrays.hashCode(phases) + Boolean.hashCode(turboTestCompile);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof PlanKey)) {
+                return false;
+            }
+            PlanKey that = (PlanKey) o;
+            return turboTestCompile == that.turboTestCompile && Arrays.equals(phases, that.phases);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
     }
 
     private PhaseOrderPatcher() {}
@@ -0,0 +1,127 @@
+package com.github.seregamorph.maven.turbo;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Splits the module build into two schedulable units: up to the signal and after the signal. After the signal the
+ * worker thread submits a resume task, which is ordered after all pending module builds, and waits until a worker
+ * thread takes it. So the pending pre-signal builds of other modules (e.g. on the critical path) are not waiting
+ * behind the tests of leaf modules. The thread taking the resume task gives its slot to the yielded build until it's
+ * completed, while the yielded thread is waiting the pool is compensated with an extra thread. The permit of the
+ * adaptive concurrency (if enabled) is given back while the build is yielded, otherwise the pending builds waiting
+ * for it would never let the resume task be taken. Enabled via "-DturboYieldAfterSignal" parameter (can be also
+ * defined per project).
+ *
+ * @author Sergey Chernov
+ */
+final class PostSignalYield {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostSignalYield.class);
+
+    // the yielded builds are resumed in the order of the signals
+    private static final AtomicInteger sequence = new AtomicInteger();
+
+    private final CountDownLatch resumed = new CountDownLatch(1);
+    private final CountDownLatch completed = new CountDownLatch(1);
+    /*@Nullable*/
+    private final TurboThreadPoolExecutor compensatedExecutor;
+
+    private PostSignalYield(/*@Nullable*/ TurboThreadPoolExecutor compensatedExecutor) {
+        this.compensatedExecutor = compensatedExecutor;
+    }
+
+    /**
+     * Yields the current worker thread if there are pending tasks in the pool.
+     *
+     * @param limiter the limiter of the adaptive concurrency holding the permit of the current build or null
+     * @return the yield to be completed after the build of the module or null if the thread is not yielded
+     */
+    /*@Nullable*/
+    static PostSignalYield yieldCurrentThread(/*@Nullable*/ ConcurrencyLimiter limiter) throws InterruptedException {
+        Thread currentThread = Thread.currentThread();
+        if (currentThread instanceof ForkJoinWorkerThread) {
+            ForkJoinPool pool = ((ForkJoinWorkerThread) currentThread).getPool();
+            if (pool.getQueuedTaskCount() == 0L && !pool.hasQueuedSubmissions()) {
+                return null;
+            }
+            return new PostSignalYield(null).yieldTo(pool, limiter);
+        }
+
+        TurboThreadPoolExecutor executor = TurboThreadPoolExecutor.current();
+        if (executor == null || executor.getQueue().isEmpty()) {
+            return null;
+        }
+        // the compensation is removed when the yielded build is completed, as the thread taking the resume task
+        // waits until then
+        executor.compensate(1);
+        return new PostSignalYield(executor).yieldTo(executor, limiter);
+    }
+
+    private PostSignalYield yieldTo(ExecutorService executor, /*@Nullable*/ ConcurrencyLimiter limiter)
+            throws InterruptedException {
+        if (limiter != null) {
+            // the resume task is ordered after the pending builds, which may be waiting for the permit
+            limiter.release();
+        }
+        try {
+            executor.submit(resumeTask());
+            if (compensatedExecutor == null) {
+                // compensated by the ForkJoinPool
+                ForkJoinPool.managedBlock(resumedBlocker());
+            } else {
+                resumed.await();
+            }
+            if (limiter != null) {
+                limiter.acquire();
+            }
+        } catch (InterruptedException | RuntimeException e) {
+            complete();
+            if (limiter != null) {
+                // the permit is released by the build callable
+                limiter.acquireOverLimit();
+            }
+            throw e;
+        }
+        return this;
+    }
+
+    /**
+     * Releases the thread which has taken the resume task.
+     */
+    void complete() {
+        completed.countDown();
+        if (compensatedExecutor != null) {
+            compensatedExecutor.compensate(-1);
+        }
+    }
+
+    private OrderedCallable<Void> resumeTask() {
+        return new OrderedCallable<>(true, sequence.getAndIncrement(), () -> {
+            logger.debug("Resuming yielded build");
+            resumed.countDown();
+            completed.await();
+            return null;
+        });
+    }
+
+    private ForkJoinPool.ManagedBlocker resumedBlocker() {
+        return new ForkJoinPool.ManagedBlocker() {
+            @Override
+            public boolean block() throws InterruptedException {
+                resumed.await();
+                return true;
+            }
+
+            @Override
+            public boolean isReleasable() {
+                return resumed.getCount() == 0L;
+            }
+        };
+    }
+}
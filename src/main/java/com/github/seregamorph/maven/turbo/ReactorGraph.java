@@ -0,0 +1,113 @@
+package com.github.seregamorph.maven.turbo;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import org.apache.maven.execution.ProjectDependencyGraph;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Immutable index-based dependency graph of the modules. Each module has an int id, the ids are assigned in
+ * topological order, so downstream dependencies always have bigger ids than their upstream ones. Direct downstream
+ * dependencies are stored as compressed sparse rows (CSR): the downstream ids of the module {@code id} are
+ * {@code downstreamIds[downstreamOffsets[id]..downstreamOffsets[id + 1])}.
+ *
+ * @param <T> module type, {@link MavenProject} for real builds
+ * @author Sergey Chernov
+ */
+final class ReactorGraph<T> {
+
+    private final List<T> nodes;
+    private final Map<T, Integer> ids;
+    private final int[] downstreamOffsets;
+    private final int[] downstreamIds;
+
+    private ReactorGraph(List<T> nodes, Map<T, Integer> ids, int[] downstreamOffsets, int[] downstreamIds) {
+        this.nodes = nodes;
+        this.ids = ids;
+        this.downstreamOffsets = downstreamOffsets;
+        this.downstreamIds = downstreamIds;
+    }
+
+    /**
+     * Creates the graph of the projects, which is a subset of the session projects (e.g. projects of a task segment).
+     * Only the dependencies between these projects are included.
+     */
+    static ReactorGraph<MavenProject> of(Collection<MavenProject> projects, ProjectDependencyGraph graph) {
+        List<MavenProject> sortedProjects = new ArrayList<>(projects.size());
+        for (MavenProject project : graph.getSortedProjects()) {
+            if (projects.contains(project)) {
+                sortedProjects.add(project);
+            }
+        }
+        return of(sortedProjects, project -> graph.getDownstreamProjects(project, false));
+    }
+
+    /**
+     * @param sortedNodes nodes in topological order: upstream dependencies go before downstream ones
+     * @param downstream  direct downstream dependencies of the node, nodes not in the graph are ignored
+     */
+    static <T> ReactorGraph<T> of(List<T> sortedNodes, Function<T, ? extends Collection<T>> downstream) {
+        int size = sortedNodes.size();
+        Map<T, Integer> ids = new HashMap<>(size * 2);
+        for (T node : sortedNodes) {
+            if (ids.put(node, ids.size()) != null) {
+                throw new IllegalArgumentException("Duplicate node " + node);
+            }
+        }
+        int[] downstreamOffsets = new int[size + 1];
+        int[] downstreamIds = new int[size];
+        int edges = 0;
+        for (int id = 0; id < size; id++) {
+            downstreamOffsets[id] = edges;
+            for (T downstreamNode : downstream.apply(sortedNodes.get(id))) {
+                Integer downstreamId = ids.get(downstreamNode);
+                if (downstreamId == null) {
+                    continue;
+                }
+                if (downstreamId <= id) {
+                    throw new IllegalArgumentException("Nodes are not sorted topologically: " + downstreamNode
+                            + " is downstream of " + sortedNodes.get(id));
+                }
+                if (edges == downstreamIds.length) {
+                    int[] newDownstreamIds = new int[downstreamIds.length * 2 + 1];
+                    System.arraycopy(downstreamIds, 0, newDownstreamIds, 0, edges);
+                    downstreamIds = newDownstreamIds;
+                }
+                downstreamIds[edges++] = downstreamId;
+            }
+        }
+        downstreamOffsets[size] = edges;
+        return new ReactorGraph<>(new ArrayList<>(sortedNodes), ids, downstreamOffsets, downstreamIds);
+    }
+
+    int size() {
+        return nodes.size();
+    }
+
+    T node(int id) {
+        return nodes.get(id);
+    }
+
+    /**
+     * @return id of the node or -1 if it does not belong to the graph
+     */
+    int id(T node) {
+        Integer id = ids.get(node);
+        return id == null ? -1 : id;
+    }
+
+    int downstreamCount(int id) {
+        return downstreamOffsets[id + 1] - downstreamOffsets[id];
+    }
+
+    /**
+     * @return id of the {@code index}-th direct downstream dependency of the node {@code id}
+     */
+    int downstream(int id, int index) {
+        return downstreamIds[downstreamOffsets[id] + index];
+    }
+}
@@ -0,0 +1,249 @@
+package com.github.seregamorph.maven.turbo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Offline simulation of the reactor build in virtual time: the modules are scheduled like in {@link TurboBuilder} (a
+ * module is ready when all its upstream dependencies are signaled, free worker threads take the ready modules with the
+ * highest priority first) and occupy a worker thread for the pre-signal and post-signal durations. No threads are
+ * started, so thousands of simulations per second can sweep the degree of concurrency and priority policies.
+ * Configured via "-DturboSimulate=..." parameter with the comma-separated thread counts, e.g.
+ * "-DturboSimulate=2,4,8,16", the durations are taken from the {@link BuildTimingStore}.
+ *
+ * @author Sergey Chernov
+ */
+final class ReactorSimulator {
+
+    private static final int ID_BITS = 21;
+    private static final int MAX_MODULES = 1 << ID_BITS;
+    private static final long SIGNAL_EVENT = 0L;
+    private static final long FINISH_EVENT = 1L << ID_BITS;
+
+    private final ReactorGraph<?> graph;
+    private final long[] preSignalMillis;
+    private final long[] postSignalMillis;
+    private final long criticalPathMillis;
+
+    /**
+     * @param graph            dependency graph of the modules
+     * @param preSignalMillis  pre-signal build durations indexed by module id
+     * @param postSignalMillis post-signal build durations indexed by module id
+     */
+    ReactorSimulator(ReactorGraph<?> graph, long[] preSignalMillis, long[] postSignalMillis) {
+        if (graph.size() >= MAX_MODULES) {
+            throw new IllegalArgumentException("Too many modules to simulate: " + graph.size());
+        }
+        this.graph = graph;
+        this.preSignalMillis = preSignalMillis;
+        this.postSignalMillis = postSignalMillis;
+        long criticalPathMillis = 0L;
+        for (long weight : SchedulingPriority.criticalPathWeights(graph, preSignalMillis, postSignalMillis)) {
+            criticalPathMillis = Math.max(criticalPathMillis, weight);
+        }
+        this.criticalPathMillis = criticalPathMillis;
+    }
+
+    /**
+     * Simulates the builds with all combinations of the thread counts and priority policies.
+     */
+    List<Result> sweep(int[] threadCounts, SchedulingPriority... priorities) {
+        List<Result> results = new ArrayList<>();
+        for (SchedulingPriority priority : priorities) {
+            int[] modulePriorities = priority.priorities(graph, preSignalMillis, postSignalMillis);
+            for (int threads : threadCounts) {
+                results.add(simulate(priority, modulePriorities, threads));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * @param priority   priority policy, only reported in the result
+     * @param priorities module priorities indexed by module id, see {@link SchedulingPriority}
+     * @param threads    degree of concurrency
+     */
+    Result simulate(SchedulingPriority priority, int[] priorities, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Positive number of threads is expected: " + threads);
+        }
+        int size = graph.size();
+        int[] remainingUpstreams = new int[size];
+        for (int id = 0; id < size; id++) {
+            for (int i = 0; i < graph.downstreamCount(id); i++) {
+                remainingUpstreams[graph.downstream(id, i)]++;
+            }
+        }
+        // ready modules: highest priority first, then in the order of release
+        LongHeap ready = new LongHeap(size);
+        // signal and finish events ordered by virtual time
+        LongHeap events = new LongHeap(size * 2);
+        int[] readyIds = new int[size];
+        int sequence = 0;
+        for (int id = 0; id < size; id++) {
+            if (remainingUpstreams[id] == 0) {
+                readyIds[sequence] = id;
+                ready.add(readyKey(priorities[id], sequence++));
+            }
+        }
+        int freeThreads = threads;
+        long now = 0L;
+        long busyMillis = 0L;
+        int finished = 0;
+        while (finished < size) {
+            while (freeThreads > 0 && !ready.isEmpty()) {
+                int id = readyIds[(int) ready.poll()];
+                freeThreads--;
+                events.add(eventKey(now + preSignalMillis[id], SIGNAL_EVENT, id));
+                busyMillis += preSignalMillis[id] + postSignalMillis[id];
+            }
+            if (events.isEmpty()) {
+                throw new IllegalStateException("Dependency cycle, " + (size - finished) + " modules are not built");
+            }
+            long event = events.poll();
+            now = event >>> (ID_BITS + 1);
+            int id = (int) (event & (MAX_MODULES - 1));
+            if ((event & FINISH_EVENT) == 0L) {
+                for (int i = 0; i < graph.downstreamCount(id); i++) {
+                    int downstreamId = graph.downstream(id, i);
+                    if (--remainingUpstreams[downstreamId] == 0) {
+                        // the sequence is an index of readyIds, lower bits of the ready key
+                        readyIds[sequence] = downstreamId;
+                        ready.add(readyKey(priorities[downstreamId], sequence++));
+                    }
+                }
+                events.add(eventKey(now + postSignalMillis[id], FINISH_EVENT, id));
+            } else {
+                freeThreads++;
+                finished++;
+            }
+        }
+        return new Result(priority, threads, now, busyMillis, criticalPathMillis);
+    }
+
+    private static long readyKey(int priority, int sequence) {
+        // higher priority goes first, non-negative priorities are expected
+        return ((long) (Integer.MAX_VALUE - Math.max(priority, 0)) << 32) | sequence;
+    }
+
+    private static long eventKey(long timeMillis, long type, int id) {
+        // signal events go before the finish events at the same time
+        return (timeMillis << (ID_BITS + 1)) | type | id;
+    }
+
+    /**
+     * Simulated build of the reactor.
+     */
+    static final class Result {
+        final SchedulingPriority priority;
+        final int threads;
+        final long makespanMillis;
+        final long busyMillis;
+        final long criticalPathMillis;
+
+        Result(
+                SchedulingPriority priority,
+                int threads,
+                long makespanMillis,
+                long busyMillis,
+                long criticalPathMillis) {
+            this.priority = priority;
+            this.threads = threads;
+            this.makespanMillis = makespanMillis;
+            this.busyMillis = busyMillis;
+            this.criticalPathMillis = criticalPathMillis;
+        }
+
+        /**
+         * @return share of the worker thread time spent on the module builds
+         */
+        double utilization() {
+            return makespanMillis == 0L ? 1.0 : (double) busyMillis / (threads * makespanMillis);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    Locale.ROOT,
+                    "%-14s %7d %10.1fs %11.0f%% %13.1fs",
+                    priority.name().toLowerCase(Locale.ROOT).replace('_', '-'),
+                    threads,
+                    makespanMillis / 1000.0,
+                    100.0 * utilization(),
+                    criticalPathMillis / 1000.0);
+        }
+    }
+
+    /**
+     * @return the table of the results to log
+     */
+    static List<String> toTable(List<Result> results) {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format(
+                Locale.ROOT,
+                "%-14s %7s %11s %12s %14s",
+                "Priority",
+                "Threads",
+                "Makespan",
+                "Utilization",
+                "Critical path"));
+        for (Result result : results) {
+            lines.add(result.toString());
+        }
+        return lines;
+    }
+
+    /**
+     * Binary min-heap of primitive longs.
+     */
+    private static final class LongHeap {
+        private long[] values;
+        private int size;
+
+        LongHeap(int capacity) {
+            values = new long[Math.max(capacity, 1)];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            int index = size++;
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (values[parent] <= value) {
+                    break;
+                }
+                values[index] = values[parent];
+                index = parent;
+            }
+            values[index] = value;
+        }
+
+        long poll() {
+            long result = values[0];
+            long last = values[--size];
+            int index = 0;
+            int half = size >>> 1;
+            while (index < half) {
+                int child = 2 * index + 1;
+                if (child + 1 < size && values[child + 1] < values[child]) {
+                    child++;
+                }
+                if (last <= values[child]) {
+                    break;
+                }
+                values[index] = values[child];
+                index = child;
+            }
+            values[index] = last;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.github.seregamorph.maven.turbo;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import org.apache.maven.plugin.MojoExecution;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Limits the number of modules concurrently executing the post-signal test phases per resource class, e.g.
+ * memory-hungry integration tests. The resource class is assigned to a module via "turboResourceClass" project
+ * property or to a mojo via "-DturboResourceMojos=maven-failsafe-plugin:integration-test=integration" parameter
+ * (the goal is optional), the number of permits per class is defined via
+ * "-DturboResourcePermits=integration:2,heavy:1" parameter.
+ * <p>
+ * The module permit is acquired before the first post-signal test mojo and released when the module build is
+ * completed, the mojo permit is held during the mojo execution. While waiting for a permit, the worker thread is
+ * compensated, so the pre-signal work of other modules keeps being built.
+ *
+ * @author Sergey Chernov
+ */
+final class ResourcePermits {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResourcePermits.class);
+
+    private final Map<String, Semaphore> permits;
+    // "pluginArtifactId" or "pluginArtifactId:goal" to resource class
+    private final Map<String, String> mojoClasses;
+    private final Set<String> unknownClasses = ConcurrentHashMap.newKeySet();
+
+    ResourcePermits(Map<String, Integer> permits, Map<String, String> mojoClasses) {
+        Map<String, Semaphore> semaphores = new HashMap<>();
+        permits.forEach((resourceClass, count) -> semaphores.put(resourceClass, new Semaphore(count, true)));
+        this.permits = Collections.unmodifiableMap(semaphores);
+        this.mojoClasses = Collections.unmodifiableMap(new HashMap<>(mojoClasses));
+    }
+
+    /*@Nullable*/
+    String getMojoClass(MojoExecution mojoExecution) {
+        String resourceClass = mojoClasses.get(mojoExecution.getArtifactId() + ":" + mojoExecution.getGoal());
+        return resourceClass == null ? mojoClasses.get(mojoExecution.getArtifactId()) : resourceClass;
+    }
+
+    /**
+     * Blocks until the permit of the resource class is available.
+     *
+     * @return false if the resource class has no permit limit
+     */
+    boolean acquire(String resourceClass) throws InterruptedException {
+        Semaphore semaphore = permits.get(resourceClass);
+        if (semaphore == null) {
+            if (unknownClasses.add(resourceClass)) {
+                logger.warn("Resource class '{}' is not defined in turboResourcePermits, not limited", resourceClass);
+            }
+            return false;
+        }
+        if (!semaphore.tryAcquire()) {
+            logger.debug("Waiting for resource class '{}' permit", resourceClass);
+            TurboThreadPoolExecutor.managedBlock(new ForkJoinPool.ManagedBlocker() {
+                private boolean acquired;
+
+                @Override
+                public boolean block() throws InterruptedException {
+                    if (!acquired) {
+                        semaphore.acquire();
+                        acquired = true;
+                    }
+                    return true;
+                }
+
+                @Override
+                public boolean isReleasable() {
+                    if (!acquired) {
+                        acquired = semaphore.tryAcquire();
+                    }
+                    return acquired;
+                }
+            });
+        }
+        return true;
+    }
+
+    void release(String resourceClass) {
+        permits.get(resourceClass).release();
+    }
+
+    /**
+     * @param value e.g. "integration:2,heavy:1"
+     */
+    static Map<String, Integer> parsePermits(/*@Nullable*/ String value) {
+        Map<String, Integer> permits = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry :
+                parseEntries(value, ':', "turboResourcePermits").entrySet()) {
+            int count;
+            try {
+                count = Integer.parseInt(entry.getValue());
+            } catch (NumberFormatException e) {
+                count = 0;
+            }
+            if (count < 1) {
+                throw new IllegalArgumentException("Invalid turboResourcePermits value '" + value
+                        + "', positive number of permits is expected for " + entry.getKey());
+            }
+            permits.put(entry.getKey(), count);
+        }
+        return permits;
+    }
+
+    /**
+     * @param value e.g. "maven-failsafe-plugin:integration-test=integration,exec-maven-plugin=heavy"
+     */
+    static Map<String, String> parseMojoClasses(/*@Nullable*/ String value) {
+        return parseEntries(value, '=', "turboResourceMojos");
+    }
+
+    private static Map<String, String> parseEntries(/*@Nullable*/ String value, char separator, String propertyName) {
+        Map<String, String> entries = new LinkedHashMap<>();
+        if (value == null || value.trim().isEmpty()) {
+            return entries;
+        }
+        for (String entry : value.split(",")) {
+            int index = entry.lastIndexOf(separator);
+            if (index <= 0 || index == entry.length() - 1) {
+                throw new IllegalArgumentException("Invalid " + propertyName + " value '" + value + "'");
+            }
+            entries.put(
+                    entry.substring(0, index).trim(), entry.substring(index + 1).trim());
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,261 @@
+package com.github.seregamorph.maven.turbo;
+
+import static com.github.seregamorph.maven.turbo.MavenPropertyUtils.getProperty;
+import static com.github.seregamorph.maven.turbo.MavenPropertyUtils.isTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import org.apache.maven.lifecycle.internal.ProjectSegment;
+import org.apache.maven.lifecycle.internal.TaskSegment;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Scheduling state of the project segments: each node has an atomic counter of upstream nodes which are not released
+ * yet. The thread which reaches a milestone or finishes a node decrements the counters of its downstream nodes and gets the ones
+ * which became ready to be built, no coordinator thread is involved.
+ * <p>
+ * There are two kinds of edges: the milestone edges connect a module with its downstream dependencies within the same
+ * task segment, each of them is released when the module reaches the {@link Milestone} required by the downstream
+ * module (e.g. the test-jar for a test-jar dependency). The finish edges connect the task segments, they are released
+ * when the build of the module is completed.
+ *
+ * @author Sergey Chernov
+ */
+final class ScheduleGraph {
+
+    private final ProjectSegment[] projectSegments;
+    private final int[] priorities;
+    private final int[] milestoneOffsets;
+    private final int[] milestoneTargets;
+    // required milestone ordinals of the milestone edges
+    private final int[] milestoneValues;
+    private final int[] finishOffsets;
+    private final int[] finishTargets;
+    private final AtomicIntegerArray pendingUpstreams;
+
+    /**
+     * Single task segment graph.
+     *
+     * @param graph           dependency graph of the task segment projects
+     * @param projectSegments project segments of the task segment
+     * @param priorities      priorities indexed by module id, see {@link SchedulingPriority}
+     */
+    ScheduleGraph(
+            ReactorGraph<MavenProject> graph, Map<MavenProject, ProjectSegment> projectSegments, int[] priorities) {
+        this(new Builder().addSegment(null, graph, projectSegments, priorities));
+    }
+
+    private ScheduleGraph(Builder builder) {
+        int size = builder.projectSegments.size();
+        this.projectSegments = builder.projectSegments.toArray(new ProjectSegment[0]);
+        this.priorities =
+                builder.priorities.stream().mapToInt(Integer::intValue).toArray();
+        int[] upstreamCounts = new int[size];
+        this.milestoneOffsets = new int[size + 1];
+        this.milestoneValues = new int[builder.milestoneEdges.size];
+        this.milestoneTargets = toCsr(builder.milestoneEdges, milestoneOffsets, milestoneValues, upstreamCounts);
+        this.finishOffsets = new int[size + 1];
+        this.finishTargets =
+                toCsr(builder.finishEdges, finishOffsets, new int[builder.finishEdges.size], upstreamCounts);
+        this.pendingUpstreams = new AtomicIntegerArray(upstreamCounts);
+    }
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    int size() {
+        return projectSegments.length;
+    }
+
+    ProjectSegment projectSegment(int id) {
+        return projectSegments[id];
+    }
+
+    int priority(int id) {
+        return priorities[id];
+    }
+
+    /**
+     * @return ids of the nodes without upstream nodes sorted by descending priority
+     */
+    int[] roots() {
+        int[] roots = new int[size()];
+        int count = 0;
+        for (int id = 0; id < size(); id++) {
+            if (pendingUpstreams.get(id) == 0) {
+                roots[count++] = id;
+            }
+        }
+        return sortByPriority(roots, count);
+    }
+
+    /**
+     * Releases the milestone edges of the node requiring the milestone. Should be called once per node and milestone.
+     *
+     * @return ids of downstream nodes which became ready to be built sorted by descending priority
+     */
+    int[] releaseMilestone(int id, Milestone milestone) {
+        int from = milestoneOffsets[id];
+        int to = milestoneOffsets[id + 1];
+        int[] ready = new int[to - from];
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (milestoneValues[i] == milestone.ordinal()) {
+                count = release(milestoneTargets[i], ready, count);
+            }
+        }
+        return sortByPriority(ready, count);
+    }
+
+    /**
+     * Releases the finish edges of the node. Should be called once per node after all milestones are released.
+     *
+     * @return ids of downstream nodes which became ready to be built sorted by descending priority
+     */
+    int[] releaseFinished(int id) {
+        int from = finishOffsets[id];
+        int to = finishOffsets[id + 1];
+        int[] ready = new int[to - from];
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            count = release(finishTargets[i], ready, count);
+        }
+        return sortByPriority(ready, count);
+    }
+
+    private int release(int downstreamId, int[] ready, int count) {
+        if (pendingUpstreams.decrementAndGet(downstreamId) == 0) {
+            ready[count++] = downstreamId;
+        }
+        return count;
+    }
+
+    private int[] sortByPriority(int[] ids, int count) {
+        int[] sorted = count == ids.length ? ids : Arrays.copyOf(ids, count);
+        // usually there are just a few ready modules, so insertion sort is enough
+        for (int i = 1; i < count; i++) {
+            int id = sorted[i];
+            int j = i - 1;
+            while (j >= 0 && priorities[sorted[j]] < priorities[id]) {
+                sorted[j + 1] = sorted[j];
+                j--;
+            }
+            sorted[j + 1] = id;
+        }
+        return sorted;
+    }
+
+    /**
+     * Converts the edges (source id, target id and value) to the compressed sparse row format.
+     *
+     * @param values filled with the edge values in the order of the returned targets
+     */
+    private static int[] toCsr(Edges edges, int[] offsets, int[] values, int[] upstreamCounts) {
+        for (int i = 0; i < edges.size; i++) {
+            offsets[edges.first[i] + 1]++;
+            upstreamCounts[edges.second[i]]++;
+        }
+        for (int id = 0; id < offsets.length - 1; id++) {
+            offsets[id + 1] += offsets[id];
+        }
+        int[] targets = new int[edges.size];
+        int[] positions = Arrays.copyOf(offsets, offsets.length - 1);
+        for (int i = 0; i < edges.size; i++) {
+            int position = positions[edges.first[i]]++;
+            targets[position] = edges.second[i];
+            values[position] = edges.third[i];
+        }
+        return targets;
+    }
+
+    /**
+     * Builds the graph of task segments executed in the given order. A module starts the task segment as soon as its
+     * upstream dependencies have reached the required milestones within this task segment and the module has finished
+     * the previous task segment. Aggregating task segments are full barriers: they start after all modules have finished the previous
+     * task segment and the next task segment starts after the aggregating one is finished.
+     */
+    static final class Builder {
+
+        private final List<ProjectSegment> projectSegments = new ArrayList<>();
+        private final List<Integer> priorities = new ArrayList<>();
+        private final Edges milestoneEdges = new Edges();
+        private final Edges finishEdges = new Edges();
+
+        // node ids of the previous task segment by project
+        private Map<MavenProject, Integer> previousIds = new HashMap<>();
+        private boolean previousAggregating;
+
+        private Builder() {}
+
+        /**
+         * @param taskSegment     task segment or null for a single task segment graph
+         * @param graph           dependency graph of the task segment projects
+         * @param projectSegments project segments of the task segment
+         * @param priorities      priorities indexed by module id, see {@link SchedulingPriority}
+         */
+        Builder addSegment(
+                /*@Nullable*/ TaskSegment taskSegment,
+                ReactorGraph<MavenProject> graph,
+                Map<MavenProject, ProjectSegment> projectSegments,
+                int[] priorities) {
+            int firstId = this.projectSegments.size();
+            boolean aggregating = taskSegment != null && taskSegment.isAggregating();
+            Map<MavenProject, Integer> ids = new HashMap<>();
+            for (int id = 0; id < graph.size(); id++) {
+                MavenProject project = graph.node(id);
+                int nodeId = firstId + id;
+                this.projectSegments.add(projectSegments.get(project));
+                this.priorities.add(priorities[id]);
+                ids.put(project, nodeId);
+                ProjectSegment projectSegment = projectSegments.get(project);
+                boolean classesSufficient =
+                        isTrue(getProperty(projectSegment.getSession(), project, "turboSignalAfterClasses"));
+                for (int i = 0; i < graph.downstreamCount(id); i++) {
+                    int downstreamId = graph.downstream(id, i);
+                    Milestone milestone = Milestone.required(project, graph.node(downstreamId), classesSufficient);
+                    milestoneEdges.add(nodeId, firstId + downstreamId, milestone.ordinal());
+                }
+
+                Integer previousId = previousIds.get(project);
+                if (aggregating || previousAggregating || previousId == null) {
+                    for (int previousNodeId : previousIds.values()) {
+                        finishEdges.add(previousNodeId, nodeId, 0);
+                    }
+                } else {
+                    finishEdges.add(previousId, nodeId, 0);
+                }
+            }
+            this.previousIds = ids;
+            this.previousAggregating = aggregating;
+            return this;
+        }
+
+        ScheduleGraph build() {
+            return new ScheduleGraph(this);
+        }
+    }
+
+    private static final class Edges {
+        private int[] first = new int[16];
+        private int[] second = new int[16];
+        private int[] third = new int[16];
+        private int size;
+
+        void add(int source, int target, int value) {
+            if (size == first.length) {
+                first = Arrays.copyOf(first, size * 2);
+                second = Arrays.copyOf(second, size * 2);
+                third = Arrays.copyOf(third, size * 2);
+            }
+            first[size] = source;
+            second[size] = target;
+            third[size] = value;
+            size++;
+        }
+    }
+}
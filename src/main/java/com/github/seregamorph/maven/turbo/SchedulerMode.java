@@ -0,0 +1,45 @@
+package com.github.seregamorph.maven.turbo;
+
+/**
+ * Defines how the modules are dispatched to the worker threads. Configured via "-DturboScheduler=..." parameter.
+ *
+ * @author Sergey Chernov
+ */
+public enum SchedulerMode {
+
+    /**
+     * Shared priority queue of the thread pool, the builder thread takes signaled modules and schedules their
+     * downstream dependencies (default).
+     */
+    PRIORITY_QUEUE("priority-queue"),
+
+    /**
+     * Work-stealing pool with a deque per worker, the worker thread which signals a module schedules its ready
+     * downstream dependencies itself.
+     */
+    WORK_STEALING("work-stealing");
+
+    private final String propertyValue;
+
+    SchedulerMode(String propertyValue) {
+        this.propertyValue = propertyValue;
+    }
+
+    static SchedulerMode fromProperty(/*@Nullable*/ String value) {
+        if (value == null || value.isEmpty()) {
+            return PRIORITY_QUEUE;
+        }
+        for (SchedulerMode mode : values()) {
+            if (mode.propertyValue.equals(value)) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("Unknown turboScheduler value '" + value + "', supported values are: "
+                + PRIORITY_QUEUE.propertyValue + ", " + WORK_STEALING.propertyValue);
+    }
+
+    @Override
+    public String toString() {
+        return propertyValue;
+    }
+}
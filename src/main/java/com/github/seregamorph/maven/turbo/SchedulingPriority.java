@@ -0,0 +1,128 @@
+package com.github.seregamorph.maven.turbo;
+
+import java.util.BitSet;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Defines the order in which modules ready to be built are taken by the worker threads: the module with the higher
+ * priority is started first. Configured via "-DturboPriority=..." parameter. Priorities are calculated once per task
+ * segment.
+ *
+ * @author Sergey Chernov
+ */
+public enum SchedulingPriority {
+
+    /**
+     * Number of direct downstream dependencies.
+     */
+    DIRECT("direct") {
+        @Override
+        int[] priorities(ReactorGraph<?> graph, long[] preSignalMillis, long[] postSignalMillis) {
+            int[] priorities = new int[graph.size()];
+            for (int id = 0; id < priorities.length; id++) {
+                priorities[id] = graph.downstreamCount(id);
+            }
+            return priorities;
+        }
+    },
+
+    /**
+     * Number of direct and transitive downstream dependencies, i.e. how much of the reactor is unblocked by the
+     * module (default).
+     */
+    TRANSITIVE("transitive") {
+        @Override
+        int[] priorities(ReactorGraph<?> graph, long[] preSignalMillis, long[] postSignalMillis) {
+            int size = graph.size();
+            int[] priorities = new int[size];
+            BitSet[] reachable = new BitSet[size];
+            // downstream dependencies have bigger ids, so they are calculated first
+            for (int id = size - 1; id >= 0; id--) {
+                BitSet moduleReachable = new BitSet(size);
+                for (int i = 0; i < graph.downstreamCount(id); i++) {
+                    int downstreamId = graph.downstream(id, i);
+                    moduleReachable.set(downstreamId);
+                    moduleReachable.or(reachable[downstreamId]);
+                }
+                reachable[id] = moduleReachable;
+                priorities[id] = moduleReachable.cardinality();
+            }
+            return priorities;
+        }
+    },
+
+    /**
+     * Length of the longest chain of module builds starting with the module. As downstream dependencies are scheduled
+     * after the signal of the module, the chain length is estimated as the pre-signal duration of the module plus
+     * the maximum of its post-signal duration and the chain lengths of direct downstream dependencies.
+     */
+    CRITICAL_PATH("critical-path") {
+        @Override
+        int[] priorities(ReactorGraph<?> graph, long[] preSignalMillis, long[] postSignalMillis) {
+            long[] weights = criticalPathWeights(graph, preSignalMillis, postSignalMillis);
+            int[] priorities = new int[weights.length];
+            for (int id = 0; id < weights.length; id++) {
+                priorities[id] = (int) Math.min(weights[id], Integer.MAX_VALUE);
+            }
+            return priorities;
+        }
+    };
+
+    private final String propertyValue;
+
+    SchedulingPriority(String propertyValue) {
+        this.propertyValue = propertyValue;
+    }
+
+    /**
+     * Calculates priorities of the modules. The higher value means the module should be scheduled earlier.
+     *
+     * @param graph            dependency graph of the modules
+     * @param preSignalMillis  estimated pre-signal build durations indexed by module id
+     * @param postSignalMillis estimated post-signal build durations indexed by module id
+     * @return priorities indexed by module id
+     */
+    abstract int[] priorities(ReactorGraph<?> graph, long[] preSignalMillis, long[] postSignalMillis);
+
+    int[] priorities(ReactorGraph<MavenProject> graph, ModuleDurations durations) {
+        long[] preSignalMillis = new long[graph.size()];
+        long[] postSignalMillis = new long[graph.size()];
+        for (int id = 0; id < graph.size(); id++) {
+            MavenProject project = graph.node(id);
+            preSignalMillis[id] = durations.preSignalMillis(project);
+            postSignalMillis[id] = durations.postSignalMillis(project);
+        }
+        return priorities(graph, preSignalMillis, postSignalMillis);
+    }
+
+    static SchedulingPriority fromProperty(/*@Nullable*/ String value) {
+        if (value == null || value.isEmpty()) {
+            return TRANSITIVE;
+        }
+        for (SchedulingPriority priority : values()) {
+            if (priority.propertyValue.equals(value)) {
+                return priority;
+            }
+        }
+        throw new IllegalArgumentException("Unknown turboPriority value '" + value + "', supported values are: "
+                + DIRECT.propertyValue + ", " + TRANSITIVE.propertyValue + ", " + CRITICAL_PATH.propertyValue);
+    }
+
+    static long[] criticalPathWeights(ReactorGraph<?> graph, long[] preSignalMillis, long[] postSignalMillis) {
+        long[] weights = new long[graph.size()];
+        // downstream dependencies have bigger ids, so they are calculated first
+        for (int id = weights.length - 1; id >= 0; id--) {
+            long downstreamWeight = postSignalMillis[id];
+            for (int i = 0; i < graph.downstreamCount(id); i++) {
+                downstreamWeight = Math.max(downstreamWeight, weights[graph.downstream(id, i)]);
+            }
+            weights[id] = preSignalMillis[id] + downstreamWeight;
+        }
+        return weights;
+    }
+
+    @Override
+    public String toString() {
+        return propertyValue;
+    }
+}
@@ -0,0 +1,35 @@
+package com.github.seregamorph.maven.turbo;
+
+import org.apache.maven.execution.MavenSession;
+import org.eclipse.aether.RepositorySystemSession;
+
+/**
+ * Shares the state of the build between the components having different lifecycle (e.g. singleton
+ * {@link TurboBuilder} and session scoped {@link TurboMavenLifecycleParticipant}) via the session data.
+ *
+ * @author Sergey Chernov
+ */
+final class SessionDataUtils {
+
+    /*@Nullable*/
+    static <T> T get(MavenSession session, Class<T> type) {
+        RepositorySystemSession repositorySession = session.getRepositorySession();
+        if (repositorySession == null) {
+            return null;
+        }
+        return type.cast(repositorySession.getData().get(key(type)));
+    }
+
+    static <T> void set(MavenSession session, Class<T> type, /*@Nullable*/ T value) {
+        RepositorySystemSession repositorySession = session.getRepositorySession();
+        if (repositorySession != null) {
+            repositorySession.getData().set(key(type), value);
+        }
+    }
+
+    private static String key(Class<?> type) {
+        return type.getName();
+    }
+
+    private SessionDataUtils() {}
+}
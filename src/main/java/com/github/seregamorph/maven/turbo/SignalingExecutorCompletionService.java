@@ -1,5 +1,6 @@
 package com.github.seregamorph.maven.turbo;
 
+import java.util.EnumSet;
 import java.util.Objects;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
@@ -8,6 +9,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
 import org.apache.maven.project.MavenProject;
 import org.slf4j.Logger;
@@ -21,13 +23,39 @@ class SignalingExecutorCompletionService {
     private static final Logger logger = LoggerFactory.getLogger(SignalingExecutorCompletionService.class);
 
     static final ThreadLocal<Consumer<MavenProject>> currentSignaler = new ThreadLocal<>();
+    static final ThreadLocal<Consumer<Milestone>> currentMilestones = new ThreadLocal<>();
 
     private final ExecutorService executor;
-    private final BlockingQueue<Try<MavenProject>> signaledQueue;
+    private final BlockingQueue<Try<ReachedMilestone>> milestoneQueue = new LinkedBlockingQueue<>();
+    private final SignalListener listener;
 
-    SignalingExecutorCompletionService(ExecutorService executor) {
+    private SignalingExecutorCompletionService(ExecutorService executor) {
         this.executor = Objects.requireNonNull(executor);
-        this.signaledQueue = new LinkedBlockingQueue<>();
+        this.listener = new SignalListener() {
+            @Override
+            public void signaled(MavenProject project) {}
+
+            @Override
+            public void milestoneReached(MavenProject project, Milestone milestone) {
+                milestoneQueue.add(Try.success(new ReachedMilestone(project, milestone)));
+            }
+
+            @Override
+            public void finished(MavenProject project, /*@Nullable*/ Throwable failure) {
+                if (failure != null) {
+                    milestoneQueue.add(Try.failure(failure));
+                }
+            }
+        };
+    }
+
+    /**
+     * Creates the service collecting the reached milestones of the projects in a queue, which is consumed via
+     * {@link #takeMilestone()}, so the downstream dependencies are released per dependency edge, see
+     * {@link ScheduleGraph#releaseMilestone}.
+     */
+    static SignalingExecutorCompletionService withMilestones(ExecutorService executor) {
+        return new SignalingExecutorCompletionService(executor);
     }
 
     /**
@@ -41,12 +69,59 @@ class SignalingExecutorCompletionService {
         if (signaler == null) {
             throw new IllegalStateException("Current thread does not have a signaler");
         }
+        CurrentProjectExecution.ifPresent(execution -> {
+            if (execution.timing != null) {
+                execution.timing.signaled();
+            }
+            execution.events.moduleSignaled(project);
+        });
         signaler.accept(project);
     }
 
-    Future<MavenProject> submit(int order, Callable<MavenProject> buildCallable) {
+    /**
+     * Notify scheduler that the current project has reached the milestone, so the downstream dependencies waiting for
+     * it can be scheduled. Ignored if the scheduler does not track milestones.
+     *
+     * @param milestone reached milestone, the implied milestones should be reported before
+     */
+    static void milestone(Milestone milestone) {
+        Consumer<Milestone> milestones = currentMilestones.get();
+        if (milestones != null) {
+            milestones.accept(milestone);
+        }
+    }
+
+    Future<MavenProject> submit(int order, MavenProject project, Callable<MavenProject> buildCallable) {
+        return submit(executor, order, project, buildCallable, listener);
+    }
+
+    /**
+     * Submits the build callable ordered after all other pending tasks. The build is skipped without notifications if
+     * the condition is false when a worker thread takes the task, see {@link EarlyStart}.
+     */
+    Future<MavenProject> submitYielded(
+            int order, MavenProject project, BooleanSupplier condition, Callable<MavenProject> buildCallable) {
+        Callable<MavenProject> signalingCallable = signalingCallable(project, buildCallable, listener);
+        return executor.submit(
+                new OrderedCallable<>(true, order, () -> condition.getAsBoolean() ? signalingCallable.call() : null));
+    }
+
+    /**
+     * Submits the build callable notifying the listener directly from the worker thread.
+     */
+    static Future<MavenProject> submit(
+            ExecutorService executor,
+            int order,
+            MavenProject project,
+            Callable<MavenProject> buildCallable,
+            SignalListener listener) {
+        return executor.submit(new OrderedCallable<>(order, signalingCallable(project, buildCallable, listener)));
+    }
+
+    private static Callable<MavenProject> signalingCallable(
+            MavenProject project, Callable<MavenProject> buildCallable, SignalListener listener) {
         Objects.requireNonNull(buildCallable);
-        return executor.submit(new OrderedCallable<>(order, () -> {
+        return () -> {
             AtomicBoolean signaled = new AtomicBoolean(false);
             currentSignaler.set(mavenProject -> {
                 // No race condition here with "if (!signaled.get())" block, because it's the same thread.
@@ -56,16 +131,27 @@ class SignalingExecutorCompletionService {
                     throw new IllegalStateException("Current thread has already been signaled");
                 }
                 logger.debug("Project {} signaled to be ready for building its downstream dependencies", mavenProject);
-                signaledQueue.add(Try.success(mavenProject));
+                listener.signaled(mavenProject);
+            });
+            EnumSet<Milestone> reachedMilestones = EnumSet.noneOf(Milestone.class);
+            currentMilestones.set(milestone -> {
+                if (reachedMilestones.add(milestone)) {
+                    logger.debug("Project {} reached milestone {}", project, milestone);
+                    listener.milestoneReached(project, milestone);
+                }
             });
             try {
                 MavenProject result = buildCallable.call();
                 if (!signaled.get()) {
-                    signaledQueue.add(Try.success(result));
+                    listener.signaled(result);
                 }
+                for (Milestone milestone : EnumSet.complementOf(reachedMilestones)) {
+                    listener.milestoneReached(project, milestone);
+                }
+                listener.finished(project, null);
                 return result;
             } catch (Throwable e) {
-                signaledQueue.add(Try.failure(e));
+                listener.finished(project, e);
                 if (e instanceof Exception) {
                     throw e;
                 } else {
@@ -73,15 +159,54 @@ class SignalingExecutorCompletionService {
                 }
             } finally {
                 currentSignaler.remove();
+                currentMilestones.remove();
             }
-        }));
+        };
     }
 
-    MavenProject takeSignaled() throws InterruptedException, ExecutionException {
-        Try<MavenProject> t = signaledQueue.take();
+    /**
+     * Takes the next reached milestone, waiting if none are yet present.
+     *
+     * @throws ExecutionException if a submitted build failed
+     */
+    ReachedMilestone takeMilestone() throws InterruptedException, ExecutionException {
+        Try<ReachedMilestone> t = milestoneQueue.take();
         return t.get();
     }
 
+    static final class ReachedMilestone {
+        final MavenProject project;
+        final Milestone milestone;
+
+        ReachedMilestone(MavenProject project, Milestone milestone) {
+            this.project = project;
+            this.milestone = milestone;
+        }
+    }
+
+    /**
+     * Receives the events of the submitted builds, methods are called from the worker threads.
+     */
+    interface SignalListener {
+
+        /**
+         * The project is ready for building its downstream dependencies: it was signaled explicitly or, if not, the
+         * build of the project is completed.
+         */
+        void signaled(MavenProject project);
+
+        /**
+         * The project has reached the milestone. Each milestone is reported once, the milestones which were not
+         * reached explicitly are reported when the build of the project is successfully completed.
+         */
+        default void milestoneReached(MavenProject project, Milestone milestone) {}
+
+        /**
+         * The build of the project is completed (after the signal), successfully or not.
+         */
+        void finished(MavenProject project, /*@Nullable*/ Throwable failure);
+    }
+
     private abstract static class Try<T> {
         abstract T get() throws ExecutionException;
 
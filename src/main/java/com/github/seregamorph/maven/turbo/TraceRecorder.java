@@ -0,0 +1,210 @@
+package com.github.seregamorph.maven.turbo;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Records the build timeline and writes it in the Chrome Trace Event format, which can be opened in
+ * <a href="https://ui.perfetto.dev">Perfetto</a> or chrome://tracing. Enabled via "-DturboTrace" parameter.
+ * <p>
+ * Each worker thread writes the events to its own preallocated ring buffer, so the recording does not allocate and
+ * does not synchronize: only the timestamp, the event kind and the reference to the project or mojo execution are
+ * stored, the names are resolved on export. If the buffer is full, the oldest events are overwritten.
+ *
+ * @author Sergey Chernov
+ */
+final class TraceRecorder implements BuildEventListener {
+
+    static final int DEFAULT_BUFFER_SIZE = 16384;
+
+    private static final byte QUEUE_BEGIN = 1;
+    private static final byte QUEUE_END = 2;
+    private static final byte MODULE_BEGIN = 3;
+    private static final byte MODULE_END = 4;
+    private static final byte LIFECYCLE = 5;
+    private static final byte SIGNAL = 6;
+    private static final byte MOJO_BEGIN = 7;
+    private static final byte MOJO_END = 8;
+
+    private final long startNanos = System.nanoTime();
+    private final int bufferSize;
+    private final AtomicInteger threadCounter = new AtomicInteger();
+    private final Queue<ThreadBuffer> buffers = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<ThreadBuffer> currentBuffer = new ThreadLocal<>();
+
+    TraceRecorder(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    public void moduleStarted(MavenProject project, long queuedNanos) {
+        ThreadBuffer buffer = buffer();
+        buffer.add(QUEUE_BEGIN, queuedNanos, project);
+        long nanos = System.nanoTime();
+        buffer.add(QUEUE_END, nanos, project);
+        buffer.add(MODULE_BEGIN, nanos, project);
+    }
+
+    @Override
+    public void moduleLifecycleStarted(MavenProject project) {
+        buffer().add(LIFECYCLE, System.nanoTime(), project);
+    }
+
+    @Override
+    public void moduleSignaled(MavenProject project) {
+        buffer().add(SIGNAL, System.nanoTime(), project);
+    }
+
+    @Override
+    public void moduleFinished(MavenProject project, boolean success) {
+        buffer().add(MODULE_END, System.nanoTime(), project);
+    }
+
+    @Override
+    public void mojoStarted(MojoExecution mojoExecution) {
+        buffer().add(MOJO_BEGIN, System.nanoTime(), mojoExecution);
+    }
+
+    @Override
+    public void mojoFinished(MojoExecution mojoExecution, boolean success) {
+        buffer().add(MOJO_END, System.nanoTime(), mojoExecution);
+    }
+
+    private ThreadBuffer buffer() {
+        ThreadBuffer buffer = currentBuffer.get();
+        if (buffer == null) {
+            // thread names of workers are changed during the module build, so it's called before
+            buffer = new ThreadBuffer(
+                    threadCounter.incrementAndGet(), Thread.currentThread().getName(), bufferSize);
+            currentBuffer.set(buffer);
+            buffers.add(buffer);
+        }
+        return buffer;
+    }
+
+    /**
+     * Should be called after the build is completed.
+     *
+     * @return number of overwritten events
+     */
+    long write(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        long dropped = 0L;
+        try (Writer writer = new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            writer.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[\n");
+            writer.write("{\"ph\":\"M\",\"pid\":1,\"name\":\"process_name\",\"args\":{\"name\":\"Maven\"}}");
+            int queueId = 0;
+            for (ThreadBuffer buffer : buffers) {
+                dropped += buffer.dropped();
+                writer.write(",\n{\"ph\":\"M\",\"pid\":1,\"tid\":" + buffer.tid
+                        + ",\"name\":\"thread_name\",\"args\":{\"name\":\"" + JsonUtils.escape(buffer.threadName)
+                        + "\"}}");
+                List<Integer> indexes = buffer.indexes();
+                for (int index : indexes) {
+                    byte kind = buffer.kinds[index];
+                    long micros = (buffer.nanos[index] - startNanos) / 1000L;
+                    Object subject = buffer.subjects[index];
+                    String common = ",\"pid\":1,\"tid\":" + buffer.tid + ",\"ts\":" + micros;
+                    switch (kind) {
+                        case QUEUE_BEGIN:
+                            queueId++;
+                            writer.write(",\n{\"ph\":\"b\",\"cat\":\"queue\",\"id\":" + queueId + ",\"name\":\""
+                                    + name(subject) + "\"" + common + "}");
+                            break;
+                        case QUEUE_END:
+                            writer.write(",\n{\"ph\":\"e\",\"cat\":\"queue\",\"id\":" + queueId + ",\"name\":\""
+                                    + name(subject) + "\"" + common + "}");
+                            break;
+                        case MODULE_BEGIN:
+                            writer.write(",\n{\"ph\":\"B\",\"cat\":\"module\",\"name\":\"" + name(subject) + "\""
+                                    + common + "}");
+                            break;
+                        case MODULE_END:
+                        case MOJO_END:
+                            writer.write(",\n{\"ph\":\"E\"" + common + "}");
+                            break;
+                        case LIFECYCLE:
+                            writer.write(",\n{\"ph\":\"i\",\"s\":\"t\",\"cat\":\"module\",\"name\":\"lifecycle "
+                                    + name(subject) + "\"" + common + "}");
+                            break;
+                        case SIGNAL:
+                            writer.write(",\n{\"ph\":\"i\",\"s\":\"t\",\"cat\":\"module\",\"name\":\"signal "
+                                    + name(subject) + "\"" + common + "}");
+                            break;
+                        case MOJO_BEGIN:
+                            writer.write(",\n{\"ph\":\"B\",\"cat\":\"mojo\",\"name\":\"" + name(subject) + "\"" + common
+                                    + "}");
+                            break;
+                        default:
+                            throw new IllegalStateException("Unexpected event kind " + kind);
+                    }
+                }
+            }
+            writer.write("\n]}\n");
+        }
+        return dropped;
+    }
+
+    private static String name(Object subject) {
+        if (subject instanceof MavenProject) {
+            return JsonUtils.escape(((MavenProject) subject).getArtifactId());
+        }
+        MojoExecution mojoExecution = (MojoExecution) subject;
+        return JsonUtils.escape(mojoExecution.getArtifactId() + ":" + mojoExecution.getGoal() + " ("
+                + mojoExecution.getExecutionId() + ")");
+    }
+
+    private static final class ThreadBuffer {
+        final int tid;
+        final String threadName;
+        final long[] nanos;
+        final byte[] kinds;
+        final Object[] subjects;
+        // total number of added events
+        long count;
+
+        ThreadBuffer(int tid, String threadName, int size) {
+            this.tid = tid;
+            this.threadName = threadName;
+            this.nanos = new long[size];
+            this.kinds = new byte[size];
+            this.subjects = new Object[size];
+        }
+
+        void add(byte kind, long eventNanos, Object subject) {
+            int index = (int) (count % nanos.length);
+            nanos[index] = eventNanos;
+            kinds[index] = kind;
+            subjects[index] = subject;
+            count++;
+        }
+
+        long dropped() {
+            return Math.max(0L, count - nanos.length);
+        }
+
+        /**
+         * @return indexes of the events from the oldest to the newest
+         */
+        List<Integer> indexes() {
+            int size = (int) Math.min(count, nanos.length);
+            List<Integer> indexes = new ArrayList<>(size);
+            long first = count - size;
+            for (long i = first; i < count; i++) {
+                indexes.add((int) (i % nanos.length));
+            }
+            return indexes;
+        }
+    }
+}
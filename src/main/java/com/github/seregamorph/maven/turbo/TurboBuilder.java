@@ -1,26 +1,33 @@
 package com.github.seregamorph.maven.turbo;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.Future;
-import java.util.concurrent.PriorityBlockingQueue;
-import java.util.concurrent.RunnableFuture;
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
+import org.apache.maven.execution.BuildFailure;
+import org.apache.maven.execution.BuildSuccess;
+import org.apache.maven.execution.MavenExecutionRequest;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.lifecycle.DefaultLifecycles;
 import org.apache.maven.lifecycle.Lifecycle;
-import org.apache.maven.lifecycle.internal.BuildThreadFactory;
 import org.apache.maven.lifecycle.internal.LifecycleModuleBuilder;
 import org.apache.maven.lifecycle.internal.ProjectBuildList;
 import org.apache.maven.lifecycle.internal.ProjectSegment;
@@ -28,8 +35,13 @@ import org.apache.maven.lifecycle.internal.ReactorBuildStatus;
 import org.apache.maven.lifecycle.internal.ReactorContext;
 import org.apache.maven.lifecycle.internal.TaskSegment;
 import org.apache.maven.lifecycle.internal.builder.Builder;
-import org.apache.maven.lifecycle.internal.builder.multithreaded.ConcurrencyDependencyGraph;
+import org.apache.maven.plugin.MojosExecutionStrategy;
 import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.MavenProjectHelper;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.installation.InstallRequest;
+import org.eclipse.aether.repository.LocalRepositoryManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -53,11 +65,22 @@ public class TurboBuilder implements Builder {
 
     private final DefaultLifecycles defaultLifeCycles;
     private final LifecycleModuleBuilder lifecycleModuleBuilder;
+    private final RepositorySystem repositorySystem;
+    private final MojosExecutionStrategy mojosExecutionStrategy;
+    private final MavenProjectHelper projectHelper;
 
     @Inject
-    public TurboBuilder(DefaultLifecycles defaultLifeCycles, LifecycleModuleBuilder lifecycleModuleBuilder) {
+    public TurboBuilder(
+            DefaultLifecycles defaultLifeCycles,
+            LifecycleModuleBuilder lifecycleModuleBuilder,
+            RepositorySystem repositorySystem,
+            MojosExecutionStrategy mojosExecutionStrategy,
+            MavenProjectHelper projectHelper) {
         this.defaultLifeCycles = defaultLifeCycles;
         this.lifecycleModuleBuilder = lifecycleModuleBuilder;
+        this.repositorySystem = repositorySystem;
+        this.mojosExecutionStrategy = mojosExecutionStrategy;
+        this.projectHelper = projectHelper;
     }
 
     /**
@@ -118,108 +141,455 @@ public class TurboBuilder implements Builder {
             ProjectBuildList projectBuilds,
             List<TaskSegment> taskSegments)
             throws InterruptedException {
-        int nThreads = Math.min(
-                session.getRequest().getDegreeOfConcurrency(),
-                session.getProjects().size());
-        logger.info(
-                "TurboBuilder will use {} threads to build {} modules",
-                nThreads,
-                session.getProjects().size());
+        TurboBuilderConfig config = TurboBuilderConfig.fromSession(session);
+        // parsed once per build, used by CurrentProjectExecution and TurboProjectExecutionListener per module
+        SessionDataUtils.set(session, TurboBuilderConfig.class, config);
+        int degreeOfConcurrency = session.getRequest().getDegreeOfConcurrency();
+        if (config.isAdaptive()) {
+            degreeOfConcurrency = config.getAdaptiveMax(degreeOfConcurrency);
+        }
+        int nThreads = Math.min(degreeOfConcurrency, session.getProjects().size());
+        /*@Nullable*/ AdaptiveConcurrency adaptiveConcurrency = null;
+        if (config.isAdaptive() && nThreads > 1) {
+            int minThreads = Math.min(config.getAdaptiveMin(), nThreads);
+            logger.info(
+                    "TurboBuilder will use {}-{} threads (adaptive) to build {} modules",
+                    minThreads,
+                    nThreads,
+                    session.getProjects().size());
+            adaptiveConcurrency = new AdaptiveConcurrency(minThreads, nThreads);
+            // used by CurrentProjectExecution to give the permit back while the module build is yielded
+            SessionDataUtils.set(session, ConcurrencyLimiter.class, adaptiveConcurrency.getLimiter());
+        } else {
+            logger.info(
+                    "TurboBuilder will use {} threads to build {} modules",
+                    nThreads,
+                    session.getProjects().size());
+        }
         boolean parallel = nThreads > 1;
         // Propagate the parallel flag to the root session and all of the cloned sessions in each project segment
         session.setParallel(parallel);
         for (ProjectSegment segment : projectBuilds) {
             segment.getSession().setParallel(parallel);
         }
-        // executor supporting task ordering, prioritize building modules that have more downstream dependencies
-        ExecutorService executor =
-                new ThreadPoolExecutor(
-                        nThreads,
-                        nThreads,
-                        0L,
-                        TimeUnit.MILLISECONDS,
-                        new PriorityBlockingQueue<>(),
-                        new BuildThreadFactory()) {
-                    @Override
-                    protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
-                        return new OrderedFutureTask<>((OrderedCallable<T>) callable);
-                    }
-                };
-        SignalingExecutorCompletionService service = new SignalingExecutorCompletionService(executor);
+        logger.debug(
+                "TurboBuilder scheduler: {}, scheduling priority: {}", config.getScheduler(), config.getPriority());
+        ExecutorService executor = config.getScheduler() == SchedulerMode.WORK_STEALING
+                ? newWorkStealingExecutor(nThreads)
+                : new TurboThreadPoolExecutor(nThreads);
+        ModuleDurations durations = SessionDataUtils.get(session, BuildTimingHistory.class);
+        if (durations == null) {
+            durations = ModuleDurations.UNIFORM;
+        }
+        /*@Nullable*/ BuildTimingRecorder recorder = null;
+        if (config.isTimingStore()) {
+            // saved by TurboMavenLifecycleParticipant at the end of the session
+            recorder = new BuildTimingRecorder();
+            SessionDataUtils.set(session, BuildTimingRecorder.class, recorder);
+        }
+        if (!config.getResourcePermits().isEmpty()) {
+            // used by CurrentProjectExecution
+            SessionDataUtils.set(
+                    session,
+                    ResourcePermits.class,
+                    new ResourcePermits(config.getResourcePermits(), config.getResourceMojos()));
+        }
+        List<BuildEventListener> eventListeners = new ArrayList<>();
+        if (config.isTrace()) {
+            // written by TurboMavenLifecycleParticipant at the end of the session
+            TraceRecorder traceRecorder = new TraceRecorder(config.getTraceBufferSize());
+            SessionDataUtils.set(session, TraceRecorder.class, traceRecorder);
+            eventListeners.add(traceRecorder);
+        }
+        /*@Nullable*/ BuildMetricsRecorder metricsRecorder = null;
+        if (config.isMetrics()) {
+            // reported by TurboMavenLifecycleParticipant at the end of the session
+            metricsRecorder = new BuildMetricsRecorder(nThreads);
+            SessionDataUtils.set(session, BuildMetricsRecorder.class, metricsRecorder);
+            eventListeners.add(metricsRecorder);
+        }
+        /*@Nullable*/ FailurePropagation failurePropagation = null;
+        if (config.getFailurePolicy() != FailurePolicy.NONE) {
+            // used by CurrentProjectExecution
+            failurePropagation = new FailurePropagation(
+                    config.getFailurePolicy(),
+                    MavenExecutionRequest.REACTOR_FAIL_FAST.equals(
+                            session.getRequest().getReactorFailureBehavior()),
+                    project -> session.getProjectDependencyGraph().getDownstreamProjects(project, true));
+            SessionDataUtils.set(session, FailurePropagation.class, failurePropagation);
+        }
+        /*@Nullable*/ DeferredInstall deferredInstall = null;
+        if (config.isDeferInstall() || config.getDeployRepository() != null) {
+            // used by TurboMojosExecutionStrategy
+            deferredInstall = new DeferredInstall(
+                    config.isDeferInstall(),
+                    config.getDeployRepository() == null ? null : Paths.get(config.getDeployRepository()));
+            SessionDataUtils.set(session, DeferredInstall.class, deferredInstall);
+        }
+        BuildContext context = new BuildContext(
+                session,
+                reactorContext,
+                recorder,
+                adaptiveConcurrency == null ? null : adaptiveConcurrency.getLimiter(),
+                failurePropagation,
+                config.getAffectedSince() == null ? null : affectedProjects(session, config.getAffectedSince()),
+                config.isUpToDate() || config.getBuildCache() != null ? moduleFingerprints(session) : null,
+                config.isUpToDate() && isUpToDateApplicable(session),
+                config.getBuildCache() == null ? null : buildCache(session, config),
+                BuildEventListener.composite(eventListeners));
+        boolean earlyStart = config.isEarlyStart() && isEarlyStartApplicable(config, context, nThreads);
 
-        for (TaskSegment taskSegment : taskSegments) {
-            ProjectBuildList segmentProjectBuilds = projectBuilds.getByTaskSegment(taskSegment);
-            Map<MavenProject, ProjectSegment> projectBuildMap = projectBuilds.selectSegment(taskSegment);
+        if (config.isOverlapSegments()) {
             try {
-                ConcurrencyDependencyGraph analyzer =
-                        new ConcurrencyDependencyGraph(segmentProjectBuilds, session.getProjectDependencyGraph());
-                multiThreadedProjectTaskSegmentBuild(
-                        analyzer, reactorContext, session, service, taskSegment, projectBuildMap);
-                if (reactorContext.getReactorBuildStatus().isHalted()) {
-                    break;
+                ScheduleGraph.Builder builder = ScheduleGraph.builder();
+                for (TaskSegment taskSegment : taskSegments) {
+                    Map<MavenProject, ProjectSegment> projectBuildMap = projectBuilds.selectSegment(taskSegment);
+                    ReactorGraph<MavenProject> graph =
+                            ReactorGraph.of(projectBuildMap.keySet(), session.getProjectDependencyGraph());
+                    builder.addSegment(
+                            taskSegment,
+                            graph,
+                            projectBuildMap,
+                            config.getPriority().priorities(graph, durations));
                 }
+                graphBuild(
+                        context,
+                        executor,
+                        builder.build(),
+                        gatherDuplicateArtifactIds(new HashSet<>(session.getProjects())));
             } catch (Exception e) {
                 session.getResult().addException(e);
-                break;
+            }
+        } else {
+            for (TaskSegment taskSegment : taskSegments) {
+                Map<MavenProject, ProjectSegment> projectBuildMap = projectBuilds.selectSegment(taskSegment);
+                try {
+                    ReactorGraph<MavenProject> graph =
+                            ReactorGraph.of(projectBuildMap.keySet(), session.getProjectDependencyGraph());
+                    int[] priorities = config.getPriority().priorities(graph, durations);
+                    ScheduleGraph scheduleGraph = new ScheduleGraph(graph, projectBuildMap, priorities);
+                    if (config.getScheduler() == SchedulerMode.WORK_STEALING) {
+                        if (!graphBuild(
+                                context,
+                                executor,
+                                scheduleGraph,
+                                gatherDuplicateArtifactIds(projectBuildMap.keySet()))) {
+                            break;
+                        }
+                    } else {
+                        multiThreadedProjectTaskSegmentBuild(
+                                scheduleGraph,
+                                context,
+                                SignalingExecutorCompletionService.withMilestones(executor),
+                                taskSegment,
+                                graph,
+                                earlyStart ? new EarlyStart(executor, graph, priorities, nThreads) : null);
+                    }
+                    if (reactorContext.getReactorBuildStatus().isHalted()) {
+                        break;
+                    }
+                } catch (Exception e) {
+                    session.getResult().addException(e);
+                    break;
+                }
             }
         }
 
         executor.shutdown();
         executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        if (metricsRecorder != null) {
+            metricsRecorder.buildFinished();
+        }
+        if (adaptiveConcurrency != null) {
+            adaptiveConcurrency.close();
+        }
+        if (deferredInstall != null) {
+            installDeferred(session, deferredInstall, nThreads);
+        }
+    }
+
+    private boolean isEarlyStartApplicable(TurboBuilderConfig config, BuildContext context, int nThreads) {
+        if (nThreads <= 1) {
+            return false;
+        }
+        if (config.getScheduler() == SchedulerMode.WORK_STEALING || config.isOverlapSegments()) {
+            logger.warn("TurboBuilder early start is supported only by the priority scheduler");
+            return false;
+        }
+        if (context.limiter != null || context.affectedProjects != null || context.fingerprints != null) {
+            logger.warn("TurboBuilder early start is not supported with the adaptive concurrency, affected modules, "
+                    + "up-to-date check and build cache");
+            return false;
+        }
+        if (!(mojosExecutionStrategy instanceof TurboMojosExecutionStrategy)) {
+            // the early started modules are parked by TurboMojosExecutionStrategy
+            logger.warn(
+                    "TurboBuilder early start is disabled, the mojos execution strategy is overridden by {}",
+                    mojosExecutionStrategy.getClass().getName());
+            return false;
+        }
+        if (!TurboMojosExecutionStrategy.isEarlyStartSupported()) {
+            logger.warn("TurboBuilder early start is not supported by this Maven version");
+            return false;
+        }
+        logger.info("TurboBuilder early start is enabled");
+        return true;
+    }
+
+    private void installDeferred(MavenSession session, DeferredInstall deferredInstall, int nThreads) {
+        if (deferredInstall.isEmpty()) {
+            return;
+        }
+        if (session.getResult().hasExceptions()) {
+            logger.warn(
+                    "TurboBuilder skipped the deferred install of {} modules because of the build failure",
+                    deferredInstall.getModules());
+            return;
+        }
+        RepositorySystemSession repositorySession = session.getRepositorySession();
+        LocalRepositoryManager localRepositoryManager = repositorySession.getLocalRepositoryManager();
+        long startNanos = System.nanoTime();
+        try {
+            int artifacts = deferredInstall.execute(
+                    nThreads,
+                    localRepositoryManager.getRepository().getBasedir().toPath(),
+                    localRepositoryManager::getPathForLocalArtifact,
+                    projectArtifacts -> repositorySystem.install(
+                            repositorySession, new InstallRequest().setArtifacts(projectArtifacts)));
+            logger.info(
+                    "TurboBuilder installed {} modules ({} artifact files copied) in {}ms",
+                    deferredInstall.getModules(),
+                    artifacts,
+                    (System.nanoTime() - startNanos) / 1_000_000L);
+        } catch (Exception e) {
+            session.getResult().addException(e);
+        }
+    }
+
+    /**
+     * @return the modules affected by the changes since the base ref or null if they cannot be calculated
+     */
+    /*@Nullable*/
+    private static Set<MavenProject> affectedProjects(MavenSession session, String baseRef) {
+        try {
+            Set<Path> changedFiles =
+                    AffectedModules.changedFiles(Paths.get(session.getExecutionRootDirectory()), baseRef);
+            Set<MavenProject> affectedProjects = AffectedModules.affectedProjects(
+                    AffectedModules.changedProjects(session.getProjects(), changedFiles),
+                    session.getProjectDependencyGraph());
+            logger.info(
+                    "TurboBuilder will build {} of {} modules affected by {} changed files since {}",
+                    affectedProjects.size(),
+                    session.getProjects().size(),
+                    changedFiles.size(),
+                    baseRef);
+            return affectedProjects;
+        } catch (IOException e) {
+            logger.warn("Failed to calculate the modules affected since {}, all modules will be built", baseRef, e);
+            return null;
+        }
+    }
+
+    private static boolean isCleanGoal(String goal) {
+        return goal.equals("clean") || goal.endsWith("-clean") || goal.endsWith(":clean");
+    }
+
+    private static boolean isPublishingGoal(String goal) {
+        return goal.equals("install") || goal.equals("deploy") || goal.endsWith(":install") || goal.endsWith(":deploy");
+    }
+
+    private static boolean isUpToDateApplicable(MavenSession session) {
+        if (session.getRequest().getGoals().stream().anyMatch(TurboBuilder::isCleanGoal)) {
+            logger.info("TurboBuilder up-to-date check is disabled for the clean build");
+            return false;
+        }
+        return true;
+    }
+
+    private BuildCache buildCache(MavenSession session, TurboBuilderConfig config) {
+        BuildCache buildCache = new BuildCache(
+                Paths.get(config.getBuildCache()), config.getBuildCacheMaxSizeMb() * 1024L * 1024L, projectHelper);
+        // the outputs of successfully built modules are stored by TurboMavenLifecycleParticipant
+        SessionDataUtils.set(session, BuildCache.class, buildCache);
+        return buildCache;
+    }
+
+    private static ModuleFingerprints moduleFingerprints(MavenSession session) {
+        // the clean goals don't affect the build outputs, so "clean install" can use the cache of "install"
+        List<String> goals = session.getRequest().getGoals().stream()
+                .filter(goal -> !isCleanGoal(goal))
+                .collect(Collectors.toList());
+        // the turbo parameters don't affect the build outputs
+        Map<String, String> userProperties = new TreeMap<>();
+        session.getUserProperties().forEach((key, value) -> {
+            if (!key.toString().startsWith("turbo")) {
+                userProperties.put(key.toString(), value.toString());
+            }
+        });
+        String buildParameters = "goals=" + goals + ", profiles="
+                + session.getRequest().getActiveProfiles() + ", userProperties=" + userProperties;
+        ModuleFingerprints fingerprints = new ModuleFingerprints(
+                session.getProjects(), buildParameters, project -> session.getProjectDependencyGraph()
+                        .getUpstreamProjects(project, false));
+        // the fingerprints of successfully built modules are saved by TurboMavenLifecycleParticipant
+        SessionDataUtils.set(session, ModuleFingerprints.class, fingerprints);
+        return fingerprints;
+    }
+
+    private boolean isUpToDate(ModuleFingerprints fingerprints, MavenProject project) {
+        try {
+            if (fingerprints.isUpToDate(project)) {
+                // the artifact files of the previous build are resolved by the downstream modules
+                fingerprints.restoreArtifacts(project, projectHelper);
+                return true;
+            }
+            return false;
+        } catch (IOException e) {
+            logger.warn("Failed to check if {} is up-to-date", project, e);
+            return false;
+        }
+    }
+
+    private static boolean restoreFromCache(
+            BuildCache buildCache, ModuleFingerprints fingerprints, MavenProject project) {
+        try {
+            if (buildCache.restore(project, fingerprints.fingerprint(project))) {
+                // the next build skips the module via the up-to-date check
+                fingerprints.saveSuccess(project);
+                return true;
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to restore {} from the build cache", project, e);
+        }
+        return false;
+    }
+
+    /**
+     * Executor with a deque per worker: the modules released by a worker are pushed to its own deque, idle workers
+     * steal them. Tasks of a deque are taken in FIFO order, as the ready modules are submitted by descending priority.
+     */
+    private static ExecutorService newWorkStealingExecutor(int nThreads) {
+        AtomicInteger threadCounter = new AtomicInteger();
+        return new ForkJoinPool(
+                nThreads,
+                pool -> {
+                    ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                    thread.setName("BuilderThread " + threadCounter.getAndIncrement());
+                    return thread;
+                },
+                null,
+                true);
+    }
+
+    /**
+     * Builds the project segments via {@link GraphScheduler}, which is used for the work-stealing scheduler and
+     * overlapping task segments.
+     *
+     * @return false if the build should not be continued
+     */
+    private boolean graphBuild(
+            BuildContext context,
+            ExecutorService executor,
+            ScheduleGraph scheduleGraph,
+            Set<String> duplicateArtifactIds)
+            throws InterruptedException {
+        GraphScheduler scheduler = new GraphScheduler(
+                executor,
+                scheduleGraph,
+                projectSegment -> createBuildCallable(
+                        context, projectSegment, projectSegment.getTaskSegment(), duplicateArtifactIds),
+                context.reactorContext.getReactorBuildStatus()::isHalted);
+        List<Throwable> failures = scheduler.build();
+        for (Throwable failure : failures) {
+            context.rootSession.getResult().addException(new ExecutionException(failure));
+        }
+        return failures.isEmpty();
     }
 
+    /**
+     * Builds the task segment with a coordinator thread: the reached milestones of the projects are taken from the
+     * completion service and the downstream dependencies requiring them are released via the atomic counters of the
+     * {@link ScheduleGraph}, similar to {@link GraphScheduler}. The
+     * downstream dependencies may be started before the release, see {@link EarlyStart}.
+     */
     private void multiThreadedProjectTaskSegmentBuild(
-            ConcurrencyDependencyGraph analyzer,
-            ReactorContext reactorContext,
-            MavenSession rootSession,
+            ScheduleGraph scheduleGraph,
+            BuildContext context,
             SignalingExecutorCompletionService service,
             TaskSegment taskSegment,
-            Map<MavenProject, ProjectSegment> projectBuildList) {
+            ReactorGraph<MavenProject> graph,
+            /*@Nullable*/ EarlyStart earlyStart) {
+        ReactorContext reactorContext = context.reactorContext;
+        MavenSession rootSession = context.rootSession;
         // gather artifactIds which are not unique so that the respective thread names can be extended with the groupId
-        Set<String> duplicateArtifactIds = gatherDuplicateArtifactIds(projectBuildList.keySet());
+        Set<MavenProject> projects = new HashSet<>(scheduleGraph.size());
+        for (int id = 0; id < scheduleGraph.size(); id++) {
+            projects.add(scheduleGraph.projectSegment(id).getProject());
+        }
+        Set<String> duplicateArtifactIds = gatherDuplicateArtifactIds(projects);
 
         // collect all submitted tasks to join them at the end
         List<Future<MavenProject>> tasks = new ArrayList<>();
-        // schedule independent projects
-        for (MavenProject mavenProject : analyzer.getRootSchedulableBuilds()) {
-            ProjectSegment projectSegment = projectBuildList.get(mavenProject);
-            logger.debug("Scheduling: {}", projectSegment.getProject());
-            Callable<MavenProject> cb =
-                    createBuildCallable(rootSession, projectSegment, reactorContext, taskSegment, duplicateArtifactIds);
-            List<MavenProject> downstreamDependencies =
-                    rootSession.getProjectDependencyGraph().getDownstreamProjects(mavenProject, false);
-            // negate size for descending order
-            tasks.add(service.submit(-downstreamDependencies.size(), cb));
-        }
-
-        // for each finished project
-        for (int i = 0; i < analyzer.getNumberOfBuilds(); i++) {
-            try {
-                MavenProject projectBuild = service.takeSignaled();
-                if (reactorContext.getReactorBuildStatus().isHalted()) {
-                    return;
+        /*@Nullable*/ EarlyStart.Submitter earlySubmitter = earlyStart == null
+                ? null
+                : (id, gate) -> {
+                    Future<MavenProject> task =
+                            submitEarly(service, scheduleGraph, id, gate, context, taskSegment, duplicateArtifactIds);
+                    tasks.add(task);
+                    return task;
+                };
+        try {
+            // schedule independent projects
+            int[] roots = scheduleGraph.roots();
+            for (int id : roots) {
+                tasks.add(submit(service, scheduleGraph, id, context, taskSegment, duplicateArtifactIds));
+                if (earlyStart != null) {
+                    earlyStart.scheduled(id);
                 }
+            }
+            if (earlyStart != null) {
+                earlyStart.startEligible(earlySubmitter);
+            }
 
-                // MNG-6170: Only schedule other modules from reactor if we have more modules to build than one.
-                if (analyzer.getNumberOfBuilds() > 1) {
-                    List<MavenProject> newItemsThatCanBeBuilt = analyzer.markAsFinished(projectBuild);
-                    for (MavenProject mavenProject : newItemsThatCanBeBuilt) {
-                        ProjectSegment scheduledDependent = projectBuildList.get(mavenProject);
-                        logger.debug("Scheduling: {}", scheduledDependent);
-                        Callable<MavenProject> cb = createBuildCallable(
-                                rootSession, scheduledDependent, reactorContext, taskSegment, duplicateArtifactIds);
-                        List<MavenProject> downstreamDependencies =
-                                rootSession.getProjectDependencyGraph().getDownstreamProjects(mavenProject, false);
-                        tasks.add(service.submit(-downstreamDependencies.size(), cb));
+            // for each reached milestone until all projects are released
+            int released = roots.length;
+            while (released < scheduleGraph.size()) {
+                try {
+                    SignalingExecutorCompletionService.ReachedMilestone reached = service.takeMilestone();
+                    if (reactorContext.getReactorBuildStatus().isHalted()) {
+                        return;
                     }
+
+                    for (int id : scheduleGraph.releaseMilestone(graph.id(reached.project), reached.milestone)) {
+                        released++;
+                        if (earlyStart != null && earlyStart.release(id)) {
+                            continue;
+                        }
+                        tasks.add(submit(service, scheduleGraph, id, context, taskSegment, duplicateArtifactIds));
+                        if (earlyStart != null) {
+                            earlyStart.scheduled(id);
+                        }
+                    }
+                    if (earlyStart != null) {
+                        earlyStart.startEligible(earlySubmitter);
+                    }
+                } catch (InterruptedException | ExecutionException e) {
+                    rootSession.getResult().addException(e);
+                    return;
                 }
-            } catch (InterruptedException | ExecutionException e) {
-                rootSession.getResult().addException(e);
-                return;
+            }
+        } finally {
+            if (earlyStart != null) {
+                earlyStart.cancel(
+                        "Build is stopped before the upstream modules of the early started module are signaled");
             }
         }
 
         for (Future<MavenProject> task : tasks) {
+            if (task.isCancelled()) {
+                // the early task not taken by a worker thread, the module is submitted again on the release
+                continue;
+            }
             try {
                 task.get();
             } catch (InterruptedException | ExecutionException e) {
@@ -229,36 +599,136 @@ public class TurboBuilder implements Builder {
         }
     }
 
+    private Future<MavenProject> submit(
+            SignalingExecutorCompletionService service,
+            ScheduleGraph scheduleGraph,
+            int id,
+            BuildContext context,
+            TaskSegment taskSegment,
+            Set<String> duplicateArtifactIds) {
+        ProjectSegment projectSegment = scheduleGraph.projectSegment(id);
+        logger.debug("Scheduling: {}", projectSegment);
+        Callable<MavenProject> cb = createBuildCallable(context, projectSegment, taskSegment, duplicateArtifactIds);
+        // negate priority for descending order
+        return service.submit(-scheduleGraph.priority(id), projectSegment.getProject(), cb);
+    }
+
+    /**
+     * Submits the early task of the module, which is taken only by an idle worker thread, see {@link EarlyStart}.
+     */
+    private Future<MavenProject> submitEarly(
+            SignalingExecutorCompletionService service,
+            ScheduleGraph scheduleGraph,
+            int id,
+            EarlyStart.Gate gate,
+            BuildContext context,
+            TaskSegment taskSegment,
+            Set<String> duplicateArtifactIds) {
+        ProjectSegment projectSegment = scheduleGraph.projectSegment(id);
+        logger.debug("Scheduling early: {}", projectSegment);
+        Callable<MavenProject> cb = createBuildCallable(context, projectSegment, taskSegment, duplicateArtifactIds);
+        return service.submitYielded(
+                -scheduleGraph.priority(id),
+                projectSegment.getProject(),
+                gate::take,
+                () -> EarlyStart.callWithGate(gate, cb));
+    }
+
+    /**
+     * Should be called right before the submission of the callable to the executor.
+     */
     private Callable<MavenProject> createBuildCallable(
-            MavenSession rootSession,
+            BuildContext context,
             ProjectSegment projectBuild,
-            ReactorContext reactorContext,
             TaskSegment taskSegment,
             Set<String> duplicateArtifactIds) {
+        long queuedNanos = System.nanoTime();
         return () -> {
-            final Thread currentThread = Thread.currentThread();
-            final String originalThreadName = currentThread.getName();
-            final MavenProject project = projectBuild.getProject();
-
-            final String threadNameSuffix = duplicateArtifactIds.contains(project.getArtifactId())
-                    ? project.getGroupId() + ":" + project.getArtifactId()
-                    : project.getArtifactId();
-            currentThread.setName("mvn-turbo-builder-" + threadNameSuffix);
-
+            if (context.limiter != null) {
+                context.limiter.acquire();
+            }
             try {
-                CurrentProjectExecution.doWithCurrentProject(
-                        projectBuild.getSession(),
-                        project,
-                        () -> lifecycleModuleBuilder.buildProject(
-                                projectBuild.getSession(), rootSession, reactorContext, project, taskSegment));
-
-                return projectBuild.getProject();
+                return buildProject(context, projectBuild, taskSegment, duplicateArtifactIds, queuedNanos);
             } finally {
-                currentThread.setName(originalThreadName);
+                if (context.limiter != null) {
+                    context.limiter.release();
+                }
             }
         };
     }
 
+    private MavenProject buildProject(
+            BuildContext context,
+            ProjectSegment projectBuild,
+            TaskSegment taskSegment,
+            Set<String> duplicateArtifactIds,
+            long queuedNanos) {
+        final MavenSession rootSession = context.rootSession;
+        final Thread currentThread = Thread.currentThread();
+        final String originalThreadName = currentThread.getName();
+        final MavenProject project = projectBuild.getProject();
+        if (context.affectedProjects != null && !context.affectedProjects.contains(project)) {
+            // signaled and finished immediately, the artifacts are resolved from the local repository (not from the
+            // output directories of the previous build), so they should be installed by an earlier build
+            logger.info("Skipping {}, not affected by the changes", project.getArtifactId());
+            return project;
+        }
+        if (context.fingerprints != null) {
+            if (context.upToDateCheck && isUpToDate(context.fingerprints, project)) {
+                logSkipped(context, project, "up-to-date");
+                return project;
+            }
+            if (context.buildCache != null && restoreFromCache(context.buildCache, context.fingerprints, project)) {
+                logSkipped(context, project, "restored from the build cache");
+                return project;
+            }
+        }
+        context.events.moduleStarted(project, queuedNanos);
+
+        final String threadNameSuffix = duplicateArtifactIds.contains(project.getArtifactId())
+                ? project.getGroupId() + ":" + project.getArtifactId()
+                : project.getArtifactId();
+        currentThread.setName("mvn-turbo-builder-" + threadNameSuffix);
+
+        /*@Nullable*/ BuildTimingRecorder.ModuleTiming timing =
+                context.recorder == null ? null : context.recorder.moduleStarted(project, originalThreadName);
+        boolean success = false;
+        try {
+            CurrentProjectExecution.doWithCurrentProject(
+                    projectBuild.getSession(),
+                    project,
+                    timing,
+                    context.events,
+                    () -> lifecycleModuleBuilder.buildProject(
+                            projectBuild.getSession(), rootSession, context.reactorContext, project, taskSegment));
+
+            success = rootSession.getResult().getBuildSummary(project) instanceof BuildSuccess;
+            return projectBuild.getProject();
+        } finally {
+            if (timing != null) {
+                timing.finished(success);
+            }
+            // not the skipped modules, which have no build summary
+            if (context.failurePropagation != null
+                    && rootSession.getResult().getBuildSummary(project) instanceof BuildFailure) {
+                context.failurePropagation.failed(project);
+            }
+            context.events.moduleFinished(project, success);
+            currentThread.setName(originalThreadName);
+        }
+    }
+
+    /**
+     * The lifecycle of the skipped module is not executed at all, including the install and deploy phases.
+     */
+    private static void logSkipped(BuildContext context, MavenProject project, String reason) {
+        if (context.publishingGoals) {
+            logger.info("Skipping {}, {}, it's not installed or deployed", project.getArtifactId(), reason);
+        } else {
+            logger.info("Skipping {}, {}", project.getArtifactId(), reason);
+        }
+    }
+
     private static Set<String> gatherDuplicateArtifactIds(Set<MavenProject> projects) {
         Set<String> artifactIds = new HashSet<>(projects.size());
         Set<String> duplicateArtifactIds = new HashSet<>();
@@ -269,4 +739,53 @@ public class TurboBuilder implements Builder {
         }
         return duplicateArtifactIds;
     }
+
+    /**
+     * State shared by the module builds of the session.
+     */
+    private static final class BuildContext {
+        final MavenSession rootSession;
+        final ReactorContext reactorContext;
+        /*@Nullable*/
+        final BuildTimingRecorder recorder;
+        /*@Nullable*/
+        final ConcurrencyLimiter limiter;
+        /*@Nullable*/
+        final FailurePropagation failurePropagation;
+        /*@Nullable*/
+        final Set<MavenProject> affectedProjects;
+        /*@Nullable*/
+        final ModuleFingerprints fingerprints;
+        final boolean upToDateCheck;
+        /*@Nullable*/
+        final BuildCache buildCache;
+        // the goals install or deploy the artifacts, which is skipped for the up-to-date and restored modules
+        final boolean publishingGoals;
+        final BuildEventListener events;
+
+        BuildContext(
+                MavenSession rootSession,
+                ReactorContext reactorContext,
+                /*@Nullable*/ BuildTimingRecorder recorder,
+                /*@Nullable*/ ConcurrencyLimiter limiter,
+                /*@Nullable*/ FailurePropagation failurePropagation,
+                /*@Nullable*/ Set<MavenProject> affectedProjects,
+                /*@Nullable*/ ModuleFingerprints fingerprints,
+                boolean upToDateCheck,
+                /*@Nullable*/ BuildCache buildCache,
+                BuildEventListener events) {
+            this.rootSession = rootSession;
+            this.reactorContext = reactorContext;
+            this.recorder = recorder;
+            this.limiter = limiter;
+            this.failurePropagation = failurePropagation;
+            this.affectedProjects = affectedProjects;
+            this.fingerprints = fingerprints;
+            this.upToDateCheck = upToDateCheck;
+            this.buildCache = buildCache;
+            this.publishingGoals =
+                    rootSession.getRequest().getGoals().stream().anyMatch(TurboBuilder::isPublishingGoal);
+            this.events = events;
+        }
+    }
 }
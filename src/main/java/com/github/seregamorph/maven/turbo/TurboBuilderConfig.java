@@ -1,5 +1,12 @@
 package com.github.seregamorph.maven.turbo;
 
+import static com.github.seregamorph.maven.turbo.MavenPropertyUtils.isTrue;
+
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import org.apache.maven.execution.MavenSession;
 
 /**
@@ -8,22 +15,343 @@ import org.apache.maven.execution.MavenSession;
 public class TurboBuilderConfig {
 
     private final boolean turboTestCompile;
+    private final SchedulingPriority priority;
+    private final SchedulerMode scheduler;
+    private final boolean overlapSegments;
+    private final boolean adaptive;
+    private final int adaptiveMin;
+    private final int adaptiveMax;
+    private final Map<String, Integer> resourcePermits;
+    private final Map<String, String> resourceMojos;
+    private final boolean trace;
+    /*@Nullable*/
+    private final String traceFile;
+    private final int traceBufferSize;
+    private final boolean metrics;
+    /*@Nullable*/
+    private final String metricsFile;
+    private final boolean timingStore;
+    private final int timingStoreRuns;
+    private final FailurePolicy failurePolicy;
+    /*@Nullable*/
+    private final String affectedSince;
+    private final boolean upToDate;
+    /*@Nullable*/
+    private final String buildCache;
+    private final int buildCacheMaxSizeMb;
+    private final int[] simulateThreads;
+    private final Set<String> deferMojos;
+    private final Set<String> afterSignalRules;
+    private final boolean earlyStart;
+    private final boolean deferInstall;
+    /*@Nullable*/
+    private final String deployRepository;
 
     static TurboBuilderConfig fromSession(MavenSession session) {
-        String turboTestCompile = MavenPropertyUtils.getProperty(session, "turboTestCompile");
-        return new TurboBuilderConfig(MavenPropertyUtils.isTrue(turboTestCompile));
+        return new TurboBuilderConfig(propertyName -> MavenPropertyUtils.getProperty(session, propertyName));
+    }
+
+    /**
+     * @return the config of the build parsed once by {@link TurboBuilder} or parsed from the session if not available
+     */
+    static TurboBuilderConfig get(MavenSession session) {
+        TurboBuilderConfig config = SessionDataUtils.get(session, TurboBuilderConfig.class);
+        return config == null ? fromSession(session) : config;
     }
 
     TurboBuilderConfig(boolean turboTestCompile) {
-        this.turboTestCompile = turboTestCompile;
+        this(propertyName -> "turboTestCompile".equals(propertyName) ? String.valueOf(turboTestCompile) : null);
+    }
+
+    /**
+     * @param properties resolves a property value by its name, returns null if the property is not defined
+     */
+    TurboBuilderConfig(Function<String, String> properties) {
+        this.turboTestCompile = isTrue(properties.apply("turboTestCompile"));
+        this.priority = SchedulingPriority.fromProperty(properties.apply("turboPriority"));
+        this.scheduler = SchedulerMode.fromProperty(properties.apply("turboScheduler"));
+        this.overlapSegments = isTrue(properties.apply("turboOverlapSegments"));
+        this.adaptive = isTrue(properties.apply("turboAdaptive"));
+        this.adaptiveMin = parsePositiveInt(properties, "turboAdaptiveMin", 1);
+        // 0 means the degree of concurrency ("-T" parameter)
+        this.adaptiveMax = parsePositiveInt(properties, "turboAdaptiveMax", 0);
+        this.resourcePermits = ResourcePermits.parsePermits(properties.apply("turboResourcePermits"));
+        this.resourceMojos = ResourcePermits.parseMojoClasses(properties.apply("turboResourceMojos"));
+        this.traceFile = properties.apply("turboTraceFile");
+        this.trace = isTrue(properties.apply("turboTrace")) || traceFile != null;
+        this.traceBufferSize = parsePositiveInt(properties, "turboTraceBufferSize", TraceRecorder.DEFAULT_BUFFER_SIZE);
+        this.metricsFile = properties.apply("turboMetricsFile");
+        this.metrics = isTrue(properties.apply("turboMetrics")) || metricsFile != null;
+        // critical path cannot be estimated without the timings of the previous builds
+        this.timingStore = isTrue(properties.apply("turboTimingStore")) || priority == SchedulingPriority.CRITICAL_PATH;
+        this.timingStoreRuns = parsePositiveInt(properties, "turboTimingStoreRuns", BuildTimingStore.DEFAULT_RUNS);
+        this.failurePolicy = FailurePolicy.fromProperty(properties.apply("turboFailurePolicy"));
+        String affectedSince = properties.apply("turboAffectedSince");
+        this.affectedSince = affectedSince == null || affectedSince.isEmpty() ? null : affectedSince;
+        this.upToDate = isTrue(properties.apply("turboUpToDate"));
+        String buildCache = properties.apply("turboBuildCache");
+        if (buildCache == null || buildCache.isEmpty() || "false".equals(buildCache)) {
+            this.buildCache = null;
+        } else if ("true".equals(buildCache)) {
+            this.buildCache = Paths.get(System.getProperty("user.home"), ".m2", "turbo-cache")
+                    .toString();
+        } else {
+            this.buildCache = buildCache;
+        }
+        this.buildCacheMaxSizeMb = parsePositiveInt(properties, "turboBuildCacheMaxSize", 10240);
+        this.simulateThreads = parsePositiveInts(properties, "turboSimulate");
+        this.deferMojos = DeferredMojos.parseMojos(properties.apply("turboDeferMojos"));
+        this.afterSignalRules = AfterSignalRules.parseRules(properties.apply("turboAfterSignalMojos"));
+        this.earlyStart = isTrue(properties.apply("turboEarlyStart"));
+        this.deferInstall = isTrue(properties.apply("turboDeferInstall"));
+        String deployRepository = properties.apply("turboDeployRepository");
+        this.deployRepository = deployRepository == null || deployRepository.isEmpty() ? null : deployRepository;
+    }
+
+    private static int[] parsePositiveInts(Function<String, String> properties, String propertyName) {
+        String value = properties.apply(propertyName);
+        if (value == null || value.isEmpty()) {
+            return new int[0];
+        }
+        String[] items = value.split(",");
+        int[] result = new int[items.length];
+        for (int i = 0; i < items.length; i++) {
+            String item = items[i].trim();
+            result[i] = parsePositiveInt(name -> item, propertyName, 0);
+        }
+        return result;
+    }
+
+    private static int parsePositiveInt(Function<String, String> properties, String propertyName, int defaultValue) {
+        String value = properties.apply(propertyName);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            int intValue = Integer.parseInt(value);
+            if (intValue > 0) {
+                return intValue;
+            }
+        } catch (NumberFormatException ignored) {
+            // fall through
+        }
+        throw new IllegalArgumentException(
+                "Invalid " + propertyName + " value '" + value + "', positive integer is expected");
     }
 
     public boolean isTurboTestCompile() {
         return turboTestCompile;
     }
 
+    public SchedulingPriority getPriority() {
+        return priority;
+    }
+
+    public SchedulerMode getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * @return true if a module can start the next task segment before other modules finish the current one
+     */
+    public boolean isOverlapSegments() {
+        return overlapSegments;
+    }
+
+    /**
+     * @return true if the number of concurrently building modules is adjusted according to the system load, see
+     * {@link AdaptiveConcurrency}
+     */
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    public int getAdaptiveMin() {
+        return adaptiveMin;
+    }
+
+    /**
+     * @param degreeOfConcurrency the "-T" parameter value
+     */
+    public int getAdaptiveMax(int degreeOfConcurrency) {
+        return adaptiveMax == 0 ? degreeOfConcurrency : adaptiveMax;
+    }
+
+    /**
+     * @return number of permits by resource class, see {@link ResourcePermits}
+     */
+    public Map<String, Integer> getResourcePermits() {
+        return resourcePermits;
+    }
+
+    /**
+     * @return resource class by "pluginArtifactId" or "pluginArtifactId:goal", see {@link ResourcePermits}
+     */
+    public Map<String, String> getResourceMojos() {
+        return resourceMojos;
+    }
+
+    /**
+     * @return true if the build trace should be recorded, see {@link TraceRecorder}
+     */
+    public boolean isTrace() {
+        return trace;
+    }
+
+    /**
+     * @return trace file path or null for the default one
+     */
+    /*@Nullable*/
+    public String getTraceFile() {
+        return traceFile;
+    }
+
+    /**
+     * @return number of trace events per worker thread
+     */
+    public int getTraceBufferSize() {
+        return traceBufferSize;
+    }
+
+    /**
+     * @return true if the scheduling metrics should be reported, see {@link BuildMetricsRecorder}
+     */
+    public boolean isMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return metrics file path or null for the default one
+     */
+    /*@Nullable*/
+    public String getMetricsFile() {
+        return metricsFile;
+    }
+
+    /**
+     * @return true if timings of module builds should be loaded and saved in the {@link BuildTimingStore}
+     */
+    public boolean isTimingStore() {
+        return timingStore;
+    }
+
+    public int getTimingStoreRuns() {
+        return timingStoreRuns;
+    }
+
+    /**
+     * @return how the failure of a module affects the running builds of other modules, see {@link FailurePropagation}
+     */
+    public FailurePolicy getFailurePolicy() {
+        return failurePolicy;
+    }
+
+    /**
+     * @return base git ref to build only the affected modules or null to build all modules, see
+     * {@link AffectedModules}
+     */
+    /*@Nullable*/
+    public String getAffectedSince() {
+        return affectedSince;
+    }
+
+    /**
+     * @return true if the modules with unchanged inputs should not be built again, see {@link ModuleFingerprints}
+     */
+    public boolean isUpToDate() {
+        return upToDate;
+    }
+
+    /**
+     * @return directory of the local build cache or null if the build cache is disabled, see {@link BuildCache}
+     */
+    /*@Nullable*/
+    public String getBuildCache() {
+        return buildCache;
+    }
+
+    public int getBuildCacheMaxSizeMb() {
+        return buildCacheMaxSizeMb;
+    }
+
+    /**
+     * @return thread counts to simulate the build with or empty array if the simulation is disabled, see
+     * {@link ReactorSimulator}
+     */
+    public int[] getSimulateThreads() {
+        return simulateThreads.clone();
+    }
+
+    /**
+     * @return "pluginArtifactId:goal" or "pluginArtifactId" of the mojos deferred after the main chain of the
+     * post-signal module mojos or empty set if disabled, see {@link DeferredMojos}
+     */
+    public Set<String> getDeferMojos() {
+        return deferMojos;
+    }
+
+    /**
+     * @return "pluginGroupId:pluginArtifactId:goal", "pluginArtifactId:goal", "pluginArtifactId" or phases of the mojos
+     * moved after the signal of the module or empty set if disabled, see {@link AfterSignalRules}
+     */
+    public Set<String> getAfterSignalRules() {
+        return afterSignalRules;
+    }
+
+    /**
+     * @return true if the downstream modules should be started before their upstream dependencies are signaled, see
+     * {@link EarlyStart}
+     */
+    public boolean isEarlyStart() {
+        return earlyStart;
+    }
+
+    /**
+     * @return true if the install mojos should be executed as a batched stage after the build, see
+     * {@link DeferredInstall}
+     */
+    public boolean isDeferInstall() {
+        return deferInstall;
+    }
+
+    /**
+     * @return directory of the file-based repository to deploy the artifacts to in the batched stage after the build
+     * instead of the deploy mojos or null if the deploy mojos are executed as usual, see {@link DeferredInstall}
+     */
+    /*@Nullable*/
+    public String getDeployRepository() {
+        return deployRepository;
+    }
+
     @Override
     public String toString() {
-        return "TurboBuilderConfig{" + "turboTestCompile=" + turboTestCompile + '}';
+        return "TurboBuilderConfig{" + "turboTestCompile=" + turboTestCompile
+                + ", priority=" + priority
+                + ", scheduler=" + scheduler
+                + ", overlapSegments=" + overlapSegments
+                + ", adaptive=" + adaptive
+                + ", adaptiveMin=" + adaptiveMin
+                + ", adaptiveMax=" + adaptiveMax
+                + ", resourcePermits=" + resourcePermits
+                + ", resourceMojos=" + resourceMojos
+                + ", trace=" + trace
+                + ", traceFile=" + traceFile
+                + ", traceBufferSize=" + traceBufferSize
+                + ", metrics=" + metrics
+                + ", metricsFile=" + metricsFile
+                + ", timingStore=" + timingStore
+                + ", timingStoreRuns=" + timingStoreRuns
+                + ", failurePolicy=" + failurePolicy
+                + ", affectedSince=" + affectedSince
+                + ", upToDate=" + upToDate
+                + ", buildCache=" + buildCache
+                + ", buildCacheMaxSizeMb=" + buildCacheMaxSizeMb
+                + ", simulateThreads=" + Arrays.toString(simulateThreads)
+                + ", deferMojos=" + deferMojos
+                + ", afterSignalRules=" + afterSignalRules
+                + ", earlyStart=" + earlyStart
+                + ", deferInstall=" + deferInstall
+                + ", deployRepository=" + deployRepository
+                + '}';
     }
 }
@@ -3,13 +3,20 @@ package com.github.seregamorph.maven.turbo;
 import static com.github.seregamorph.maven.turbo.MavenPropertyUtils.getProperty;
 import static com.github.seregamorph.maven.turbo.MavenPropertyUtils.isTrue;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 import javax.inject.Named;
 import org.apache.maven.AbstractMavenLifecycleParticipant;
 import org.apache.maven.MavenExecutionException;
 import org.apache.maven.SessionScoped;
+import org.apache.maven.execution.BuildSuccess;
 import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Dependency;
 import org.apache.maven.model.Plugin;
 import org.apache.maven.model.PluginExecution;
 import org.apache.maven.project.MavenProject;
@@ -35,6 +42,107 @@ public class TurboMavenLifecycleParticipant extends AbstractMavenLifecyclePartic
         if (isTurboBuilder(session)) {
             checkTestJarArtifacts(session);
             checkBuilderAndPhase(session);
+            loadBuildTimings(session);
+            simulate(session);
+        }
+    }
+
+    private static void checkTestJarArtifacts(MavenSession session) throws MavenExecutionException {
+        TurboBuilderConfig config = TurboBuilderConfig.fromSession(session);
+        if (config.isTurboTestCompile()) {
+            // the tests are compiled before the package phase in all modules
+            return;
+        }
+        List<String> unsupported = unsupportedTestJarDependencies(session.getProjects());
+        if (!unsupported.isEmpty()) {
+            throw new MavenExecutionException(
+                    "Maven started with turbo builder (`-b turbo` CLI parameter or `-bturbo` in .mvn/maven.config) "
+                            + "and it's not compatible with the test classes dependencies " + unsupported
+                            + " which are not packaged via `test-jar` goal, because of build phase reordering "
+                            + "(package phase is now executed before compiling tests). Only the `test-jar` goal is "
+                            + "moved after the test classes are compiled.\n"
+                            + "This can be solved in several ways:\n"
+                            + "1. Package the test classes via `maven-jar-plugin:test-jar` goal\n"
+                            + "2. Opt-in compiling tests before the package phase via `-DturboTestCompile` CLI "
+                            + "parameter or specified in .mvn/maven.config on a separate line",
+                    session.getTopLevelProject() == null
+                            ? null
+                            : session.getTopLevelProject().getFile());
+        }
+    }
+
+    /**
+     * The test-jar dependencies are released at {@link Milestone#TEST_JAR}, which is reached after the test classes
+     * are compiled and the {@code maven-jar-plugin:test-jar} goal is executed. The test classes packaged otherwise (e.g.
+     * the {@code jar} goal with the "tests" classifier) would be packaged before the tests are compiled.
+     *
+     * @return the reactor dependencies on the test classes of the modules without a {@code maven-jar-plugin:test-jar}
+     * goal
+     */
+    static List<String> unsupportedTestJarDependencies(List<MavenProject> projects) {
+        Map<String, MavenProject> reactorProjects = new HashMap<>();
+        for (MavenProject project : projects) {
+            reactorProjects.put(project.getGroupId() + ":" + project.getArtifactId(), project);
+        }
+        List<String> unsupported = new ArrayList<>();
+        for (MavenProject project : projects) {
+            for (Dependency dependency : project.getDependencies()) {
+                if (!Milestone.isTestJar(dependency)) {
+                    continue;
+                }
+                MavenProject upstream = reactorProjects.get(dependency.getGroupId() + ":" + dependency.getArtifactId());
+                if (upstream != null && !hasTestJarGoal(upstream)) {
+                    unsupported.add(project.getArtifactId() + " -> " + upstream.getArtifactId());
+                }
+            }
+        }
+        return unsupported;
+    }
+
+    private static boolean hasTestJarGoal(MavenProject project) {
+        for (Plugin plugin : project.getBuildPlugins()) {
+            if (!MojoUtils.isJarPlugin(plugin.getGroupId(), plugin.getArtifactId())) {
+                // e.g. maven-source-plugin:test-jar packages the test sources
+                continue;
+            }
+            for (PluginExecution pluginExecution : plugin.getExecutions()) {
+                if (pluginExecution.getGoals().contains("test-jar")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void simulate(MavenSession session) {
+        TurboBuilderConfig config = TurboBuilderConfig.fromSession(session);
+        int[] threadCounts = config.getSimulateThreads();
+        if (threadCounts.length == 0) {
+            return;
+        }
+        BuildTimingHistory history = SessionDataUtils.get(session, BuildTimingHistory.class);
+        if (history == null || history.isEmpty()) {
+            logger.warn("No recorded build timings to simulate the build, "
+                    + "build the project with -DturboTimingStore parameter first");
+            return;
+        }
+        ReactorGraph<MavenProject> graph = ReactorGraph.of(session.getProjects(), session.getProjectDependencyGraph());
+        long[] preSignalMillis = new long[graph.size()];
+        long[] postSignalMillis = new long[graph.size()];
+        for (int id = 0; id < graph.size(); id++) {
+            preSignalMillis[id] = history.preSignalMillis(graph.node(id));
+            postSignalMillis[id] = history.postSignalMillis(graph.node(id));
+        }
+        long startNanos = System.nanoTime();
+        List<ReactorSimulator.Result> results = new ReactorSimulator(graph, preSignalMillis, postSignalMillis)
+                .sweep(threadCounts, SchedulingPriority.values());
+        logger.info(
+                "Simulated build of {} modules with timings of {} runs in {}ms",
+                graph.size(),
+                history.getRuns(),
+                (System.nanoTime() - startNanos) / 1_000_000L);
+        for (String line : ReactorSimulator.toTable(results)) {
+            logger.info(line);
         }
     }
 
@@ -42,40 +150,114 @@ public class TurboMavenLifecycleParticipant extends AbstractMavenLifecyclePartic
     public void afterSessionEnd(MavenSession session) {
         if (isTurboBuilder(session)) {
             checkBuilderAndPhase(session);
+            saveBuildTimings(session);
+            writeTrace(session);
+            reportMetrics(session);
+            saveFingerprints(session);
         }
     }
 
-    private void checkTestJarArtifacts(MavenSession session) throws MavenExecutionException {
-        TurboBuilderConfig config = TurboBuilderConfig.fromSession(session);
-        if (!config.isTurboTestCompile()) {
-            // test-jar is not supported, because package phase is now executed before compiling tests
+    private void saveFingerprints(MavenSession session) {
+        ModuleFingerprints fingerprints = SessionDataUtils.get(session, ModuleFingerprints.class);
+        if (fingerprints != null) {
+            BuildCache buildCache = SessionDataUtils.get(session, BuildCache.class);
             for (MavenProject project : session.getProjects()) {
-                List<Plugin> jarPlugins = project.getBuildPlugins().stream()
-                        .filter(plugin -> "org.apache.maven.plugins".equals(plugin.getGroupId())
-                                && "maven-jar-plugin".equals(plugin.getArtifactId()))
-                        .collect(Collectors.toList());
-                for (Plugin jarPlugin : jarPlugins) {
-                    for (PluginExecution pluginExecution : jarPlugin.getExecutions()) {
-                        if (pluginExecution.getGoals().contains("test-jar")) {
-                            throw new MavenExecutionException(
-                                    "Maven started with turbo builder (`-b turbo` CLI "
-                                            + "parameter or `-bturbo` in .mvn/maven.config) and it's not compatible with "
-                                            + project
-                                            + " test-jar project artifacts and dependencies because of build phase reordering "
-                                            + "(package phase is now executed before compiling tests). The maven-jar-plugin "
-                                            + "configuration of the project has configured `test-jar` goal.\n"
-                                            + "This can be solved in several ways:\n"
-                                            + "1. Get rid of test-jar packaging if possible\n"
-                                            + "2. Opt-in support of test-jar packaging via `-DturboTestCompile` CLI parameter "
-                                            + "or specified in .mvn/maven.config on a separate line",
-                                    project.getFile());
+                // the up-to-date and restored modules have no build summary
+                if (session.getResult().getBuildSummary(project) instanceof BuildSuccess) {
+                    try {
+                        fingerprints.saveSuccess(project);
+                        if (buildCache != null) {
+                            buildCache.store(project, fingerprints.fingerprint(project));
                         }
+                    } catch (IOException e) {
+                        logger.warn("Failed to save fingerprint of {}", project, e);
                     }
                 }
             }
         }
     }
 
+    private void reportMetrics(MavenSession session) {
+        BuildMetricsRecorder metricsRecorder = SessionDataUtils.get(session, BuildMetricsRecorder.class);
+        if (metricsRecorder != null) {
+            BuildMetricsRecorder.BuildMetrics metrics = metricsRecorder.getMetrics(session.getProjectDependencyGraph());
+            for (String line : metrics.toTable()) {
+                logger.info(line);
+            }
+            TurboBuilderConfig config = TurboBuilderConfig.fromSession(session);
+            Path file = config.getMetricsFile() == null
+                    ? Paths.get(session.getExecutionRootDirectory(), "target", "turbo-metrics.json")
+                    : Paths.get(config.getMetricsFile());
+            try {
+                metrics.write(file);
+                logger.info("Build metrics are written to {}", file);
+            } catch (IOException e) {
+                logger.warn("Failed to write build metrics to {}", file, e);
+            }
+        }
+    }
+
+    private void writeTrace(MavenSession session) {
+        TraceRecorder traceRecorder = SessionDataUtils.get(session, TraceRecorder.class);
+        if (traceRecorder != null) {
+            TurboBuilderConfig config = TurboBuilderConfig.fromSession(session);
+            Path file = config.getTraceFile() == null
+                    ? Paths.get(session.getExecutionRootDirectory(), "target", "turbo-trace.json")
+                    : Paths.get(config.getTraceFile());
+            try {
+                long dropped = traceRecorder.write(file);
+                if (dropped > 0L) {
+                    logger.warn(
+                            "{} oldest trace events were overwritten, consider increasing -DturboTraceBufferSize",
+                            dropped);
+                }
+                logger.info("Build trace is written to {}", file);
+            } catch (IOException e) {
+                logger.warn("Failed to write build trace to {}", file, e);
+            }
+        }
+    }
+
+    private void loadBuildTimings(MavenSession session) {
+        TurboBuilderConfig config = TurboBuilderConfig.fromSession(session);
+        // the simulation only reads the timings, the build is not recorded without -DturboTimingStore
+        if (config.isTimingStore() || config.getSimulateThreads().length > 0) {
+            BuildTimingStore store = BuildTimingStore.fromSession(session, config);
+            if (config.isTimingStore() && !isTrue(getProperty(session, "turboTimingStore"))) {
+                // implied by the scheduling priority, the user may not expect the file in the source tree
+                logger.info(
+                        "Build timing store is enabled by -DturboPriority=critical-path, the timings are saved to {}",
+                        store.getFile());
+            }
+            long startNanos = System.nanoTime();
+            try {
+                BuildTimingHistory history = store.load();
+                logger.debug(
+                        "Loaded build timings of {} modules from {} runs in {}ms",
+                        history.getModules(),
+                        history.getRuns(),
+                        (System.nanoTime() - startNanos) / 1_000_000L);
+                SessionDataUtils.set(session, BuildTimingHistory.class, history);
+            } catch (IOException e) {
+                logger.warn("Failed to load build timings from {}", store.getFile(), e);
+            }
+        }
+    }
+
+    private void saveBuildTimings(MavenSession session) {
+        BuildTimingRecorder recorder = SessionDataUtils.get(session, BuildTimingRecorder.class);
+        if (recorder != null) {
+            TurboBuilderConfig config = TurboBuilderConfig.fromSession(session);
+            BuildTimingStore store = BuildTimingStore.fromSession(session, config);
+            try {
+                store.append(recorder);
+                logger.debug("Saved build timings to {}", store.getFile());
+            } catch (IOException e) {
+                logger.warn("Failed to save build timings to {}", store.getFile(), e);
+            }
+        }
+    }
+
     private void checkBuilderAndPhase(MavenSession session) {
         TurboBuilderConfig config = TurboBuilderConfig.fromSession(session);
         // skip both compiling and running tests
@@ -1,7 +1,5 @@
 package com.github.seregamorph.maven.turbo;
 
-import static com.github.seregamorph.maven.turbo.PhaseOrderPatcher.isAnyTest;
-
 import javax.inject.Named;
 import javax.inject.Singleton;
 import org.apache.maven.execution.MojoExecutionEvent;
@@ -21,41 +19,46 @@ public class TurboMojoExecutionListener implements MojoExecutionListener {
     @Override
     public void beforeMojoExecution(MojoExecutionEvent event) {
         CurrentProjectExecution.ifPresent(execution -> {
-            if (execution.packageMojos == null) {
-                logger.warn("packageMojos not initialized in TurboProjectExecutionListener");
+            execution.events.mojoStarted(event.getExecution());
+            if (execution.milestoneMojos == null) {
+                logger.warn("milestoneMojos not initialized in TurboProjectExecutionListener");
                 return;
             }
-            if (!execution.signaled && execution.packageMojos.isEmpty()) {
-                String phase = MojoUtils.getMojoPhase(event.getExecution());
-                if (phase != null && isAnyTest(phase)) {
-                    execution.signaled = true;
-                    // signal before tests
-                    SignalingExecutorCompletionService.signal(event.getProject());
-                }
-            }
+            execution.beforeMojo(event.getProject(), event.getExecution());
         });
+
+        CurrentProjectExecution execution = CurrentProjectExecution.get();
+        if (execution != null) {
+            try {
+                execution.checkUpstreamFailure(event.getExecution());
+                // after the signal, so the downstream dependencies are not blocked
+                execution.yieldAfterSignal();
+                execution.acquireResources(event.getExecution());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting to continue the build", e);
+            }
+        }
     }
 
     @Override
     public void afterMojoExecutionSuccess(MojoExecutionEvent event) {
         CurrentProjectExecution.ifPresent(execution -> {
-            if (execution.packageMojos == null) {
-                logger.warn("packageMojos not initialized in TurboProjectExecutionListener");
+            execution.events.mojoFinished(event.getExecution(), true);
+            execution.releaseMojoResources();
+            if (execution.milestoneMojos == null) {
+                logger.warn("milestoneMojos not initialized in TurboProjectExecutionListener");
                 return;
             }
-            if (!execution.signaled) {
-                if (execution.packageMojos.contains(event.getExecution())) {
-                    execution.executedPackageMojos.add(event.getExecution());
-                    if (execution.packageMojos.equals(execution.executedPackageMojos)) {
-                        execution.signaled = true;
-                        // signal after package
-                        SignalingExecutorCompletionService.signal(event.getProject());
-                    }
-                }
-            }
+            execution.afterMojo(event.getProject(), event.getExecution());
         });
     }
 
     @Override
-    public void afterExecutionFailure(MojoExecutionEvent event) {}
+    public void afterExecutionFailure(MojoExecutionEvent event) {
+        CurrentProjectExecution.ifPresent(execution -> {
+            execution.events.mojoFinished(event.getExecution(), false);
+            execution.releaseMojoResources();
+        });
+    }
 }
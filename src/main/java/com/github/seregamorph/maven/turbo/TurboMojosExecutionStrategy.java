@@ -0,0 +1,180 @@
+package com.github.seregamorph.maven.turbo;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.lifecycle.LifecycleExecutionException;
+import org.apache.maven.lifecycle.internal.MojoExecutor;
+import org.apache.maven.lifecycle.internal.ProjectIndex;
+import org.apache.maven.plugin.DefaultMojosExecutionStrategy;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.MojoExecutionRunner;
+import org.apache.maven.plugin.MojosExecutionStrategy;
+import org.apache.maven.plugin.descriptor.MojoDescriptor;
+import org.eclipse.sisu.Priority;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executes the mojos of the module sequentially like the default strategy, but with "-DturboDeferMojos" parameter
+ * the known-independent mojos are deferred after the signal and executed by the module thread after the main chain of
+ * the post-signal mojos, before the verify, install and deploy phases (see {@link DeferredMojos}), so they delay
+ * neither the downstream dependencies nor the tests. All mojos are executed via the runner of Maven, under the project lock and with the mojo execution
+ * listeners. Only the mojos without forked executions, which don't reach the milestones of the module, are deferred.
+ * <p>
+ * The install and deploy mojos of the execution plan may be deferred to the batched stage after the build, see
+ * {@link DeferredInstall}. The early started modules execute the dependency-independent prefix of the execution plan
+ * via a separate {@link MojoExecutor} call and are parked before the remaining mojos, see {@link EarlyStart}.
+ * <p>
+ * The strategy is bound globally by the extension, but it's applied only if the turbo builder is active, otherwise
+ * the mojos are executed by {@link DefaultMojosExecutionStrategy}.
+ *
+ * @author Sergey Chernov
+ */
+@Named
+@Singleton
+@Priority(5)
+public class TurboMojosExecutionStrategy implements MojosExecutionStrategy {
+
+    private static final Logger logger = LoggerFactory.getLogger(TurboMojosExecutionStrategy.class);
+
+    private final MojosExecutionStrategy defaultStrategy = new DefaultMojosExecutionStrategy();
+    private final MojoExecutor mojoExecutor;
+
+    @Inject
+    public TurboMojosExecutionStrategy(MojoExecutor mojoExecutor) {
+        this.mojoExecutor = mojoExecutor;
+    }
+
+    @Override
+    public void execute(List<MojoExecution> mojos, MavenSession session, MojoExecutionRunner mojoRunner)
+            throws LifecycleExecutionException {
+        if (!TurboBuilder.BUILDER_TURBO.equals(session.getRequest().getBuilderId())) {
+            defaultStrategy.execute(mojos, session, mojoRunner);
+            return;
+        }
+        CurrentProjectExecution execution = CurrentProjectExecution.get();
+        boolean executionPlan = execution != null && mojos == execution.executionPlan;
+        DeferredInstall deferredInstall = SessionDataUtils.get(session, DeferredInstall.class);
+        if (executionPlan && deferredInstall != null) {
+            mojos = deferMojos(deferredInstall, session, mojos);
+        }
+        if (executionPlan && execution.isEarlyStarted()) {
+            mojos = executeEarly(execution, session, mojos);
+        }
+        // forked executions and the modules without signal are executed sequentially
+        if (!executionPlan || execution.deferMojos.isEmpty() || execution.skipSignal || !session.isParallel()) {
+            runAll(mojoRunner, mojos);
+            return;
+        }
+
+        // the deferrable mojos before the signal are deferred, so they don't delay the downstream dependencies
+        List<MojoExecution> preSignalMojos = new ArrayList<>();
+        int index = 0;
+        while (index < mojos.size() && !execution.signaled) {
+            MojoExecution mojoExecution = mojos.get(index++);
+            if (isDeferrableMojo(execution, mojoExecution)) {
+                preSignalMojos.add(mojoExecution);
+                continue;
+            }
+            if (DeferredMojos.isDeadline(mojoExecution)) {
+                runAll(mojoRunner, preSignalMojos);
+                preSignalMojos.clear();
+            }
+            mojoRunner.run(mojoExecution);
+        }
+        DeferredMojos deferred = DeferredMojos.split(
+                preSignalMojos,
+                mojos.subList(index, mojos.size()),
+                mojoExecution -> isDeferrableMojo(execution, mojoExecution));
+        if (!deferred.deferredMojos.isEmpty()) {
+            logger.debug("Deferred {} of {}", deferred.deferredMojos, session.getCurrentProject());
+        }
+        for (int i = 0; i <= deferred.mainMojos.size(); i++) {
+            if (i == deferred.deadlineIndex) {
+                runAll(mojoRunner, deferred.deferredMojos);
+            }
+            if (i < deferred.mainMojos.size()) {
+                mojoRunner.run(deferred.mainMojos.get(i));
+            }
+        }
+    }
+
+    /**
+     * @return the mojos executed by the module build, the install and deploy mojos may be deferred to the batched stage
+     * after the build, see {@link DeferredInstall}
+     */
+    private static List<MojoExecution> deferMojos(
+            DeferredInstall deferredInstall, MavenSession session, List<MojoExecution> mojos) {
+        List<MojoExecution> moduleMojos = new ArrayList<>(mojos.size());
+        for (MojoExecution mojoExecution : mojos) {
+            if (deferredInstall.defer(session, session.getCurrentProject(), mojoExecution)) {
+                logger.debug("Deferred {} of {}", mojoExecution, session.getCurrentProject());
+            } else {
+                moduleMojos.add(mojoExecution);
+            }
+        }
+        return moduleMojos;
+    }
+
+    /**
+     * Executes the dependency-independent prefix of the execution plan of the early started module, then parks the
+     * module until the upstream modules are signaled, see {@link EarlyStart}. Maven resolves the dependency scopes of
+     * the whole execution plan before its first mojo (the upstream modules would be resolved from the local
+     * repository), so the prefix is executed via a separate {@link MojoExecutor} call with its own dependency context.
+     *
+     * @return the remaining mojos of the execution plan
+     */
+    private List<MojoExecution> executeEarly(
+            CurrentProjectExecution execution, MavenSession session, List<MojoExecution> mojos)
+            throws LifecycleExecutionException {
+        int prefix = 0;
+        while (prefix < mojos.size() && EarlyStart.isIndependent(mojos.get(prefix))) {
+            prefix++;
+        }
+        if (prefix > 0) {
+            // a copy, so the nested call of the strategy executes the prefix sequentially
+            mojoExecutor.execute(
+                    session, new ArrayList<>(mojos.subList(0, prefix)), new ProjectIndex(session.getProjects()));
+        }
+        try {
+            execution.awaitUpstreams();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LifecycleExecutionException(
+                    "Interrupted while waiting for the upstream modules of " + session.getCurrentProject(), e);
+        }
+        return mojos.subList(prefix, mojos.size());
+    }
+
+    /**
+     * @return true if the prefix of the execution plan can be executed separately, see {@link #executeEarly}
+     */
+    static boolean isEarlyStartSupported() {
+        try {
+            MojoExecutor.class.getMethod("execute", MavenSession.class, List.class, ProjectIndex.class);
+            return true;
+        } catch (NoSuchMethodException | LinkageError e) {
+            return false;
+        }
+    }
+
+    private static void runAll(MojoExecutionRunner mojoRunner, List<MojoExecution> mojos)
+            throws LifecycleExecutionException {
+        for (MojoExecution mojoExecution : mojos) {
+            mojoRunner.run(mojoExecution);
+        }
+    }
+
+    private static boolean isDeferrableMojo(CurrentProjectExecution execution, MojoExecution mojoExecution) {
+        MojoDescriptor mojoDescriptor = mojoExecution.getMojoDescriptor();
+        return mojoDescriptor != null
+                && DeferredMojos.matches(execution.deferMojos, mojoExecution)
+                && !mojoDescriptor.isAggregator()
+                && mojoExecution.getForkedExecutions().isEmpty()
+                && !execution.isMilestoneMojo(mojoExecution);
+    }
+}
@@ -1,12 +1,13 @@
 package com.github.seregamorph.maven.turbo;
 
-import static com.github.seregamorph.maven.turbo.PhaseOrderPatcher.isPackage;
-
-import java.util.stream.Collectors;
+import java.util.List;
 import javax.inject.Named;
 import javax.inject.Singleton;
 import org.apache.maven.execution.ProjectExecutionEvent;
 import org.apache.maven.execution.ProjectExecutionListener;
+import org.apache.maven.plugin.MojoExecution;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * @author Sergey Chernov
@@ -15,23 +16,30 @@ import org.apache.maven.execution.ProjectExecutionListener;
 @Singleton
 public class TurboProjectExecutionListener implements ProjectExecutionListener {
 
+    private static final Logger logger = LoggerFactory.getLogger(TurboProjectExecutionListener.class);
+
     @Override
     public void beforeProjectExecution(ProjectExecutionEvent event) {}
 
     @Override
     public void beforeProjectLifecycleExecution(ProjectExecutionEvent event) {
         CurrentProjectExecution.ifPresent(execution -> {
-            execution.packageMojos = event.getExecutionPlan().stream()
-                    .filter(mojo -> {
-                        String lifecyclePhase = mojo.getLifecyclePhase();
-                        return lifecyclePhase != null && isPackage(lifecyclePhase);
-                    })
-                    .collect(Collectors.toList());
+            execution.events.moduleLifecycleStarted(event.getProject());
+            execution.initMilestones(event.getExecutionPlan());
 
             if (isReorderPhases()) {
-                TurboBuilderConfig config = TurboBuilderConfig.fromSession(event.getSession());
+                TurboBuilderConfig config = TurboBuilderConfig.get(event.getSession());
                 PhaseOrderPatcher.reorderPhases(config, event.getExecutionPlan(), MojoUtils::getMojoPhase);
             }
+            // per module: the execution plan is reordered in-place for both Maven 3 and Maven 4
+            if (PhaseOrderPatcher.moveTestJarAfterTestClasses(
+                    event.getExecutionPlan(), MojoUtils::getMojoPhase, MojoUtils::isTestJar)) {
+                logger.debug("Moved test-jar packaging of {} after the test classes", event.getProject());
+            }
+            List<MojoExecution> movedMojos = execution.moveAfterSignal(event.getExecutionPlan());
+            if (!movedMojos.isEmpty()) {
+                logger.debug("Moved {} of {} after the signal", movedMojos, event.getProject());
+            }
         });
     }
 
@@ -0,0 +1,85 @@
+package com.github.seregamorph.maven.turbo;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.apache.maven.lifecycle.internal.BuildThreadFactory;
+
+/**
+ * Executor supporting task ordering, prioritize building modules according to the {@link SchedulingPriority}.
+ * <p>
+ * Similar to {@link ForkJoinPool}, the worker thread which is blocked for a long time (e.g. waiting for a resource
+ * permit) can be compensated via {@link #managedBlock(ForkJoinPool.ManagedBlocker)}: the pool starts an extra thread,
+ * so the other modules keep being built.
+ *
+ * @author Sergey Chernov
+ */
+final class TurboThreadPoolExecutor extends ThreadPoolExecutor {
+
+    private static final ThreadLocal<TurboThreadPoolExecutor> currentExecutor = new ThreadLocal<>();
+
+    TurboThreadPoolExecutor(int nThreads) {
+        super(nThreads, nThreads, 0L, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<>(), new BuildThreadFactory());
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+        return new OrderedFutureTask<>((OrderedCallable<T>) callable);
+    }
+
+    @Override
+    protected void beforeExecute(Thread t, Runnable r) {
+        currentExecutor.set(this);
+    }
+
+    @Override
+    protected void afterExecute(Runnable r, Throwable t) {
+        currentExecutor.remove();
+    }
+
+    /**
+     * Blocks the current thread until the blocker is released. If the current thread is a worker of
+     * {@link TurboThreadPoolExecutor} or {@link ForkJoinPool}, the pool is compensated with an extra thread while
+     * the current one is blocked.
+     */
+    static void managedBlock(ForkJoinPool.ManagedBlocker blocker) throws InterruptedException {
+        if (blocker.isReleasable()) {
+            return;
+        }
+        TurboThreadPoolExecutor executor = currentExecutor.get();
+        if (executor == null || Thread.currentThread() instanceof ForkJoinWorkerThread) {
+            // compensated by the ForkJoinPool or not a pool thread
+            ForkJoinPool.managedBlock(blocker);
+            return;
+        }
+        executor.compensate(1);
+        try {
+            while (!blocker.isReleasable() && !blocker.block()) {
+                // wait
+            }
+        } finally {
+            executor.compensate(-1);
+        }
+    }
+
+    /*@Nullable*/
+    static TurboThreadPoolExecutor current() {
+        return currentExecutor.get();
+    }
+
+    synchronized void compensate(int delta) {
+        if (delta > 0) {
+            // increase max first, as max cannot be less than core
+            setMaximumPoolSize(getMaximumPoolSize() + delta);
+            setCorePoolSize(getCorePoolSize() + delta);
+        } else {
+            // the excess thread terminates when it becomes idle
+            setCorePoolSize(getCorePoolSize() + delta);
+            setMaximumPoolSize(getMaximumPoolSize() + delta);
+        }
+    }
+}
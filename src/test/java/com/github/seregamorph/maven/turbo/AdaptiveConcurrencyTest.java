@@ -0,0 +1,68 @@
+package com.github.seregamorph.maven.turbo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Sergey Chernov
+ */
+class AdaptiveConcurrencyTest {
+
+    @Test
+    public void shouldAdjustLimit() {
+        var overloaded = new AdaptiveConcurrency.Sample(2.0, 0.5, 0.5);
+        assertEquals(3, AdaptiveConcurrency.nextLimit(4, 2, 8, overloaded));
+        assertEquals(2, AdaptiveConcurrency.nextLimit(2, 2, 8, overloaded));
+
+        var heapPressure = new AdaptiveConcurrency.Sample(0.1, 0.1, 0.95);
+        assertEquals(3, AdaptiveConcurrency.nextLimit(4, 2, 8, heapPressure));
+
+        var idle = new AdaptiveConcurrency.Sample(0.2, 0.1, 0.3);
+        assertEquals(5, AdaptiveConcurrency.nextLimit(4, 2, 8, idle));
+        assertEquals(8, AdaptiveConcurrency.nextLimit(8, 2, 8, idle));
+
+        var busy = new AdaptiveConcurrency.Sample(1.0, 0.9, 0.3);
+        assertEquals(4, AdaptiveConcurrency.nextLimit(4, 2, 8, busy));
+
+        // load average is not available on Windows
+        var noLoadAverage = new AdaptiveConcurrency.Sample(-1.0, 0.1, 0.3);
+        assertEquals(5, AdaptiveConcurrency.nextLimit(4, 2, 8, noLoadAverage));
+    }
+
+    @Test
+    public void shouldRejectInvalidBounds() {
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrency(0, 4));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrency(4, 2));
+    }
+
+    @Test
+    public void shouldBlockWhenLimitDecreased() throws InterruptedException {
+        var limiter = new ConcurrencyLimiter(2);
+        limiter.acquire();
+        limiter.acquire();
+        limiter.setLimit(1);
+        limiter.release();
+
+        var acquired = new CountDownLatch(1);
+        var thread = new Thread(() -> {
+            try {
+                limiter.acquire();
+                acquired.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        thread.start();
+        // one running module with the limit 1
+        assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+        limiter.setLimit(2);
+        assertTrue(acquired.await(10, TimeUnit.SECONDS));
+        thread.join();
+    }
+}
@@ -0,0 +1,77 @@
+package com.github.seregamorph.maven.turbo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @author Sergey Chernov
+ */
+class AffectedModulesTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    public void shouldCalculateAffectedProjects() {
+        // parent -> [core -> [lib], other]
+        var testGraph = new SchedulingPriorityTest.TestGraph();
+        var parent = testGraph.add("parent");
+        parent.setPackaging("pom");
+        parent.setFile(root.resolve("pom.xml").toFile());
+        var core = testGraph.add("core", parent);
+        core.setFile(root.resolve("core").resolve("pom.xml").toFile());
+        var lib = testGraph.add("lib", parent, core);
+        lib.setFile(root.resolve("lib").resolve("pom.xml").toFile());
+        var other = testGraph.add("other", parent);
+        other.setFile(root.resolve("other").resolve("pom.xml").toFile());
+
+        var changedProjects = AffectedModules.changedProjects(
+                testGraph.getAllProjects(),
+                List.of(root.resolve("README.md"), root.resolve("core/src/main/java/core/Core.java")));
+        assertEquals(Set.of(core), changedProjects);
+        assertEquals(Set.of(core, lib), AffectedModules.affectedProjects(changedProjects, testGraph));
+
+        assertEquals(
+                Set.of(parent),
+                AffectedModules.changedProjects(testGraph.getAllProjects(), List.of(root.resolve("pom.xml"))));
+    }
+
+    @Test
+    public void shouldCollectChangedFiles() throws Exception {
+        git("init", "-q");
+        Files.writeString(root.resolve("committed.txt"), "base");
+        Files.writeString(root.resolve("unchanged.txt"), "base");
+        git("add", ".");
+        git("commit", "-q", "-m", "base");
+        git("tag", "base");
+        Files.writeString(root.resolve("committed.txt"), "changed");
+        git("commit", "-q", "-a", "-m", "change");
+        Files.writeString(root.resolve("unchanged.txt"), "uncommitted");
+        Files.writeString(root.resolve("untracked.txt"), "untracked");
+
+        var realRoot = root.toRealPath();
+        assertEquals(
+                Set.of(
+                        realRoot.resolve("committed.txt"),
+                        realRoot.resolve("unchanged.txt"),
+                        realRoot.resolve("untracked.txt")),
+                AffectedModules.changedFiles(root, "base"));
+    }
+
+    private void git(String... args) throws IOException, InterruptedException {
+        var command = new ArrayList<String>();
+        command.addAll(List.of("git", "-c", "user.name=test", "-c", "user.email=test@example.com"));
+        command.addAll(List.of(args));
+        var process =
+                new ProcessBuilder(command).directory(root.toFile()).inheritIO().start();
+        assertEquals(0, process.waitFor());
+    }
+}
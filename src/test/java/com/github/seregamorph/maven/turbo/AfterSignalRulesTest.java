@@ -0,0 +1,76 @@
+package com.github.seregamorph.maven.turbo;
+
+import static com.github.seregamorph.maven.turbo.TestFixtures.mojo;
+import static com.github.seregamorph.maven.turbo.TestFixtures.session;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.ProjectExecutionEvent;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Sergey Chernov
+ */
+class AfterSignalRulesTest {
+
+    @Test
+    public void shouldParseAndMatchRules() {
+        assertEquals(Set.of(), AfterSignalRules.parseRules(null));
+        assertEquals(Set.of(), AfterSignalRules.parseRules("false"));
+        assertEquals(AfterSignalRules.DEFAULT_RULES, AfterSignalRules.parseRules("true"));
+
+        var rules = AfterSignalRules.parseRules(
+                "com.diffplug.spotless:spotless-maven-plugin:check, maven-enforcer-plugin, process-classes");
+        assertTrue(AfterSignalRules.matches(
+                rules, mojo("process-sources", "com.diffplug.spotless:spotless-maven-plugin", "check")));
+        assertFalse(AfterSignalRules.matches(
+                rules, mojo("process-sources", "com.diffplug.spotless:spotless-maven-plugin", "apply")));
+        assertTrue(AfterSignalRules.matches(rules, mojo("validate", "maven-enforcer-plugin", "enforce")));
+        assertTrue(AfterSignalRules.matches(
+                rules, mojo("process-classes", "org.codehaus.mojo:animal-sniffer-maven-plugin", "check")));
+        assertFalse(AfterSignalRules.matches(rules, mojo("compile", "maven-compiler-plugin", "compile")));
+    }
+
+    @Test
+    public void shouldMoveMojosAfterSignal() {
+        var enforce = mojo("validate", "maven-enforcer-plugin", "enforce");
+        var spotless = mojo("process-sources", "com.diffplug.spotless:spotless-maven-plugin", "check");
+        var compile = mojo("compile", "maven-compiler-plugin", "compile");
+        var animalSniffer = mojo("process-classes", "org.codehaus.mojo:animal-sniffer-maven-plugin", "check");
+        var testCompile = mojo("test-compile", "maven-compiler-plugin", "testCompile");
+        var test = mojo("test", "maven-surefire-plugin", "test");
+        var jar = mojo("package", "maven-jar-plugin", "jar");
+        var install = mojo("install", "maven-install-plugin", "install");
+        var executionPlan =
+                new ArrayList<>(List.of(enforce, spotless, compile, animalSniffer, testCompile, test, jar, install));
+
+        var request = new DefaultMavenExecutionRequest();
+        request.getUserProperties().setProperty("turboAfterSignalMojos", "true");
+        var session = session(request);
+        var project = new MavenProject();
+        var listener = new TurboProjectExecutionListener() {
+            @Override
+            boolean isReorderPhases() {
+                return true;
+            }
+        };
+
+        CurrentProjectExecution.doWithCurrentProject(session, project, () -> {
+            listener.beforeProjectLifecycleExecution(new ProjectExecutionEvent(session, project, executionPlan));
+            var execution = CurrentProjectExecution.get();
+            assertFalse(execution.isMilestoneMojo(enforce));
+            assertFalse(execution.isMilestoneMojo(animalSniffer));
+            assertTrue(execution.isMilestoneMojo(compile));
+            assertTrue(execution.isMilestoneMojo(jar));
+        });
+
+        assertEquals(
+                List.of(compile, jar, enforce, spotless, animalSniffer, testCompile, test, install), executionPlan);
+    }
+}
@@ -0,0 +1,72 @@
+package com.github.seregamorph.maven.turbo;
+
+import static com.github.seregamorph.maven.turbo.TestFixtures.attachArtifact;
+import static com.github.seregamorph.maven.turbo.TestFixtures.project;
+import static com.github.seregamorph.maven.turbo.TestFixtures.projectHelper;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @author Sergey Chernov
+ */
+class BuildCacheTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    public void shouldStoreAndRestoreBuildOutputs() throws Exception {
+        var buildCache = new BuildCache(root.resolve("cache"), 1024L * 1024L, projectHelper());
+        var project = project("core", root.resolve("core"));
+        Files.createDirectories(root.resolve("core/target/classes/core"));
+        Files.writeString(root.resolve("core/target/classes/core/Core.class"), "bytecode");
+        Files.writeString(root.resolve("core/target/core-1.0.jar"), "jar");
+        Files.writeString(root.resolve("core/target/core-1.0-tests.jar"), "test-jar");
+        project.getArtifact().setFile(root.resolve("core/target/core-1.0.jar").toFile());
+        attachArtifact(project, "test-jar", "tests", root.resolve("core/target/core-1.0-tests.jar"));
+
+        assertFalse(buildCache.restore(project, "fingerprint"));
+        buildCache.store(project, "fingerprint");
+
+        var checkout = project("core", root.resolve("checkout"));
+        assertTrue(buildCache.restore(checkout, "fingerprint"));
+        assertEquals("bytecode", Files.readString(root.resolve("checkout/target/classes/core/Core.class")));
+        assertEquals(
+                root.resolve("checkout/target/core-1.0.jar").toFile(),
+                checkout.getArtifact().getFile());
+        assertEquals("jar", Files.readString(checkout.getArtifact().getFile().toPath()));
+        var restoredTestJar = checkout.getAttachedArtifacts().get(0);
+        assertEquals("test-jar", restoredTestJar.getType());
+        assertEquals("tests", restoredTestJar.getClassifier());
+        assertEquals("test-jar", Files.readString(restoredTestJar.getFile().toPath()));
+        assertFalse(buildCache.restore(checkout, "other"));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedEntries() throws Exception {
+        // fits two entries of 400 bytes
+        var buildCache = new BuildCache(root.resolve("cache"), 1000L, projectHelper());
+        var project = project("core", root.resolve("core"));
+        Files.createDirectories(root.resolve("core/target/classes"));
+        Files.write(root.resolve("core/target/classes/Core.class"), new byte[400]);
+
+        buildCache.store(project, "first");
+        buildCache.store(project, "second");
+        // make the order of access times deterministic
+        Files.setLastModifiedTime(root.resolve("cache/first/manifest.tsv"), FileTime.fromMillis(1000L));
+        Files.setLastModifiedTime(root.resolve("cache/second/manifest.tsv"), FileTime.fromMillis(2000L));
+        assertTrue(buildCache.restore(project, "first"));
+        buildCache.store(project, "third");
+
+        assertTrue(Files.exists(root.resolve("cache/first")));
+        assertFalse(Files.exists(root.resolve("cache/second")));
+        assertTrue(Files.exists(root.resolve("cache/third")));
+    }
+}
@@ -0,0 +1,78 @@
+package com.github.seregamorph.maven.turbo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @author Sergey Chernov
+ */
+class BuildMetricsRecorderTest {
+
+    private static final long MS = 1_000_000L;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void shouldCalculateMetrics() throws Exception {
+        // core -> [lib, other]; lib -> [app]
+        var testGraph = new SchedulingPriorityTest.TestGraph();
+        var core = testGraph.add("core");
+        var lib = testGraph.add("lib", core);
+        var other = testGraph.add("other", core);
+        var app = testGraph.add("app", lib);
+
+        var recorder = new BuildMetricsRecorder(2, 0L);
+        recorder.addRun(run(core, 0, 0, 300, 1000));
+        // lib waits in the queue for 100ms
+        recorder.addRun(run(lib, 300, 400, 600, 900));
+        recorder.addRun(run(other, 300, 300, -1, 500));
+        recorder.addRun(run(app, 600, 600, -1, 1200));
+        recorder.buildFinished(1200 * MS);
+
+        var metrics = recorder.getMetrics(testGraph);
+        assertEquals(1200 * MS, metrics.wallNanos);
+        assertEquals(2300 * MS, metrics.busyNanos);
+        assertEquals(100 * MS, metrics.idleNanos());
+        assertEquals(1.917, metrics.averageParallelism(), 0.001);
+        assertEquals(
+                List.of(core, lib, app),
+                metrics.criticalPath.stream().map(run -> run.project).toList());
+        // core to signal + lib to signal + app total
+        assertEquals(1100 * MS, metrics.criticalPathNanos());
+
+        var table = metrics.toTable();
+        assertEquals(
+                "Build time 1.20s, 2 threads, average parallelism 1.92 (96%), idle worker time 0.10s", table.get(0));
+        assertEquals("Module      Queue  To signal      Total", table.get(1));
+        assertEquals("lib         0.10s      0.20s      0.50s", table.get(4));
+        assertEquals("Critical path 1.10s: core -> lib -> app", table.get(table.size() - 1));
+
+        var file = tempDir.resolve("target/turbo-metrics.json");
+        metrics.write(file);
+        var json = Files.readString(file);
+        assertTrue(
+                json.contains("\"criticalPath\": [\"com.example:core\", \"com.example:lib\", \"com.example:app\"]"),
+                json);
+        assertTrue(
+                json.contains("{\"module\": \"com.example:lib\", \"queueMillis\": 100, \"toSignalMillis\": 200, "
+                        + "\"totalMillis\": 500}"),
+                json);
+    }
+
+    private static BuildMetricsRecorder.ModuleRun run(
+            org.apache.maven.project.MavenProject project, long queued, long start, long signal, long finish) {
+        var run = new BuildMetricsRecorder.ModuleRun(project, queued * MS, start * MS);
+        if (signal >= 0) {
+            run.signalNanos = signal * MS;
+        }
+        run.finished(finish * MS);
+        return run;
+    }
+}
@@ -0,0 +1,86 @@
+package com.github.seregamorph.maven.turbo;
+
+import static com.github.seregamorph.maven.turbo.TestFixtures.project;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @author Sergey Chernov
+ */
+class BuildTimingStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void shouldLoadDecayedDurations() throws IOException {
+        var file = tempDir.resolve("timings.tsv");
+        // the per-mojo "J" line of the older versions and the partially written line are ignored
+        Files.writeString(
+                file,
+                """
+                R\trun1\t1000
+                M\trun1\tcom.example:core\tBuilderThread 1\t0\t1000\t3000
+                J\trun1\tcom.example:core\tmaven-compiler-plugin:compile@default-compile\t900
+                R\trun2\t2000
+                M\trun2\tcom.example:core\tBuilderThread 2\t0\t2000\t6000
+                M\trun2\tcom.example:app\tBuilderThread 1\t2000\t2500\t2600
+                M\trun3\tcom.example:app\tBuilderThread 1\t2000
+                """);
+
+        var history = new BuildTimingStore(file, 10).load();
+
+        // the store directory is excluded from git
+        assertEquals("*\n", Files.readString(tempDir.resolve(".gitignore")));
+        assertEquals(2, history.getRuns());
+        assertEquals(2, history.getModules());
+        // weights: run1 - 0.7, run2 - 1.0
+        assertEquals(Math.round((0.7 * 1000 + 2000) / 1.7), history.preSignalMillis(project("core")));
+        assertEquals(Math.round((0.7 * 2000 + 4000) / 1.7), history.postSignalMillis(project("core")));
+        assertEquals(500L, history.preSignalMillis(project("app")));
+        assertEquals(100L, history.postSignalMillis(project("app")));
+        // unknown module is estimated as average
+        assertEquals(
+                (history.preSignalMillis(project("core")) + 500L) / 2, history.preSignalMillis(project("unknown")));
+    }
+
+    @Test
+    public void shouldUseWindowOfLastRunsAndCompact() throws IOException {
+        var file = tempDir.resolve("timings.tsv");
+        var store = new BuildTimingStore(file, 2);
+        var content = new StringBuilder();
+        for (int i = 1; i <= 5; i++) {
+            content.append("R\trun").append(i).append("\t").append(i).append('\n');
+            content.append("M\trun")
+                    .append(i)
+                    .append("\tcom.example:core\tBuilderThread 1\t0\t")
+                    .append(i * 100)
+                    .append('\t')
+                    .append(i * 100)
+                    .append('\n');
+        }
+        Files.writeString(file, content);
+
+        var history = store.load();
+        assertEquals(2, history.getRuns());
+        assertEquals(Math.round((0.7 * 400 + 500) / 1.7), history.preSignalMillis(project("core")));
+
+        var recorder = new BuildTimingRecorder();
+        var timing = recorder.moduleStarted(project("core"), "BuilderThread 1");
+        timing.signaled();
+        timing.finished(true);
+        store.append(recorder);
+
+        var lines = Files.readAllLines(file);
+        assertEquals(2, lines.stream().filter(line -> line.startsWith("R\t")).count());
+        assertTrue(lines.get(0).startsWith("R\trun5\t"), lines.get(0));
+        assertTrue(lines.stream().allMatch(line -> line.startsWith("R\t") || line.startsWith("M\t")), lines::toString);
+        assertEquals(2, store.load().getRuns());
+    }
+}
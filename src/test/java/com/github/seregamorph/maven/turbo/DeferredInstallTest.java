@@ -0,0 +1,130 @@
+package com.github.seregamorph.maven.turbo;
+
+import static com.github.seregamorph.maven.turbo.TestFixtures.attachArtifact;
+import static com.github.seregamorph.maven.turbo.TestFixtures.mojo;
+import static com.github.seregamorph.maven.turbo.TestFixtures.project;
+import static com.github.seregamorph.maven.turbo.TestFixtures.session;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.eclipse.aether.artifact.Artifact;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @author Sergey Chernov
+ */
+class DeferredInstallTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    public void shouldDeferInstallAndDeployMojos() throws Exception {
+        var session = session();
+        var project = project("core", root.resolve("core"));
+        var install = mojo("install", "maven-install-plugin", "install");
+        var deploy = mojo("deploy", "maven-deploy-plugin", "deploy");
+
+        var installOnly = new DeferredInstall(true, null);
+        assertTrue(installOnly.isEmpty());
+        assertTrue(installOnly.defer(session, project, install));
+        assertFalse(installOnly.defer(session, project, deploy));
+        assertFalse(installOnly.defer(session, project, mojo("package", "maven-jar-plugin", "jar")));
+        assertEquals(1, installOnly.getModules());
+
+        var deployOnly = new DeferredInstall(false, root.resolve("deploy"));
+        assertFalse(deployOnly.defer(session, project, install));
+        assertTrue(deployOnly.defer(session, project, deploy));
+
+        session.getUserProperties().setProperty("maven.install.skip", "true");
+        assertFalse(new DeferredInstall(true, null).defer(session, project, install));
+    }
+
+    @Test
+    public void shouldNotDeferMojosSkippedByProjectProperty() {
+        var session = session();
+        var project = project("core", root.resolve("core"));
+        session.setCurrentProject(project);
+        project.getProperties().setProperty("maven.install.skip", "true");
+
+        var deferredInstall = new DeferredInstall(true, root.resolve("deploy"));
+        assertFalse(deferredInstall.defer(session, project, mojo("install", "maven-install-plugin", "install")));
+        assertTrue(deferredInstall.defer(session, project, mojo("deploy", "maven-deploy-plugin", "deploy")));
+    }
+
+    @Test
+    public void shouldNotDeferMojosSkippedByExpression() {
+        var session = session();
+        var project = project("core", root.resolve("core"));
+        session.setCurrentProject(project);
+        var install = mojo("install", "maven-install-plugin", "install");
+        var configuration = new Xpp3Dom("configuration");
+        var skip = new Xpp3Dom("skip");
+        skip.setValue("${skipInstall}");
+        configuration.addChild(skip);
+        install.setConfiguration(configuration);
+
+        assertTrue(new DeferredInstall(true, null).defer(session, project, install));
+
+        project.getProperties().setProperty("skipInstall", "true");
+        assertFalse(new DeferredInstall(true, null).defer(session, project, install));
+    }
+
+    @Test
+    public void shouldCopyArtifactsAndRegisterInstalled() throws Exception {
+        var session = session();
+        var project = project("core", root.resolve("core"));
+        Files.createDirectories(root.resolve("core/target"));
+        Files.writeString(root.resolve("core/pom.xml"), "pom");
+        Files.writeString(root.resolve("core/target/core-1.0.jar"), "jar");
+        Files.setLastModifiedTime(root.resolve("core/target/core-1.0.jar"), FileTime.fromMillis(1000L));
+        Files.writeString(root.resolve("core/target/core-1.0-sources.jar"), "sources");
+        project.getArtifact().setFile(root.resolve("core/target/core-1.0.jar").toFile());
+        attachArtifact(project, "java-source", "sources", root.resolve("core/target/core-1.0-sources.jar"));
+
+        var deferredInstall = new DeferredInstall(true, root.resolve("deploy"));
+        deferredInstall.defer(session, project, mojo("install", "maven-install-plugin", "install"));
+        deferredInstall.defer(session, project, mojo("deploy", "maven-deploy-plugin", "deploy"));
+        List<Artifact> installed = Collections.synchronizedList(new ArrayList<>());
+        int copied = deferredInstall.execute(
+                2,
+                root.resolve("repository"),
+                artifact -> "local/" + DeferredInstall.remotePath(artifact),
+                artifacts -> {
+                    installed.addAll(artifacts);
+                });
+
+        // the pom is copied to the local repository by the installer
+        assertEquals(5, copied);
+        assertEquals(3, installed.size());
+        Path jar = root.resolve("repository/local/com/example/core/1.0/core-1.0.jar");
+        assertEquals("jar", Files.readString(jar));
+        assertEquals(FileTime.fromMillis(1000L), Files.getLastModifiedTime(jar));
+        assertEquals(
+                "sources",
+                Files.readString(root.resolve("repository/local/com/example/core/1.0/core-1.0-sources.jar")));
+        assertFalse(Files.exists(root.resolve("repository/local/com/example/core/1.0/core-1.0.pom")));
+        assertEquals("pom", Files.readString(root.resolve("deploy/com/example/core/1.0/core-1.0.pom")));
+        assertEquals("jar", Files.readString(root.resolve("deploy/com/example/core/1.0/core-1.0.jar")));
+        assertEquals("sources", Files.readString(root.resolve("deploy/com/example/core/1.0/core-1.0-sources.jar")));
+    }
+
+    @Test
+    public void shouldFailWithoutMainArtifactFile() throws Exception {
+        var project = project("core", root.resolve("core"));
+        assertThrows(IllegalStateException.class, () -> DeferredInstall.artifacts(project));
+
+        project.setPackaging("pom");
+        assertEquals(1, DeferredInstall.artifacts(project).size());
+    }
+}
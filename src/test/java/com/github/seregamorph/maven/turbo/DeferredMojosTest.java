@@ -0,0 +1,144 @@
+package com.github.seregamorph.maven.turbo;
+
+import static com.github.seregamorph.maven.turbo.TestFixtures.mojo;
+import static com.github.seregamorph.maven.turbo.TestFixtures.session;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.MojoExecutionEvent;
+import org.apache.maven.execution.ProjectExecutionEvent;
+import org.apache.maven.lifecycle.LifecycleExecutionException;
+import org.apache.maven.lifecycle.internal.MojoExecutor;
+import org.apache.maven.plugin.MojoExecutionRunner;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Sergey Chernov
+ */
+class DeferredMojosTest {
+
+    @Test
+    public void shouldParseMojos() {
+        assertEquals(Set.of(), DeferredMojos.parseMojos(null));
+        assertEquals(Set.of(), DeferredMojos.parseMojos("false"));
+        assertEquals(DeferredMojos.DEFAULT_MOJOS, DeferredMojos.parseMojos("true"));
+        assertEquals(
+                Set.of("maven-javadoc-plugin:jar", "cyclonedx-maven-plugin"),
+                DeferredMojos.parseMojos("maven-javadoc-plugin:jar, cyclonedx-maven-plugin"));
+
+        var mojos = DeferredMojos.parseMojos("maven-javadoc-plugin:jar,cyclonedx-maven-plugin");
+        assertTrue(DeferredMojos.matches(mojos, mojo("package", "maven-javadoc-plugin", "jar")));
+        assertFalse(DeferredMojos.matches(mojos, mojo("package", "maven-javadoc-plugin", "test-jar")));
+        assertTrue(DeferredMojos.matches(mojos, mojo("package", "cyclonedx-maven-plugin", "makeBom")));
+    }
+
+    @Test
+    public void shouldDeferMojosBeforeDeadline() {
+        var javadoc = mojo("package", "maven-javadoc-plugin", "jar", "compile");
+        var testCompile = mojo("test-compile", "maven-compiler-plugin", "testCompile", "test");
+        var sources = mojo("package", "maven-source-plugin", "jar-no-fork");
+        var test = mojo("test", "maven-surefire-plugin", "test", "test");
+        var verify = mojo("verify", "maven-gpg-plugin", "sign");
+        var lateSources = mojo("verify", "maven-source-plugin", "jar-no-fork");
+        var install = mojo("install", "maven-install-plugin", "install");
+
+        var deferred = DeferredMojos.split(
+                List.of(javadoc),
+                List.of(testCompile, sources, test, verify, lateSources, install),
+                mojo -> DeferredMojos.matches(DeferredMojos.DEFAULT_MOJOS, mojo));
+        assertEquals(List.of(javadoc, sources), deferred.deferredMojos);
+        assertEquals(List.of(testCompile, test, verify, lateSources, install), deferred.mainMojos);
+        assertEquals(2, deferred.deadlineIndex);
+
+        var withoutDeadline = DeferredMojos.split(List.of(), List.of(sources, test), mojo -> mojo == sources);
+        assertEquals(List.of(test), withoutDeadline.mainMojos);
+        assertEquals(1, withoutDeadline.deadlineIndex);
+    }
+
+    @Test
+    public void shouldExecuteDeferredMojosAfterTestsAndBeforeInstall() {
+        var events = execute(TurboBuilder.BUILDER_TURBO);
+        assertEquals(
+                List.of(
+                        "exec:maven-compiler-plugin:compile",
+                        "exec:maven-jar-plugin:jar",
+                        "signal",
+                        "exec:maven-compiler-plugin:testCompile",
+                        "exec:maven-surefire-plugin:test",
+                        "exec:maven-javadoc-plugin:jar",
+                        "exec:maven-source-plugin:jar-no-fork",
+                        "exec:maven-install-plugin:install"),
+                events);
+    }
+
+    @Test
+    public void shouldNotDeferMojosWithoutTurboBuilder() {
+        var events = execute("multithreaded");
+        assertEquals(
+                List.of(
+                        "exec:maven-compiler-plugin:compile",
+                        "exec:maven-jar-plugin:jar",
+                        "signal",
+                        "exec:maven-javadoc-plugin:jar",
+                        "exec:maven-source-plugin:jar-no-fork",
+                        "exec:maven-compiler-plugin:testCompile",
+                        "exec:maven-surefire-plugin:test",
+                        "exec:maven-install-plugin:install"),
+                events);
+    }
+
+    private static List<String> execute(String builderId) {
+        var executionPlan = new ArrayList<>(List.of(
+                mojo("compile", "maven-compiler-plugin", "compile", "compile"),
+                mojo("package", "maven-jar-plugin", "jar", "runtime"),
+                mojo("package", "maven-javadoc-plugin", "jar", "compile"),
+                mojo("package", "maven-source-plugin", "jar-no-fork"),
+                mojo("test-compile", "maven-compiler-plugin", "testCompile", "test"),
+                mojo("test", "maven-surefire-plugin", "test", "test"),
+                mojo("install", "maven-install-plugin", "install")));
+
+        var request = new DefaultMavenExecutionRequest();
+        request.setBuilderId(builderId);
+        request.getUserProperties().setProperty("turboDeferMojos", "true");
+        var session = session(request);
+        session.setParallel(true);
+        var project = new MavenProject();
+        session.setCurrentProject(project);
+
+        var events = new ArrayList<String>();
+        var strategy = new TurboMojosExecutionStrategy(new MojoExecutor());
+        var turboProjectExecutionListener = new TurboProjectExecutionListener() {
+            @Override
+            boolean isReorderPhases() {
+                return false;
+            }
+        };
+        var turboMojoExecutionListener = new TurboMojoExecutionListener();
+        MojoExecutionRunner mojoRunner = execution -> {
+            turboMojoExecutionListener.beforeMojoExecution(new MojoExecutionEvent(session, project, execution, null));
+            events.add("exec:" + execution.getArtifactId() + ":" + execution.getGoal());
+            turboMojoExecutionListener.afterMojoExecutionSuccess(
+                    new MojoExecutionEvent(session, project, execution, null));
+        };
+
+        CurrentProjectExecution.doWithCurrentProject(session, project, () -> {
+            turboProjectExecutionListener.beforeProjectLifecycleExecution(
+                    new ProjectExecutionEvent(session, project, executionPlan));
+            SignalingExecutorCompletionService.currentSignaler.set(p -> events.add("signal"));
+            try {
+                strategy.execute(executionPlan, session, mojoRunner);
+            } catch (LifecycleExecutionException e) {
+                throw new RuntimeException(e);
+            } finally {
+                SignalingExecutorCompletionService.currentSignaler.remove();
+            }
+        });
+        return events;
+    }
+}
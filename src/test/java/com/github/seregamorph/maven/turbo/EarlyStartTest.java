@@ -0,0 +1,203 @@
+package com.github.seregamorph.maven.turbo;
+
+import static com.github.seregamorph.maven.turbo.TestFixtures.mojo;
+import static com.github.seregamorph.maven.turbo.TestFixtures.session;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.execution.ProjectExecutionEvent;
+import org.apache.maven.lifecycle.LifecycleExecutionException;
+import org.apache.maven.lifecycle.internal.MojoExecutor;
+import org.apache.maven.lifecycle.internal.ProjectIndex;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.MojoExecutionRunner;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Sergey Chernov
+ */
+class EarlyStartTest {
+
+    @Test
+    public void shouldStartEligibleModulesByPriority() {
+        // core -> [lib, other]; lib -> [app]; other -> [app]
+        var graph = ReactorGraph.of(List.of("core", "lib", "other", "app"), node -> switch (node) {
+            case "core" -> List.of("lib", "other");
+            case "lib", "other" -> List.of("app");
+            default -> List.of();
+        });
+        var executor = new TurboThreadPoolExecutor(1);
+        try {
+            var earlyStart = new EarlyStart(executor, graph, new int[] {4, 2, 3, 1}, 1);
+            var started = new ArrayList<String>();
+            var gates = new EarlyStart.Gate[graph.size()];
+            EarlyStart.Submitter submitter = (id, gate) -> {
+                started.add(graph.node(id));
+                gates[id] = gate;
+                return new FutureTask<>(() -> null);
+            };
+
+            earlyStart.scheduled(0);
+            earlyStart.startEligible(submitter);
+            // limited by maxStarted
+            assertEquals(List.of("other"), started);
+
+            // the early task is not taken yet, so the module is submitted as usual
+            assertFalse(earlyStart.release(2));
+            assertFalse(gates[2].take());
+            earlyStart.scheduled(2);
+            earlyStart.startEligible(submitter);
+            assertEquals(List.of("other", "lib"), started);
+
+            // app is not eligible until lib is released
+            assertTrue(gates[1].take());
+            assertTrue(earlyStart.release(1));
+            earlyStart.startEligible(submitter);
+            assertEquals(List.of("other", "lib", "app"), started);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldParkEarlyStartedModuleWithoutHoldingThread() throws Exception {
+        var executor = new TurboThreadPoolExecutor(1);
+        var events = Collections.synchronizedList(new ArrayList<String>());
+        var gate = new EarlyStart.Gate(0);
+        try {
+            var app = executor.submit(new OrderedCallable<>(true, 0, () -> {
+                assertTrue(gate.take());
+                return EarlyStart.callWithGate(gate, () -> {
+                    events.add("app process-resources");
+                    gate.await();
+                    events.add("app compile");
+                    return null;
+                });
+            }));
+            // taken by the compensated thread while app is parked
+            executor.submit(new OrderedCallable<>(0, () -> {
+                        events.add("lib signaled");
+                        gate.open(executor);
+                        return null;
+                    }))
+                    .get(10, TimeUnit.SECONDS);
+            app.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        assertEquals(List.of("app process-resources", "lib signaled", "app compile"), events);
+    }
+
+    @Test
+    public void shouldFailParkedModuleOnCancel() throws Exception {
+        var executor = new TurboThreadPoolExecutor(1);
+        var gate = new EarlyStart.Gate(0);
+        try {
+            var app = executor.submit(new OrderedCallable<>(true, 0, () -> {
+                assertTrue(gate.take());
+                return EarlyStart.callWithGate(gate, gate::await);
+            }));
+            executor.submit(new OrderedCallable<>(0, () -> {
+                        gate.cancel("Build is stopped");
+                        return null;
+                    }))
+                    .get(10, TimeUnit.SECONDS);
+            var e = assertThrows(ExecutionException.class, () -> app.get(10, TimeUnit.SECONDS));
+            assertEquals("Build is stopped", e.getCause().getMessage());
+        } finally {
+            executor.shutdown();
+        }
+        // withdrawn only before it's taken
+        assertFalse(gate.withdraw());
+    }
+
+    @Test
+    public void shouldExecuteIndependentPrefixSeparatelyAndParkBeforeResolution() throws Exception {
+        var executionPlan = new ArrayList<>(List.of(
+                mojo("clean", "maven-clean-plugin", "clean"),
+                mojo("process-resources", "maven-resources-plugin", "resources"),
+                mojo("compile", "maven-compiler-plugin", "compile", "compile"),
+                mojo("test", "maven-surefire-plugin", "test", "test")));
+
+        var request = new DefaultMavenExecutionRequest();
+        request.setBuilderId(TurboBuilder.BUILDER_TURBO);
+        var session = session(request);
+        var project = new MavenProject();
+        session.setCurrentProject(project);
+        session.setProjects(List.of(project));
+
+        var events = Collections.synchronizedList(new ArrayList<String>());
+        // Maven resolves the dependency scopes of the whole list at its first mojo
+        var mojoExecutor = new MojoExecutor() {
+            @Override
+            public void execute(MavenSession session, List<MojoExecution> mojoExecutions, ProjectIndex projectIndex) {
+                events.add("separately:"
+                        + mojoExecutions.stream()
+                                .map(MojoExecution::getLifecyclePhase)
+                                .collect(Collectors.joining(",")));
+            }
+        };
+        var strategy = new TurboMojosExecutionStrategy(mojoExecutor);
+        var turboProjectExecutionListener = new TurboProjectExecutionListener() {
+            @Override
+            boolean isReorderPhases() {
+                return false;
+            }
+        };
+        var released = new AtomicBoolean();
+        MojoExecutionRunner mojoRunner =
+                execution -> events.add("exec:" + execution.getLifecyclePhase() + ":released=" + released.get());
+
+        var gate = new EarlyStart.Gate(0);
+        assertTrue(gate.take());
+        var build = new FutureTask<>(() -> EarlyStart.callWithGate(gate, () -> {
+            CurrentProjectExecution.doWithCurrentProject(session, project, () -> {
+                turboProjectExecutionListener.beforeProjectLifecycleExecution(
+                        new ProjectExecutionEvent(session, project, executionPlan));
+                try {
+                    strategy.execute(executionPlan, session, mojoRunner);
+                } catch (LifecycleExecutionException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            return null;
+        }));
+        var thread = new Thread(build);
+        thread.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (events.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(10L);
+        }
+        released.set(true);
+        gate.open(null);
+        build.get(10, TimeUnit.SECONDS);
+
+        assertEquals(
+                List.of("separately:clean,process-resources", "exec:compile:released=true", "exec:test:released=true"),
+                events);
+    }
+
+    @Test
+    public void shouldDetectIndependentMojos() {
+        assertTrue(EarlyStart.isIndependent(mojo("clean", "maven-clean-plugin", "clean")));
+        assertTrue(EarlyStart.isIndependent(mojo("process-resources", "maven-resources-plugin", "resources")));
+        assertFalse(EarlyStart.isIndependent(
+                mojo("generate-sources", "org.codehaus.mojo:build-helper-maven-plugin", "add-source", "compile")));
+        assertFalse(EarlyStart.isIndependent(mojo("compile", "maven-compiler-plugin", "compile")));
+        assertFalse(EarlyStart.isIndependent(mojo("test", "maven-surefire-plugin", "test", "test")));
+    }
+}
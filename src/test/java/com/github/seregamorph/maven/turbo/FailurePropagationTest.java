@@ -0,0 +1,98 @@
+package com.github.seregamorph.maven.turbo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Sergey Chernov
+ */
+class FailurePropagationTest {
+
+    @Test
+    public void shouldParseProperty() {
+        assertEquals(FailurePolicy.NONE, FailurePolicy.fromProperty(null));
+        assertEquals(FailurePolicy.CANCEL, FailurePolicy.fromProperty("cancel"));
+        assertEquals(FailurePolicy.DEPRIORITIZE, FailurePolicy.fromProperty("deprioritize"));
+        assertThrows(IllegalArgumentException.class, () -> FailurePolicy.fromProperty("unknown"));
+    }
+
+    @Test
+    public void shouldCancelRunningDownstream() throws InterruptedException {
+        // core -> [lib]; other
+        var testGraph = new SchedulingPriorityTest.TestGraph();
+        var core = testGraph.add("core");
+        var lib = testGraph.add("lib", core);
+        var other = testGraph.add("other");
+        var propagation = new FailurePropagation(
+                FailurePolicy.CANCEL, false, project -> testGraph.getDownstreamProjects(project, true));
+
+        var otherModule = propagation.started(other);
+        var libStarted = new CountDownLatch(1);
+        var libInterrupted = new CountDownLatch(1);
+        var libThread = new Thread(() -> {
+            var libModule = propagation.started(lib);
+            libStarted.countDown();
+            try {
+                // tests of lib
+                Thread.sleep(10_000L);
+            } catch (InterruptedException e) {
+                libInterrupted.countDown();
+                Thread.currentThread().interrupt();
+            } finally {
+                propagation.finished(lib, libModule);
+                assertFalse(Thread.currentThread().isInterrupted());
+            }
+        });
+        libThread.start();
+        assertTrue(libStarted.await(10, TimeUnit.SECONDS));
+
+        propagation.failed(core);
+        assertTrue(libInterrupted.await(10, TimeUnit.SECONDS));
+        libThread.join();
+        assertNull(otherModule.cancelledBy);
+        propagation.finished(other, otherModule);
+    }
+
+    @Test
+    public void shouldCancelAllRunningOnFailFast() {
+        var testGraph = new SchedulingPriorityTest.TestGraph();
+        var core = testGraph.add("core");
+        var other = testGraph.add("other");
+        var propagation = new FailurePropagation(
+                FailurePolicy.CANCEL, true, project -> testGraph.getDownstreamProjects(project, true));
+
+        var otherModule = propagation.started(other);
+        propagation.failed(core);
+        assertEquals(core, otherModule.cancelledBy);
+        // the interrupt flag of the current thread is cleared
+        propagation.finished(other, otherModule);
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+
+    @Test
+    public void shouldDeprioritizeRunningDownstream() {
+        var testGraph = new SchedulingPriorityTest.TestGraph();
+        var core = testGraph.add("core");
+        var lib = testGraph.add("lib", core);
+        var app = testGraph.add("app", lib);
+        var other = testGraph.add("other");
+        var propagation = new FailurePropagation(
+                FailurePolicy.DEPRIORITIZE, false, project -> testGraph.getDownstreamProjects(project, true));
+
+        var appModule = propagation.started(app);
+        var otherModule = propagation.started(other);
+        propagation.failed(core);
+        assertTrue(appModule.deprioritized);
+        assertFalse(otherModule.deprioritized);
+        assertNull(appModule.cancelledBy);
+        propagation.finished(app, appModule);
+        propagation.finished(other, otherModule);
+    }
+}
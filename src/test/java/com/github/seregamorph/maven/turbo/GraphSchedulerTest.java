@@ -0,0 +1,230 @@
+package com.github.seregamorph.maven.turbo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.lifecycle.internal.ProjectSegment;
+import org.apache.maven.lifecycle.internal.TaskSegment;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Sergey Chernov
+ */
+class GraphSchedulerTest {
+
+    private final ForkJoinPool executor =
+            new ForkJoinPool(4, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+
+    @AfterEach
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void shouldScheduleDownstreamAfterSignal() throws InterruptedException {
+        // core -> [lib, other]; lib -> [app]
+        var testGraph = new SchedulingPriorityTest.TestGraph();
+        var core = testGraph.add("core");
+        var lib = testGraph.add("lib", core);
+        var other = testGraph.add("other", core);
+        var app = testGraph.add("app", lib);
+        var scheduleGraph = scheduleGraph(testGraph);
+
+        var events = Collections.synchronizedList(new ArrayList<String>());
+        var scheduler = new GraphScheduler(
+                executor,
+                scheduleGraph,
+                projectSegment -> () -> {
+                    var project = projectSegment.getProject();
+                    events.add("start " + project.getArtifactId());
+                    if (project == core) {
+                        SignalingExecutorCompletionService.milestone(Milestone.CLASSES);
+                        SignalingExecutorCompletionService.milestone(Milestone.PACKAGE);
+                        // tests of core: downstream modules are built in parallel
+                        Thread.sleep(100L);
+                    }
+                    events.add("finish " + project.getArtifactId());
+                    return project;
+                },
+                () -> false);
+
+        assertEquals(List.of(), scheduler.build());
+        assertEquals(8, events.size());
+        assertTrue(events.indexOf("start lib") < events.indexOf("finish core"));
+        assertTrue(events.indexOf("start other") < events.indexOf("finish core"));
+        assertTrue(events.indexOf("finish lib") < events.indexOf("start app"));
+        assertTrue(events.contains("finish " + other.getArtifactId()));
+        assertTrue(events.contains("finish " + app.getArtifactId()));
+    }
+
+    @Test
+    public void shouldScheduleDownstreamAfterRequiredMilestone() throws InterruptedException {
+        // core -> [lib, it]; it depends on the test-jar of core
+        var testGraph = new SchedulingPriorityTest.TestGraph();
+        var core = testGraph.add("core");
+        var lib = testGraph.add("lib", core);
+        var it = testGraph.add("it", core);
+        lib.getDependencies().add(dependency(core, "jar", null));
+        it.getDependencies().add(dependency(core, "jar", null));
+        it.getDependencies().add(dependency(core, "test-jar", "tests"));
+        var scheduleGraph = scheduleGraph(testGraph);
+
+        var events = Collections.synchronizedList(new ArrayList<String>());
+        var scheduler = new GraphScheduler(
+                executor,
+                scheduleGraph,
+                projectSegment -> () -> {
+                    var project = projectSegment.getProject();
+                    events.add("start " + project.getArtifactId());
+                    if (project == core) {
+                        SignalingExecutorCompletionService.milestone(Milestone.CLASSES);
+                        SignalingExecutorCompletionService.milestone(Milestone.PACKAGE);
+                        Thread.sleep(100L);
+                        events.add("test-jar " + project.getArtifactId());
+                        SignalingExecutorCompletionService.milestone(Milestone.TEST_JAR);
+                        // tests of core
+                        Thread.sleep(100L);
+                    }
+                    events.add("finish " + project.getArtifactId());
+                    return project;
+                },
+                () -> false);
+
+        assertEquals(List.of(), scheduler.build());
+        assertEquals(7, events.size());
+        assertTrue(events.indexOf("start lib") < events.indexOf("test-jar core"));
+        assertTrue(events.indexOf("test-jar core") < events.indexOf("start it"));
+        assertTrue(events.indexOf("start it") < events.indexOf("finish core"));
+    }
+
+    @Test
+    public void shouldCalculateRequiredMilestone() {
+        var testGraph = new SchedulingPriorityTest.TestGraph();
+        var core = testGraph.add("core");
+        var app = testGraph.add("app", core);
+        assertEquals(Milestone.PACKAGE, Milestone.required(core, app, true));
+
+        app.getDependencies().add(dependency(core, "jar", null));
+        assertEquals(Milestone.PACKAGE, Milestone.required(core, app, false));
+        assertEquals(Milestone.CLASSES, Milestone.required(core, app, true));
+
+        app.getDependencies().add(dependency(core, "jar", "tests"));
+        assertEquals(Milestone.TEST_JAR, Milestone.required(core, app, true));
+    }
+
+    @Test
+    public void shouldStopSchedulingAfterFailure() throws InterruptedException {
+        // core -> [app]
+        var testGraph = new SchedulingPriorityTest.TestGraph();
+        var core = testGraph.add("core");
+        var app = testGraph.add("app", core);
+        var scheduleGraph = scheduleGraph(testGraph);
+
+        var started = Collections.synchronizedList(new ArrayList<MavenProject>());
+        var scheduler = new GraphScheduler(
+                executor,
+                scheduleGraph,
+                projectSegment -> () -> {
+                    started.add(projectSegment.getProject());
+                    throw new IllegalStateException("Failed " + projectSegment.getProject());
+                },
+                () -> false);
+
+        var failures = scheduler.build();
+        assertEquals(1, failures.size());
+        assertEquals(List.of(core), started);
+        assertFalse(started.contains(app));
+    }
+
+    @Test
+    public void shouldOverlapTaskSegments() throws InterruptedException {
+        // core -> [app]
+        var testGraph = new SchedulingPriorityTest.TestGraph();
+        var core = testGraph.add("core");
+        var app = testGraph.add("app", core);
+        var session = session(testGraph);
+        var graph = ReactorGraph.of(testGraph.getAllProjects(), testGraph);
+        var priorities = SchedulingPriority.TRANSITIVE.priorities(graph, ModuleDurations.UNIFORM);
+        var first = new TaskSegment(false, "clean", "verify");
+        var second = new TaskSegment(false, "site");
+        var aggregating = new TaskSegment(true, "report:aggregate");
+        var scheduleGraph = ScheduleGraph.builder()
+                .addSegment(first, graph, projectSegments(testGraph, first, session), priorities)
+                .addSegment(second, graph, projectSegments(testGraph, second, session), priorities)
+                .addSegment(aggregating, graph, projectSegments(testGraph, aggregating, session), priorities)
+                .build();
+
+        var coreSecondStarted = new CountDownLatch(1);
+        var events = Collections.synchronizedList(new ArrayList<String>());
+        var scheduler = new GraphScheduler(
+                executor,
+                scheduleGraph,
+                projectSegment -> () -> {
+                    var project = projectSegment.getProject();
+                    var taskSegment = projectSegment.getTaskSegment();
+                    events.add(project.getArtifactId() + " " + taskSegment.getTasks());
+                    if (project == core && taskSegment == second) {
+                        coreSecondStarted.countDown();
+                    }
+                    if (project == app && taskSegment == first) {
+                        // app is still building the first task segment, while core starts the second one
+                        assertTrue(coreSecondStarted.await(10, TimeUnit.SECONDS));
+                    }
+                    return project;
+                },
+                () -> false);
+
+        assertEquals(List.of(), scheduler.build());
+        assertEquals(6, events.size());
+        // aggregating task segment is a barrier
+        assertEquals(Set.of("core [report:aggregate]", "app [report:aggregate]"), Set.copyOf(events.subList(4, 6)));
+    }
+
+    private static ScheduleGraph scheduleGraph(SchedulingPriorityTest.TestGraph testGraph) {
+        var graph = ReactorGraph.of(testGraph.getAllProjects(), testGraph);
+        return new ScheduleGraph(
+                graph,
+                projectSegments(testGraph, null, session(testGraph)),
+                SchedulingPriority.TRANSITIVE.priorities(graph, ModuleDurations.UNIFORM));
+    }
+
+    private static Dependency dependency(MavenProject project, String type, String classifier) {
+        var dependency = new Dependency();
+        dependency.setGroupId(project.getGroupId());
+        dependency.setArtifactId(project.getArtifactId());
+        dependency.setVersion(project.getVersion());
+        dependency.setType(type);
+        dependency.setClassifier(classifier);
+        return dependency;
+    }
+
+    private static MavenSession session(SchedulingPriorityTest.TestGraph testGraph) {
+        var session = TestFixtures.session();
+        session.setProjectDependencyGraph(testGraph);
+        return session;
+    }
+
+    private static Map<MavenProject, ProjectSegment> projectSegments(
+            SchedulingPriorityTest.TestGraph testGraph, TaskSegment taskSegment, MavenSession session) {
+        var projectSegments = new HashMap<MavenProject, ProjectSegment>();
+        for (var project : testGraph.getSortedProjects()) {
+            projectSegments.put(project, new ProjectSegment(project, taskSegment, session));
+        }
+        return projectSegments;
+    }
+}
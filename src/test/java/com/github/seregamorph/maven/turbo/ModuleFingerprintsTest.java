@@ -0,0 +1,118 @@
+package com.github.seregamorph.maven.turbo;
+
+import static com.github.seregamorph.maven.turbo.TestFixtures.attachArtifact;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @author Sergey Chernov
+ */
+class ModuleFingerprintsTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    public void shouldDetectChangedInputs() throws Exception {
+        // core -> [app]
+        var testGraph = new SchedulingPriorityTest.TestGraph();
+        var core = project(testGraph.add("core"));
+        var app = project(testGraph.add("app", core));
+        Files.writeString(root.resolve("core/src/Core.java"), "class Core {}");
+        Files.writeString(root.resolve("app/src/App.java"), "class App {}");
+
+        var fingerprints = fingerprints(testGraph, "goals=[verify]");
+        assertFalse(fingerprints.isUpToDate(core));
+        Files.createDirectories(root.resolve("core/target/classes"));
+        Files.createDirectories(root.resolve("app/target/classes"));
+        fingerprints.saveSuccess(core);
+        fingerprints.saveSuccess(app);
+        // the build outputs are not inputs
+        Files.writeString(root.resolve("core/target/classes/Core.class"), "bytecode");
+
+        var nextFingerprints = fingerprints(testGraph, "goals=[verify]");
+        assertTrue(nextFingerprints.isUpToDate(core));
+        assertTrue(nextFingerprints.isUpToDate(app));
+        assertEquals(fingerprints.fingerprint(app), nextFingerprints.fingerprint(app));
+        assertFalse(fingerprints(testGraph, "goals=[install]").isUpToDate(app));
+
+        // the change of the upstream module affects the downstream one
+        Files.writeString(root.resolve("core/src/Core.java"), "class Core { int field; }");
+        var changedFingerprints = fingerprints(testGraph, "goals=[verify]");
+        assertFalse(changedFingerprints.isUpToDate(core));
+        assertFalse(changedFingerprints.isUpToDate(app));
+        assertNotEquals(fingerprints.fingerprint(app), changedFingerprints.fingerprint(app));
+    }
+
+    @Test
+    public void shouldRestoreArtifactsOfSkippedUpstream() throws Exception {
+        // core -> [app]
+        var testGraph = new SchedulingPriorityTest.TestGraph();
+        var core = project(testGraph.add("core"));
+        var app = project(testGraph.add("app", core));
+        Files.writeString(root.resolve("app/src/App.java"), "class App {}");
+        Files.createDirectories(root.resolve("core/target/classes"));
+        Files.createDirectories(root.resolve("app/target/classes"));
+        var coreJar = Files.writeString(root.resolve("core/target/core-1.0.jar"), "jar");
+        var coreTestJar = Files.writeString(root.resolve("core/target/core-1.0-tests.jar"), "test-jar");
+        core.getArtifact().setFile(coreJar.toFile());
+        attachArtifact(core, "test-jar", "tests", coreTestJar);
+
+        var fingerprints = fingerprints(testGraph, "goals=[install]");
+        fingerprints.saveSuccess(core);
+        fingerprints.saveSuccess(app);
+
+        // the next build with the changed downstream module
+        Files.writeString(root.resolve("app/src/App.java"), "class App { int field; }");
+        var nextGraph = new SchedulingPriorityTest.TestGraph();
+        var nextCore = project(nextGraph.add("core"));
+        var nextApp = project(nextGraph.add("app", nextCore));
+        var nextFingerprints = fingerprints(nextGraph, "goals=[install]");
+        assertFalse(nextFingerprints.isUpToDate(nextApp));
+        assertTrue(nextFingerprints.isUpToDate(nextCore));
+        nextFingerprints.restoreArtifacts(nextCore, TestFixtures.projectHelper());
+        assertEquals(coreJar.toFile(), nextCore.getArtifact().getFile());
+        assertEquals(1, nextCore.getAttachedArtifacts().size());
+        var restoredTestJar = nextCore.getAttachedArtifacts().get(0);
+        assertEquals("tests", restoredTestJar.getClassifier());
+        assertEquals("test-jar", restoredTestJar.getType());
+        assertEquals(coreTestJar.toFile(), restoredTestJar.getFile());
+
+        // the module is built again if the packaged artifacts are missing
+        Files.delete(coreJar);
+        assertFalse(fingerprints(nextGraph, "goals=[install]").isUpToDate(nextCore));
+    }
+
+    private ModuleFingerprints fingerprints(SchedulingPriorityTest.TestGraph testGraph, String buildParameters) {
+        return new ModuleFingerprints(
+                testGraph.getAllProjects(), buildParameters, project -> testGraph.getUpstreamProjects(project, false));
+    }
+
+    private MavenProject project(MavenProject project) throws Exception {
+        var basedir = root.resolve(project.getArtifactId());
+        Files.createDirectories(basedir.resolve("src"));
+        project.setFile(basedir.resolve("pom.xml").toFile());
+        Files.writeString(basedir.resolve("pom.xml"), "<project/>");
+        project.getBuild().setDirectory(basedir.resolve("target").toString());
+        project.getBuild().setOutputDirectory(basedir.resolve("target/classes").toString());
+        project.setArtifact(new DefaultArtifact(
+                TestFixtures.GROUP_ID,
+                project.getArtifactId(),
+                "1.0",
+                null,
+                "jar",
+                null,
+                new DefaultArtifactHandler("jar")));
+        return project;
+    }
+}
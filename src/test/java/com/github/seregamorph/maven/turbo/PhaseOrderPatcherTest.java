@@ -1,6 +1,8 @@
 package com.github.seregamorph.maven.turbo;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -118,4 +120,80 @@ class PhaseOrderPatcherTest {
         PhaseOrderPatcher.restorePhases(originalMaven3Phases, phases);
         assertEquals(originalMaven3Phases, phases);
     }
+
+    @Test
+    public void shouldDetectMainClassesPhases() {
+        var mainClassesPhases = originalMaven3Phases.stream()
+                .filter(PhaseOrderPatcher::isMainClasses)
+                .toList();
+        assertEquals(originalMaven3Phases.subList(0, 8), mainClassesPhases);
+        assertTrue(PhaseOrderPatcher.isMainClasses("after:compile"));
+        assertFalse(PhaseOrderPatcher.isMainClasses("before:test-compile"));
+        assertFalse(PhaseOrderPatcher.isMainClasses("package"));
+    }
+
+    @Test
+    public void shouldMoveTestJarAfterTestClasses() {
+        // the phases are already reordered, the goal follows the phase
+        var items = new ArrayList<>(List.of(
+                "compile:compile",
+                "package:jar",
+                "package:test-jar",
+                "test-compile:testCompile",
+                "process-test-classes:check",
+                "test:test",
+                "install:install"));
+        assertTrue(PhaseOrderPatcher.moveTestJarAfterTestClasses(
+                items, item -> item.substring(0, item.indexOf(':')), item -> item.endsWith(":test-jar")));
+        assertEquals(
+                List.of(
+                        "compile:compile",
+                        "package:jar",
+                        "test-compile:testCompile",
+                        "process-test-classes:check",
+                        "package:test-jar",
+                        "test:test",
+                        "install:install"),
+                items);
+        // repeated move should be no-op
+        assertFalse(PhaseOrderPatcher.moveTestJarAfterTestClasses(
+                items, item -> item.substring(0, item.indexOf(':')), item -> item.endsWith(":test-jar")));
+    }
+
+    @Test
+    public void shouldApplyCachedPermutationToItemsWithSamePhases() {
+        // two modules with the same execution plan shape, but different mojo executions
+        for (var module : List.of("core", "app")) {
+            var items = new ArrayList<>(List.of(
+                    "compile:" + module,
+                    "test-compile:" + module,
+                    "test:" + module,
+                    "package:" + module,
+                    "install:" + module));
+            var phases = PhaseOrderPatcher.reorderPhases(
+                    new TurboBuilderConfig(false), items, item -> item.substring(0, item.indexOf(':')));
+            assertEquals(List.of("compile", "test-compile", "test", "package", "install"), phases);
+            assertEquals(
+                    List.of(
+                            "compile:" + module,
+                            "package:" + module,
+                            "test-compile:" + module,
+                            "test:" + module,
+                            "install:" + module),
+                    items);
+        }
+        // same phases, but other options
+        var items = new ArrayList<>(List.of("compile", "test-compile", "test", "package", "install"));
+        PhaseOrderPatcher.reorderPhases(new TurboBuilderConfig(true), items, Function.identity());
+        assertEquals(List.of("compile", "test-compile", "package", "test", "install"), items);
+    }
+
+    @Test
+    public void shouldClassifyMaven4Phases() {
+        assertTrue(PhaseOrderPatcher.isTestClasses("after:test-compile"));
+        assertTrue(PhaseOrderPatcher.isAnyTest("after:test-resources"));
+        assertFalse(PhaseOrderPatcher.isAnyTest("after:compile"));
+        assertFalse(PhaseOrderPatcher.isPackage("after:package"));
+        assertTrue(PhaseOrderPatcher.isPackage("package"));
+    }
 }
@@ -0,0 +1,111 @@
+package com.github.seregamorph.maven.turbo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Sergey Chernov
+ */
+class PostSignalYieldTest {
+
+    @Test
+    public void shouldYieldToPendingBuildsThreadPool() throws Exception {
+        shouldYieldToPendingBuilds(new TurboThreadPoolExecutor(1));
+    }
+
+    @Test
+    public void shouldYieldToPendingBuildsForkJoinPool() throws Exception {
+        shouldYieldToPendingBuilds(new ForkJoinPool(1, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true));
+    }
+
+    @Test
+    public void shouldNotYieldWithoutPendingBuilds() throws Exception {
+        var executor = new TurboThreadPoolExecutor(1);
+        try {
+            var yield = executor.submit(new OrderedCallable<>(0, () -> PostSignalYield.yieldCurrentThread(null)))
+                    .get(10, TimeUnit.SECONDS);
+            assertNull(yield);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldGiveBackConcurrencyPermitWhileYielded() throws Exception {
+        // the limiter is smaller than the pool, as with the adaptive concurrency
+        var executor = new TurboThreadPoolExecutor(2);
+        var limiter = new ConcurrencyLimiter(1);
+        var events = Collections.synchronizedList(new ArrayList<String>());
+        var otherStarted = new CountDownLatch(1);
+        var otherFinished = new CountDownLatch(1);
+        try {
+            // occupies the second thread without the permit
+            executor.submit(new OrderedCallable<>(0, () -> {
+                otherStarted.countDown();
+                otherFinished.await();
+                return null;
+            }));
+            executor.submit(new OrderedCallable<>(1, limited(limiter, () -> {
+                        assertTrue(otherStarted.await(10, TimeUnit.SECONDS));
+                        events.add("lib pre-signal");
+                        // taken by the compensated thread and waiting for the permit held by lib
+                        executor.submit(new OrderedCallable<>(0, limited(limiter, () -> events.add("app"))));
+                        var yield = PostSignalYield.yieldCurrentThread(limiter);
+                        assertNotNull(yield);
+                        events.add("lib post-signal");
+                        yield.complete();
+                        return null;
+                    })))
+                    .get(10, TimeUnit.SECONDS);
+        } finally {
+            otherFinished.countDown();
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        assertEquals(List.of("lib pre-signal", "app", "lib post-signal"), events);
+    }
+
+    private static <T> Callable<T> limited(ConcurrencyLimiter limiter, Callable<T> callable) {
+        return () -> {
+            limiter.acquire();
+            try {
+                return callable.call();
+            } finally {
+                limiter.release();
+            }
+        };
+    }
+
+    private static void shouldYieldToPendingBuilds(ExecutorService executor) throws Exception {
+        var events = Collections.synchronizedList(new ArrayList<String>());
+        try {
+            executor.submit(new OrderedCallable<>(0, () -> {
+                        events.add("lib pre-signal");
+                        // downstream module scheduled after the signal
+                        executor.submit(new OrderedCallable<>(0, () -> events.add("app")));
+                        var yield = PostSignalYield.yieldCurrentThread(null);
+                        assertNotNull(yield);
+                        events.add("lib post-signal");
+                        yield.complete();
+                        return null;
+                    }))
+                    .get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        assertEquals(List.of("lib pre-signal", "app", "lib post-signal"), events);
+    }
+}
@@ -0,0 +1,63 @@
+package com.github.seregamorph.maven.turbo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Sergey Chernov
+ */
+class ReactorSimulatorTest {
+
+    @Test
+    public void shouldSimulateSignaledBuild() {
+        // core -> [lib, other]; lib -> [app]
+        var graph = ReactorGraph.of(List.of("core", "lib", "other", "app"), node -> switch (node) {
+            case "core" -> List.of("lib", "other");
+            case "lib" -> List.of("app");
+            default -> List.of();
+        });
+        // core: 10s compile, 30s tests; lib: 10s + 10s; other: 20s + 0s; app: 10s + 0s
+        var simulator = new ReactorSimulator(
+                graph, new long[] {10_000, 10_000, 20_000, 10_000}, new long[] {30_000, 10_000, 0, 0});
+
+        var results = simulator.sweep(new int[] {1, 2, 3}, SchedulingPriority.TRANSITIVE);
+        assertEquals(3, results.size());
+        var single = results.get(0);
+        // no parallelism
+        assertEquals(90_000L, single.makespanMillis);
+        assertEquals(1.0, single.utilization(), 0.001);
+        var two = results.get(1);
+        // worker 1: core [0, 40], app [40, 50]; worker 2: lib [10, 30], other [30, 50]
+        assertEquals(50_000L, two.makespanMillis);
+        assertEquals(90_000L, two.busyMillis);
+        var three = results.get(2);
+        // core [0, 40], lib [10, 30], other [10, 30], app [30, 40]
+        assertEquals(40_000L, three.makespanMillis);
+        assertEquals(40_000L, three.criticalPathMillis);
+        assertTrue(three.utilization() < two.utilization());
+    }
+
+    @Test
+    public void shouldPreferCriticalPath() {
+        // a -> [a1, a2]; b -> [c]; d
+        var graph = ReactorGraph.of(List.of("a", "b", "d", "a1", "a2", "c"), node -> switch (node) {
+            case "a" -> List.of("a1", "a2");
+            case "b" -> List.of("c");
+            default -> List.of();
+        });
+        var simulator = new ReactorSimulator(
+                graph, new long[] {1_000, 10_000, 10_000, 1_000, 1_000, 10_000}, new long[] {0, 0, 0, 0, 0, 0});
+
+        // a and b go first, d delays c
+        var direct = simulator.sweep(new int[] {1, 2}, SchedulingPriority.DIRECT);
+        assertEquals(33_000L, direct.get(0).makespanMillis);
+        assertEquals(21_000L, direct.get(1).makespanMillis);
+        // b and d go first
+        var criticalPath = simulator.sweep(new int[] {2}, SchedulingPriority.CRITICAL_PATH);
+        assertEquals(20_000L, criticalPath.get(0).makespanMillis);
+        assertEquals(20_000L, criticalPath.get(0).criticalPathMillis);
+    }
+}
@@ -0,0 +1,68 @@
+package com.github.seregamorph.maven.turbo;
+
+import static com.github.seregamorph.maven.turbo.TestFixtures.mojo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Sergey Chernov
+ */
+class ResourcePermitsTest {
+
+    @Test
+    public void shouldParseProperties() {
+        assertEquals(Map.of(), ResourcePermits.parsePermits(null));
+        assertEquals(Map.of("integration", 2, "heavy", 1), ResourcePermits.parsePermits("integration:2, heavy:1"));
+        assertThrows(IllegalArgumentException.class, () -> ResourcePermits.parsePermits("integration"));
+        assertThrows(IllegalArgumentException.class, () -> ResourcePermits.parsePermits("integration:0"));
+
+        assertEquals(
+                Map.of("maven-failsafe-plugin:integration-test", "integration", "exec-maven-plugin", "heavy"),
+                ResourcePermits.parseMojoClasses(
+                        "maven-failsafe-plugin:integration-test=integration,exec-maven-plugin=heavy"));
+        assertThrows(IllegalArgumentException.class, () -> ResourcePermits.parseMojoClasses("exec-maven-plugin="));
+    }
+
+    @Test
+    public void shouldMatchMojoClass() {
+        var permits = new ResourcePermits(
+                Map.of("integration", 1),
+                Map.of("maven-failsafe-plugin:integration-test", "integration", "exec-maven-plugin", "heavy"));
+        assertEquals(
+                "integration",
+                permits.getMojoClass(mojo("integration-test", "maven-failsafe-plugin", "integration-test")));
+        assertNull(permits.getMojoClass(mojo("verify", "maven-failsafe-plugin", "verify")));
+        assertEquals("heavy", permits.getMojoClass(mojo("test", "org.codehaus.mojo:exec-maven-plugin", "java")));
+    }
+
+    @Test
+    public void shouldLimitResourceClass() throws InterruptedException {
+        var permits = new ResourcePermits(Map.of("integration", 1), Map.of());
+        assertTrue(permits.acquire("integration"));
+        // not limited
+        assertFalse(permits.acquire("unknown"));
+
+        var acquired = new CountDownLatch(1);
+        var thread = new Thread(() -> {
+            try {
+                permits.acquire("integration");
+                acquired.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        thread.start();
+        assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+        permits.release("integration");
+        assertTrue(acquired.await(10, TimeUnit.SECONDS));
+        thread.join();
+    }
+}
@@ -0,0 +1,145 @@
+package com.github.seregamorph.maven.turbo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.maven.execution.ProjectDependencyGraph;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Sergey Chernov
+ */
+class SchedulingPriorityTest {
+
+    @Test
+    public void shouldParseProperty() {
+        assertEquals(SchedulingPriority.TRANSITIVE, SchedulingPriority.fromProperty(null));
+        assertEquals(SchedulingPriority.DIRECT, SchedulingPriority.fromProperty("direct"));
+        assertEquals(SchedulingPriority.TRANSITIVE, SchedulingPriority.fromProperty("transitive"));
+        assertEquals(SchedulingPriority.CRITICAL_PATH, SchedulingPriority.fromProperty("critical-path"));
+        assertThrows(IllegalArgumentException.class, () -> SchedulingPriority.fromProperty("unknown"));
+    }
+
+    @Test
+    public void shouldCalculatePriorities() {
+        // core -> [a, b, c]; slow -> heavy -> [app, cli]
+        var testGraph = new TestGraph();
+        var core = testGraph.add("core");
+        var slow = testGraph.add("slow");
+        var a = testGraph.add("a", core);
+        var b = testGraph.add("b", core);
+        var c = testGraph.add("c", core);
+        var heavy = testGraph.add("heavy", slow);
+        var app = testGraph.add("app", heavy);
+        var cli = testGraph.add("cli", heavy, core);
+        var graph = ReactorGraph.of(testGraph.getAllProjects(), testGraph);
+
+        var direct = SchedulingPriority.DIRECT.priorities(graph, ModuleDurations.UNIFORM);
+        assertEquals(4, direct[graph.id(core)]);
+        assertEquals(1, direct[graph.id(slow)]);
+        assertEquals(2, direct[graph.id(heavy)]);
+        assertEquals(0, direct[graph.id(app)]);
+
+        var transitive = SchedulingPriority.TRANSITIVE.priorities(graph, ModuleDurations.UNIFORM);
+        assertEquals(4, transitive[graph.id(core)]);
+        assertEquals(3, transitive[graph.id(slow)]);
+        assertEquals(2, transitive[graph.id(heavy)]);
+        assertEquals(0, transitive[graph.id(a)]);
+
+        var criticalPath = SchedulingPriority.CRITICAL_PATH.priorities(graph, ModuleDurations.UNIFORM);
+        assertEquals(2, criticalPath[graph.id(core)]);
+        assertEquals(1, criticalPath[graph.id(a)]);
+        assertEquals(1, criticalPath[graph.id(b)]);
+        assertEquals(1, criticalPath[graph.id(c)]);
+        assertEquals(3, criticalPath[graph.id(slow)]);
+        assertEquals(2, criticalPath[graph.id(heavy)]);
+        assertEquals(1, criticalPath[graph.id(app)]);
+        assertEquals(1, criticalPath[graph.id(cli)]);
+    }
+
+    @Test
+    public void shouldCountPostSignalDuration() {
+        // lib -> [leaf]; lib has long tests
+        var testGraph = new TestGraph();
+        var lib = testGraph.add("lib");
+        var leaf = testGraph.add("leaf", lib);
+        var graph = ReactorGraph.of(testGraph.getAllProjects(), testGraph);
+
+        var weights = SchedulingPriority.criticalPathWeights(graph, new long[] {10L, 5L}, new long[] {100L, 1L});
+        // tests of lib are longer than the downstream chain
+        assertEquals(110L, weights[graph.id(lib)]);
+        assertEquals(6L, weights[graph.id(leaf)]);
+    }
+
+    @Test
+    public void shouldRejectUnsortedGraph() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> ReactorGraph.of(
+                        List.of("app", "core"), node -> "core".equals(node) ? List.of("app") : List.of()));
+    }
+
+    static class TestGraph implements ProjectDependencyGraph {
+
+        private final Map<MavenProject, List<MavenProject>> upstreams = new LinkedHashMap<>();
+
+        MavenProject add(String artifactId, MavenProject... projectUpstreams) {
+            var project = new MavenProject();
+            project.setGroupId("com.example");
+            project.setArtifactId(artifactId);
+            project.setVersion("1.0");
+            upstreams.put(project, List.of(projectUpstreams));
+            return project;
+        }
+
+        @Override
+        public List<MavenProject> getAllProjects() {
+            return getSortedProjects();
+        }
+
+        @Override
+        public List<MavenProject> getSortedProjects() {
+            // projects are added in topological order
+            return new ArrayList<>(upstreams.keySet());
+        }
+
+        @Override
+        public List<MavenProject> getDownstreamProjects(MavenProject project, boolean transitive) {
+            var result = new ArrayList<MavenProject>();
+            for (var entry : upstreams.entrySet()) {
+                if (entry.getValue().contains(project)) {
+                    result.add(entry.getKey());
+                    if (transitive) {
+                        for (var downstream : getDownstreamProjects(entry.getKey(), true)) {
+                            if (!result.contains(downstream)) {
+                                result.add(downstream);
+                            }
+                        }
+                    }
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public List<MavenProject> getUpstreamProjects(MavenProject project, boolean transitive) {
+            var result = new ArrayList<MavenProject>();
+            for (var upstream : upstreams.get(project)) {
+                result.add(upstream);
+                if (transitive) {
+                    for (var transitiveUpstream : getUpstreamProjects(upstream, true)) {
+                        if (!result.contains(transitiveUpstream)) {
+                            result.add(transitiveUpstream);
+                        }
+                    }
+                }
+            }
+            return result;
+        }
+    }
+}
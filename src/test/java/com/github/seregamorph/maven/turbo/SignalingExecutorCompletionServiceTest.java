@@ -0,0 +1,61 @@
+package com.github.seregamorph.maven.turbo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Sergey Chernov
+ */
+class SignalingExecutorCompletionServiceTest {
+
+    @Test
+    public void shouldReportReachedMilestones() throws Exception {
+        var executor = new TurboThreadPoolExecutor(1);
+        try {
+            var service = SignalingExecutorCompletionService.withMilestones(executor);
+            var project = new MavenProject();
+            var task = service.submit(0, project, () -> {
+                SignalingExecutorCompletionService.milestone(Milestone.CLASSES);
+                SignalingExecutorCompletionService.milestone(Milestone.PACKAGE);
+                SignalingExecutorCompletionService.signal(project);
+                return project;
+            });
+            var milestones = new ArrayList<Milestone>();
+            for (int i = 0; i < Milestone.values().length; i++) {
+                var reached = service.takeMilestone();
+                assertSame(project, reached.project);
+                milestones.add(reached.milestone);
+            }
+            // the milestones not reached explicitly are reported on completion
+            assertEquals(List.of(Milestone.values()), milestones);
+            task.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldReportFailureInsteadOfMilestones() throws Exception {
+        var executor = new TurboThreadPoolExecutor(1);
+        try {
+            var service = SignalingExecutorCompletionService.withMilestones(executor);
+            service.submit(0, new MavenProject(), () -> {
+                SignalingExecutorCompletionService.milestone(Milestone.CLASSES);
+                throw new IllegalStateException("Compilation failure");
+            });
+            assertEquals(Milestone.CLASSES, service.takeMilestone().milestone);
+            var e = assertThrows(ExecutionException.class, service::takeMilestone);
+            assertEquals("Compilation failure", e.getCause().getMessage());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.github.seregamorph.maven.turbo;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.List;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.descriptor.MojoDescriptor;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.MavenProjectHelper;
+
+/**
+ * Factories of the sessions, mojo executions and projects shared by the tests.
+ *
+ * @author Sergey Chernov
+ */
+final class TestFixtures {
+
+    static final String GROUP_ID = "com.example";
+
+    static MavenSession session() {
+        return session(new DefaultMavenExecutionRequest());
+    }
+
+    /**
+     * @return the session without the container and the repository session
+     */
+    @SuppressWarnings("deprecation")
+    static MavenSession session(MavenExecutionRequest request) {
+        // all the public constructors are deprecated in Maven 3.9, Maven itself creates the session via DefaultMaven
+        return new MavenSession(null, null, request, null);
+    }
+
+    /**
+     * @param plugin "pluginArtifactId" of org.apache.maven.plugins or "pluginGroupId:pluginArtifactId"
+     */
+    static MojoExecution mojo(String phase, String plugin, String goal) {
+        return mojo(phase, plugin, goal, null);
+    }
+
+    /**
+     * @param plugin               "pluginArtifactId" of org.apache.maven.plugins or "pluginGroupId:pluginArtifactId"
+     * @param dependencyResolution the dependency resolution scope required by the mojo or null
+     */
+    static MojoExecution mojo(String phase, String plugin, String goal, /*@Nullable*/ String dependencyResolution) {
+        int separator = plugin.indexOf(':');
+        var pluginDescriptor = new PluginDescriptor();
+        pluginDescriptor.setGroupId(separator < 0 ? "org.apache.maven.plugins" : plugin.substring(0, separator));
+        pluginDescriptor.setArtifactId(plugin.substring(separator + 1));
+        var mojoDescriptor = new MojoDescriptor();
+        mojoDescriptor.setPluginDescriptor(pluginDescriptor);
+        mojoDescriptor.setGoal(goal);
+        mojoDescriptor.setDependencyResolutionRequired(dependencyResolution);
+        var execution = new MojoExecution(mojoDescriptor, "default");
+        execution.setLifecyclePhase(phase);
+        return execution;
+    }
+
+    /**
+     * @return the jar module "com.example:artifactId:1.0"
+     */
+    static MavenProject project(String artifactId) {
+        var project = new MavenProject();
+        project.setGroupId(GROUP_ID);
+        project.setArtifactId(artifactId);
+        project.setVersion("1.0");
+        project.setPackaging("jar");
+        project.setArtifact(
+                new DefaultArtifact(GROUP_ID, artifactId, "1.0", null, "jar", null, new DefaultArtifactHandler("jar")));
+        return project;
+    }
+
+    /**
+     * @return the jar module "com.example:artifactId:1.0" with the pom.xml and the "target" build directory in the
+     * base directory (not created)
+     */
+    static MavenProject project(String artifactId, Path basedir) {
+        var project = project(artifactId);
+        project.setFile(basedir.resolve("pom.xml").toFile());
+        project.getBuild().setDirectory(basedir.resolve("target").toString());
+        project.getBuild().setOutputDirectory(basedir.resolve("target/classes").toString());
+        return project;
+    }
+
+    /**
+     * Attaches the artifact with "jar" extension, e.g. "test-jar" type with "tests" classifier.
+     */
+    static Artifact attachArtifact(MavenProject project, String type, String classifier, Path file) {
+        var artifactHandler = new DefaultArtifactHandler(type);
+        artifactHandler.setExtension("jar");
+        var attachedArtifact = new DefaultArtifact(
+                project.getGroupId(),
+                project.getArtifactId(),
+                project.getVersion(),
+                null,
+                type,
+                classifier,
+                artifactHandler);
+        attachedArtifact.setFile(file.toFile());
+        project.getAttachedArtifacts().add(attachedArtifact);
+        return attachedArtifact;
+    }
+
+    /**
+     * @return the project helper attaching the artifacts via {@link #attachArtifact}, like the jar based artifact
+     * handlers (e.g. "test-jar") registered in Maven
+     */
+    static MavenProjectHelper projectHelper() {
+        return new MavenProjectHelper() {
+            @Override
+            public void attachArtifact(MavenProject project, File artifactFile, String artifactClassifier) {
+                attachArtifact(project, "jar", artifactClassifier, artifactFile);
+            }
+
+            @Override
+            public void attachArtifact(MavenProject project, String artifactType, File artifactFile) {
+                attachArtifact(project, artifactType, null, artifactFile);
+            }
+
+            @Override
+            public void attachArtifact(
+                    MavenProject project, String artifactType, String artifactClassifier, File artifactFile) {
+                TestFixtures.attachArtifact(project, artifactType, artifactClassifier, artifactFile.toPath());
+            }
+
+            @Override
+            public void addResource(
+                    MavenProject project, String resourceDirectory, List<String> includes, List<String> excludes) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void addTestResource(
+                    MavenProject project, String resourceDirectory, List<String> includes, List<String> excludes) {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    private TestFixtures() {}
+}
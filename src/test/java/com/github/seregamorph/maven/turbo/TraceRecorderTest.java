@@ -0,0 +1,68 @@
+package com.github.seregamorph.maven.turbo;
+
+import static com.github.seregamorph.maven.turbo.TestFixtures.mojo;
+import static com.github.seregamorph.maven.turbo.TestFixtures.project;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @author Sergey Chernov
+ */
+class TraceRecorderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void shouldWriteTrace() throws Exception {
+        var recorder = new TraceRecorder(TraceRecorder.DEFAULT_BUFFER_SIZE);
+        var project = project("core");
+        var compile = mojo("compile", "maven-compiler-plugin", "compile");
+
+        var thread = new Thread(
+                () -> {
+                    recorder.moduleStarted(project, System.nanoTime());
+                    recorder.moduleLifecycleStarted(project);
+                    recorder.mojoStarted(compile);
+                    recorder.mojoFinished(compile, true);
+                    recorder.moduleSignaled(project);
+                    recorder.moduleFinished(project, true);
+                },
+                "BuilderThread 0");
+        thread.start();
+        thread.join();
+
+        var file = tempDir.resolve("target/turbo-trace.json");
+        assertEquals(0L, recorder.write(file));
+        var trace = Files.readString(file);
+        assertTrue(trace.startsWith("{\"displayTimeUnit\":\"ms\",\"traceEvents\":["), trace);
+        assertTrue(trace.contains("\"args\":{\"name\":\"BuilderThread 0\"}"), trace);
+        assertTrue(trace.contains("{\"ph\":\"b\",\"cat\":\"queue\",\"id\":1,\"name\":\"core\""), trace);
+        assertTrue(trace.contains("{\"ph\":\"B\",\"cat\":\"module\",\"name\":\"core\""), trace);
+        assertTrue(
+                trace.contains("{\"ph\":\"B\",\"cat\":\"mojo\",\"name\":\"maven-compiler-plugin:compile (default)\""),
+                trace);
+        assertTrue(trace.contains("\"name\":\"signal core\""), trace);
+        assertEquals(2, trace.split("\"ph\":\"E\"").length - 1, trace);
+    }
+
+    @Test
+    public void shouldOverwriteOldestEvents() throws Exception {
+        var recorder = new TraceRecorder(4);
+        var compile = mojo("compile", "maven-compiler-plugin", "compile");
+        for (int i = 0; i < 5; i++) {
+            recorder.mojoStarted(compile);
+            recorder.mojoFinished(compile, true);
+        }
+
+        var file = tempDir.resolve("turbo-trace.json");
+        assertEquals(6L, recorder.write(file));
+        var trace = Files.readString(file);
+        assertEquals(2, trace.split("\"ph\":\"E\"").length - 1, trace);
+    }
+}
@@ -0,0 +1,58 @@
+package com.github.seregamorph.maven.turbo;
+
+import static com.github.seregamorph.maven.turbo.TestFixtures.project;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginExecution;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Sergey Chernov
+ */
+class TurboMavenLifecycleParticipantTest {
+
+    @Test
+    public void shouldDetectTestClassesNotPackagedViaTestJarGoal() {
+        var core = project("core");
+        addPluginGoal(core, "maven-jar-plugin", "test-jar");
+        var lib = project("lib");
+        // the test classes are packaged via the jar goal with the "tests" classifier
+        addPluginGoal(lib, "maven-jar-plugin", "jar");
+        var other = project("other");
+        // packages the test sources, not the test classes
+        addPluginGoal(other, "maven-source-plugin", "test-jar");
+        var app = project("app");
+        addDependency(app, "core", "test-jar", null);
+        addDependency(app, "lib", "jar", "tests");
+        addDependency(app, "other", "test-jar", null);
+        // not a reactor module
+        addDependency(app, "external", "test-jar", null);
+
+        assertEquals(
+                List.of("app -> lib", "app -> other"),
+                TurboMavenLifecycleParticipant.unsupportedTestJarDependencies(List.of(core, lib, other, app)));
+    }
+
+    private static void addPluginGoal(MavenProject project, String artifactId, String goal) {
+        var execution = new PluginExecution();
+        execution.addGoal(goal);
+        var plugin = new Plugin();
+        plugin.setArtifactId(artifactId);
+        plugin.addExecution(execution);
+        project.getBuild().addPlugin(plugin);
+    }
+
+    private static void addDependency(MavenProject project, String artifactId, String type, String classifier) {
+        var dependency = new Dependency();
+        dependency.setGroupId(TestFixtures.GROUP_ID);
+        dependency.setArtifactId(artifactId);
+        dependency.setVersion("1.0");
+        dependency.setType(type);
+        dependency.setClassifier(classifier);
+        project.getDependencies().add(dependency);
+    }
+}
@@ -1,17 +1,20 @@
 package com.github.seregamorph.maven.turbo;
 
+import static com.github.seregamorph.maven.turbo.TestFixtures.mojo;
+import static com.github.seregamorph.maven.turbo.TestFixtures.session;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 import org.apache.maven.execution.DefaultMavenExecutionRequest;
-import org.apache.maven.execution.MavenSession;
 import org.apache.maven.execution.MojoExecutionEvent;
 import org.apache.maven.execution.ProjectExecutionEvent;
 import org.apache.maven.lifecycle.LifecycleExecutionException;
 import org.apache.maven.plugin.DefaultMojosExecutionStrategy;
 import org.apache.maven.plugin.MojoExecution;
 import org.apache.maven.plugin.MojoExecutionRunner;
+import org.apache.maven.plugin.descriptor.MojoDescriptor;
 import org.apache.maven.project.MavenProject;
 import org.junit.jupiter.api.Test;
 
@@ -170,18 +173,87 @@ class TurboMojosExecutionStrategyMaven3Test {
         shouldReorderAndSignalImpl(phases, expectedEvents);
     }
 
+    @Test
+    public void shouldSignalTestJarProducerAfterTestJar() throws LifecycleExecutionException {
+        // already reordered, the test-jar is moved after the test classes per module
+        List<String> phases = List.of(
+                "compile",
+                "package:jar",
+                "package:test-jar",
+                "test-compile",
+                "process-test-classes",
+                "test",
+                "install");
+        var expectedEvents = List.of(
+                "exec:compile",
+                "exec:package:jar",
+                "exec:test-compile",
+                "exec:process-test-classes",
+                "exec:package:test-jar",
+                "signal",
+                "exec:test",
+                "exec:install");
+        shouldReorderAndSignalImpl(phases, expectedEvents);
+    }
+
+    @Test
+    public void shouldReachTestJarAfterPackage() throws LifecycleExecutionException {
+        // -DturboTestCompile: the test classes are compiled and the test-jar is packaged before the main jar
+        List<String> phases = List.of("compile", "test-compile", "package:test-jar", "package:jar", "test", "install");
+        var expectedEvents = List.of(
+                "exec:compile",
+                "milestone:CLASSES",
+                "exec:test-compile",
+                "exec:package:test-jar",
+                "exec:package:jar",
+                "milestone:PACKAGE",
+                "milestone:TEST_JAR",
+                "signal",
+                "exec:test",
+                "exec:install");
+        shouldReorderAndSignalImpl(phases, expectedEvents, true);
+    }
+
+    @Test
+    public void shouldNotSignalAfterTestJarOfOtherPlugins() throws LifecycleExecutionException {
+        // maven-source-plugin:test-jar packages the test sources, the test classes are not awaited
+        List<String> phases = List.of(
+                "compile", "package:jar", "package:maven-source-plugin:test-jar", "test-compile", "test", "install");
+        var expectedEvents = List.of(
+                "exec:compile",
+                "exec:package:jar",
+                "exec:package:test-jar",
+                "signal",
+                "exec:test-compile",
+                "exec:test",
+                "exec:install");
+        shouldReorderAndSignalImpl(phases, expectedEvents);
+    }
+
     private static void shouldReorderAndSignalImpl(List<String> phases, List<String> expectedEvents)
             throws LifecycleExecutionException {
+        shouldReorderAndSignalImpl(phases, expectedEvents, false);
+    }
+
+    private static void shouldReorderAndSignalImpl(List<String> phases, List<String> expectedEvents, boolean milestones)
+            throws LifecycleExecutionException {
         var executionPlan = phases.stream()
-                .map(phase -> {
-                    var execution = new MojoExecution(null);
-                    execution.setLifecyclePhase(phase);
-                    return execution;
+                .map(phaseAndGoal -> {
+                    // optional plugin (maven-jar-plugin by default) and goal after the phase
+                    var parts = phaseAndGoal.split(":");
+                    if (parts.length == 1) {
+                        var execution = new MojoExecution((MojoDescriptor) null);
+                        execution.setLifecyclePhase(phaseAndGoal);
+                        return execution;
+                    }
+                    return parts.length == 2
+                            ? mojo(parts[0], "maven-jar-plugin", parts[1])
+                            : mojo(parts[0], parts[1], parts[2]);
                 })
-                .toList();
+                .collect(Collectors.toList());
 
         var request = new DefaultMavenExecutionRequest();
-        var session = new MavenSession(null, null, request, null);
+        var session = session(request);
         var project = new MavenProject();
         session.setCurrentProject(project);
 
@@ -199,7 +271,8 @@ class TurboMojosExecutionStrategyMaven3Test {
             public void run(MojoExecution execution) {
                 turboMojoExecutionListener.beforeMojoExecution(
                         new MojoExecutionEvent(session, project, execution, null));
-                eventsList.add("exec:" + execution.getLifecyclePhase());
+                eventsList.add("exec:" + execution.getLifecyclePhase()
+                        + (execution.getMojoDescriptor() == null ? "" : ":" + execution.getGoal()));
                 turboMojoExecutionListener.afterMojoExecutionSuccess(
                         new MojoExecutionEvent(session, project, execution, null));
             }
@@ -211,12 +284,18 @@ class TurboMojosExecutionStrategyMaven3Test {
             SignalingExecutorCompletionService.currentSignaler.set(p -> {
                 eventsList.add("signal");
             });
+            if (milestones) {
+                SignalingExecutorCompletionService.currentMilestones.set(milestone -> {
+                    eventsList.add("milestone:" + milestone);
+                });
+            }
             try {
                 strategy.execute(executionPlan, session, mojoRunner);
             } catch (LifecycleExecutionException e) {
                 throw new RuntimeException(e);
             } finally {
                 SignalingExecutorCompletionService.currentSignaler.remove();
+                SignalingExecutorCompletionService.currentMilestones.remove();
             }
         });
 